@@ -11,14 +11,21 @@ import wizard.common.game.Trick;
 import wizard.common.messages.CardMessage;
 import wizard.common.messages.CardsMessage;
 import wizard.common.messages.ColorMessage;
+import wizard.common.messages.EventMessage;
 import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.IntMessage;
 import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
 import wizard.common.messages.ScoresMessage;
 import wizard.common.messages.StringMessage;
 import wizard.common.messages.VoidMessage;
 
 /**
  * Class handling the game flow on the client side.
+ * The server either sends the whole changed state after every step, or,
+ * if the client asked for game events, the whole state only at the start
+ * of a round and numbered events in between. Events are applied to the
+ * state held here; if one is missing, the whole state is asked for again.
  */
 public class ClientGame implements Runnable {
 
@@ -33,6 +40,7 @@ public class ClientGame implements Runnable {
     private ScoreBoard scoreBoard;
     private GameStatus gameStatus;
     private String gameError;
+    private int lastEvent;
 
     /**
      * Create new {@code ClientGame} object with given connection to server.
@@ -40,7 +48,18 @@ public class ClientGame implements Runnable {
      * @param connection The connection to server
      */
     public ClientGame(final ServerConnectionHandler connection) {
-        this.view = new CommandlineView();
+        this(connection, new CommandlineView());
+    }
+
+    /**
+     * Create new {@code ClientGame} object with given connection to server
+     * showing the game in the given view.
+     *
+     * @param connection The connection to server
+     * @param view The view showing the game to the user
+     */
+    public ClientGame(final ServerConnectionHandler connection, final UserView view) {
+        this.view = view;
         this.connection = connection;
 
         hand = new Hand();
@@ -50,29 +69,28 @@ public class ClientGame implements Runnable {
         scoreBoard = null;
         gameStatus = GameStatus.UNKNOWN;
         gameError = null;
+        lastEvent = -1;
     }
 
     public void run() {
         Thread.currentThread().setName("Game logic thread");
 
-        while (true) {
+        while (gameStatus != GameStatus.GAME_OVER) {
             // Wait for message from server
-            synchronized(connection) {
-                while (connection.bufferIsEmpty()) {
-                    try {
-                        connection.wait();
-                    } catch (InterruptedException e) {
-                        System.err.println("Thread interrupted!");
-                        e.printStackTrace();
-                        Thread.currentThread().interrupt();
-                    }
-                }
+            Message message;
+            try {
+                message = connection.getMailbox().receive();
+            } catch (InterruptedException e) {
+                System.err.println("Thread interrupted!");
+                e.printStackTrace();
+                Thread.currentThread().interrupt();
+                return;
             }
 
-            // Receive message
-            Message message = connection.bufferPop();
             handleMessage(message);
         }
+
+        connection.close();
     }
 
     /**
@@ -146,6 +164,31 @@ public class ClientGame implements Runnable {
                 }
                 handleAskTrickCardMessage();
                 break;
+            case STATE_SYNCED:
+            case PLAYER_PREDICTED:
+            case CARD_PLAYED:
+            case TRICK_TAKEN:
+            case ROUND_SCORED:
+                if (!(message instanceof EventMessage)) {
+                    System.err.println("Received message object from client is instance of unexpected class");
+                    break;
+                }
+                handleEventMessage((EventMessage)message);
+                break;
+            case TABLE_JOINED:
+                if (!(message instanceof IntMessage)) {
+                    System.err.println("Received message object from client is instance of unexpected class");
+                    break;
+                }
+                handleTableJoinedMessage((IntMessage)message);
+                break;
+            case TABLES:
+                if (!(message instanceof StringMessage)) {
+                    System.err.println("Received message object from client is instance of unexpected class");
+                    break;
+                }
+                handleTablesMessage((StringMessage)message);
+                break;
             default:
                 System.err.println("Received message from server has unknown type");
                 break;
@@ -215,6 +258,85 @@ public class ClientGame implements Runnable {
         updateScores(message.getContent());
     }
 
+    /**
+     * Handle received game event or state-synced message.
+     *
+     * @param message The message which was received
+     */
+    private void handleEventMessage(final EventMessage message) {
+        int sequence = message.getContent();
+        if (message.getType() == MessageType.STATE_SYNCED) {
+            // The state received so far contains all events up to here
+            lastEvent = sequence;
+            waitForOthers();
+            return;
+        }
+        if (lastEvent < 0) {
+            // Waiting for the whole state
+            return;
+        }
+        if (sequence != lastEvent + 1 || scoreBoard == null) {
+            System.err.printf("Missed game events after %d, asking for the whole state\n", lastEvent);
+            lastEvent = -1;
+            connection.resync();
+            return;
+        }
+        lastEvent = sequence;
+
+        switch (message.getType()) {
+            case PLAYER_PREDICTED:
+                scoreBoard.setPredictions(message.getSeat(), message.getValue());
+                break;
+            case CARD_PLAYED:
+                Card card = Card.of(message.getValue());
+                trick.add(card);
+                if (hand.contains(card)) {
+                    hand.remove(card);
+                }
+                break;
+            case TRICK_TAKEN:
+                scoreBoard.addTrick(message.getSeat());
+                trick = new Trick(trumpColor == null ? Color.CLEAR : trumpColor);
+                break;
+            case ROUND_SCORED:
+                scoreBoard.predictionsToScore();
+                break;
+            default:
+                break;
+        }
+        waitForOthers();
+    }
+
+    /**
+     * Assumes somebody else is on turn after a game event. The server
+     * tells this player when it is his turn instead.
+     */
+    private void waitForOthers() {
+        boolean predicting = false;
+        for (int seat = 0; scoreBoard != null && seat < scoreBoard.size(); seat++) {
+            predicting |= scoreBoard.getPrediction(seat) < 0;
+        }
+        updateGameStatus(predicting ? GameStatus.WAITING_PREDICTION_OTHER : GameStatus.WAITING_CARD_OTHER);
+    }
+
+    /**
+     * Handle received table-joined message.
+     *
+     * @param message The message which was received
+     */
+    private void handleTableJoinedMessage(final IntMessage message) {
+        System.out.printf("Joined table %d\n", message.getContent());
+    }
+
+    /**
+     * Handle received tables message.
+     *
+     * @param message The message which was received
+     */
+    private void handleTablesMessage(final StringMessage message) {
+        System.out.print(message.getContent().isEmpty() ? "No tables\n" : message.getContent());
+    }
+
     /**
      * Handle received ask-prediction message.
      */
@@ -296,7 +418,9 @@ public class ClientGame implements Runnable {
      * @param scoreBoard The new scores.
      */
     private void updateScores(final ScoreBoard scoreBoard) {
-        this.scoreBoard = scoreBoard;
+        // Updates only carry the newest round, keep the older ones. Events
+        // change the scores held here, so never keep the received ones.
+        this.scoreBoard = (this.scoreBoard == null) ? new ScoreBoard(scoreBoard) : this.scoreBoard.merge(scoreBoard);
         refreshView();
     }
 
@@ -6,6 +6,7 @@ import wizard.common.GameStatus;
 import wizard.common.cards.Card;
 import wizard.common.game.Color;
 import wizard.common.game.Hand;
+import wizard.common.game.Rules;
 import wizard.common.game.ScoreBoard;
 import wizard.common.game.Trick;
 
@@ -158,7 +159,10 @@ public class CommandlineView implements UserView {
                 continue;
             }
 
-            // TODO: 'Farbe zugeben' enforcen!
+            if (trick != null && !Rules.isLegal(hand, trick, hand.get(input))) {
+                System.out.printf("You have to follow %s\n", trick.firstColor());
+                continue;
+            }
 
             done = true;
         }
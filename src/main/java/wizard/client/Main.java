@@ -2,6 +2,10 @@ package wizard.client;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.EnumSet;
+import java.util.Set;
+
+import wizard.common.network.WireFormat;
 
 public class Main {
 
@@ -15,15 +19,66 @@ public class Main {
     public static void main(String[] args) {
         Thread.currentThread().setName("Main Thread");
 
+        Set<WireFormat> formats = EnumSet.allOf(WireFormat.class);
+        String name = null;
+        int table = 0;
+        int seats = 0;
+        int watch = 0;
+        boolean list = false;
+        boolean fullState = false;
+        try {
+            for (String arg : args) {
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.equals("--compat")) {
+                    // Only offer java serialization in compatibility mode
+                    formats = EnumSet.of(WireFormat.SERIALIZATION);
+                } else if (arg.startsWith("--name=")) {
+                    name = value;
+                } else if (arg.startsWith("--table=")) {
+                    table = Integer.parseInt(value);
+                } else if (arg.startsWith("--create=")) {
+                    seats = Integer.parseInt(value);
+                } else if (arg.startsWith("--watch=")) {
+                    watch = Integer.parseInt(value);
+                } else if (arg.equals("--list")) {
+                    list = true;
+                } else if (arg.equals("--full-state")) {
+                    // Be sent the whole state after every change, no events
+                    fullState = true;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid table or number of seats");
+            return;
+        }
+
         // Connect to server
         try {
             Socket socket = new Socket("localhost", PORT);
-            ServerConnectionHandler con = new ServerConnectionHandler(socket);
+            ServerConnectionHandler con = new ServerConnectionHandler(socket, formats);
             new Thread(con).start();
 
             ClientGame game = new ClientGame(con);
             new Thread(game).start();
 
+            // Sit down at a table, any table unless told otherwise or watching
+            if (name != null) {
+                con.setName(name);
+            }
+            if (!fullState) {
+                con.syncEvents();
+            }
+            if (list) {
+                con.listTables();
+            }
+            if (watch > 0) {
+                con.watchTable(watch);
+            } else if (seats > 0) {
+                con.createTable(seats);
+            } else {
+                con.joinTable(table);
+            }
+
         } catch (IOException e) {
             System.err.println("IOException - Error when opening socket!");
             e.printStackTrace();
@@ -1,73 +1,231 @@
 package wizard.client;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
 
 import wizard.common.ConnectionHandler;
+import wizard.common.GameStatus;
+import wizard.common.Settings;
 import wizard.common.cards.Card;
+import wizard.common.messages.GameStatusMessage;
 import wizard.common.messages.Message;
 import wizard.common.messages.MessageType;
+import wizard.common.messages.SessionMessage;
+import wizard.common.network.Frames;
+import wizard.common.network.Handshake;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.WireFormat;
 
 /**
  * Class handling receiving of message from server on client side and putting
  * them into a buffer for consumption.
  * Also provides methods for sending messages to server.
+ * Once the server started a session, a dropped connection is opened again
+ * and the session resumed, so the server only sends the missed messages.
  */
-public class ServerConnectionHandler extends ConnectionHandler {
+public class ServerConnectionHandler extends ConnectionHandler implements Runnable {
+
+    /** Number of times to try reconnecting after the connection dropped. */
+    public static final int RECONNECT_ATTEMPTS = 10;
+
+    /** Time in milliseconds between tries to reconnect. */
+    public static final long RECONNECT_DELAY = 1000;
+
+    private final InetAddress address;
+    private final int port;
+    private final Set<WireFormat> formats;
+
+    private volatile Socket socket;
+    private volatile OutputStream out;
+    private volatile boolean connected;
+    private volatile boolean closing;
+
+    private volatile long sessionToken;
+    private volatile boolean inSession;
+    private long received;
+
+    /**
+     * Create new {@code ServerConnectionHandler} object with given connection
+     * and offer the given wire formats to the server.
+     *
+     * @param socket Socket handling the connection to the server
+     * @param formats The wire formats this client accepts
+     * @throws IOException If the handshake cannot be sent
+     */
+    public ServerConnectionHandler(final Socket socket, final Set<WireFormat> formats) throws IOException {
+        super();
+        this.address = socket.getInetAddress();
+        this.port = socket.getPort();
+        this.formats = formats;
+        this.closing = false;
+        this.inSession = false;
+        this.received = 0;
+
+        open(socket);
+    }
 
     /**
-     * Create new {@code ServerConnectionHandler} object with given connection.
+     * Starts using a new socket and offers the wire formats to the server.
+     * Messages cannot be sent until the server answered.
      *
      * @param socket Socket handling the connection to the server
+     * @throws IOException If the handshake cannot be sent
+     */
+    private void open(final Socket socket) throws IOException {
+        this.connected = false;
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+
+        ByteBuffer offer = Handshake.offer(formats);
+        out.write(offer.array(), offer.arrayOffset() + offer.position(), offer.remaining());
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
      */
-    public ServerConnectionHandler(final Socket socket) {
-        super(socket);
+    @Override
+    public String toString() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
     }
 
     /**
      * Listen for messages from server. Messages will be added to buffer.
      * Will block indefinitely. Meant to be run in its own thread.
+     * Reconnects and resumes the session if the connection drops.
      */
     @Override
     public void run() {
         Thread.currentThread().setName("Server connection thread");
 
-        try (ObjectInputStream in = new ObjectInputStream(
+        do {
+            receiveAll();
+        } while (!closing && inSession && reconnect());
+    }
+
+    /**
+     * Receives messages until the connection is closed.
+     */
+    private void receiveAll() {
+        try (DataInputStream in = new DataInputStream(
                 new BufferedInputStream(socket.getInputStream()))) {
+            // First frame is the answer to the handshake
+            WireFormat format = Handshake.readAnswer(Frames.read(in));
+            useFormat(format);
+            connected = true;
+
+            if (Settings.DEBUG_NETWORK_COMMUNICATION) {
+                System.out.printf("Using wire format %s\n", format);
+            }
+
+            if (inSession) {
+                send(new SessionMessage(MessageType.RESUME_SESSION, sessionToken, received));
+            }
+
             while (true) {
-                // Receive object
-                Object object = in.readObject();
-
-                // Check if received object is of type message,
-                // add object to buffer and notify waiting threads
-                if (object instanceof Message) {
-                    bufferPut((Message)object);
-                    synchronized(this) {
-                        notify();
-                    }
-                } else {
-                    System.err.println("Received malformed message (wrong object type)");
-                }
+                receive(Frames.read(in));
+            }
+        } catch (EOFException e) {
+            if (!closing) {
+                System.err.println("Connection to server has been closed");
             }
         } catch (IOException e) {
-            System.err.println("IOException - Error when receiving message with readObject()!");
+            if (closing) {
+                return;
+            }
+            System.err.println("IOException - Error when receiving message from server!");
             e.printStackTrace();
+        } finally {
+            connected = false;
             try {
-                out.close();
-            } catch (IOException e1) {
-                e1.printStackTrace();
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-        } catch (ClassNotFoundException e) {
-            System.err.println("ClassNotFoundException - Error when receiving message with readObject()!");
-            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens a new connection to the server after the connection dropped.
+     *
+     * @return True if connected again, false if all tries failed
+     */
+    private boolean reconnect() {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS && !closing; attempt++) {
             try {
-                out.close();
-            } catch (IOException e1) {
-                e1.printStackTrace();
+                Thread.sleep(RECONNECT_DELAY);
+                open(new Socket(address, port));
+                System.err.printf("Reconnected to server, resuming session after message %d\n", received);
+                return true;
+            } catch (IOException e) {
+                System.err.printf("Could not reconnect to server (try %d of %d)\n", attempt, RECONNECT_ATTEMPTS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts messages of the current session, so only the missed ones are
+     * sent again after reconnecting. Session messages are not passed on.
+     *
+     * @param message The received message
+     */
+    @Override
+    protected void received(final Message message) {
+        if (message.getType() == MessageType.SESSION && message instanceof SessionMessage) {
+            // Messages after this one are numbered from its sequence number
+            sessionToken = ((SessionMessage)message).getContent();
+            received = ((SessionMessage)message).getSequence();
+            inSession = true;
+            return;
+        }
+
+        if (inSession) {
+            received++;
+            if (message instanceof GameStatusMessage
+                    && ((GameStatusMessage)message).getContent() == GameStatus.GAME_OVER) {
+                // The server ends the session with the game
+                inSession = false;
             }
         }
+        mailbox.put(message);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void write(final List<PooledBuffer> frames) throws IOException {
+        try {
+            if (!connected) {
+                throw new IOException("Not connected to server");
+            }
+            for (PooledBuffer pooled : frames) {
+                ByteBuffer frame = pooled.buffer();
+                if (frame.hasArray()) {
+                    out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+                } else {
+                    byte[] bytes = new byte[frame.remaining()];
+                    frame.duplicate().get(bytes);
+                    out.write(bytes);
+                }
+            }
+            out.flush();
+        } finally {
+            frames.forEach(PooledBuffer::release);
+        }
     }
 
     /**
@@ -97,5 +255,111 @@ public class ServerConnectionHandler extends ConnectionHandler {
             e.printStackTrace();
         }
     }
-}
 
+    /**
+     * Sets the name to play with at the next table joined.
+     *
+     * @param name The name of the player
+     */
+    public void setName(final String name) {
+        try {
+            send(MessageType.SET_NAME, name);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not send name '%s' to server!\n", name);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Asks the server for the list of tables.
+     */
+    public void listTables() {
+        try {
+            send(MessageType.LIST_TABLES);
+        } catch (IOException e) {
+            System.err.println("IOException - Could not ask server for tables!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates a new table and sits down at it.
+     *
+     * @param seats The number of players needed to start the game
+     */
+    public void createTable(int seats) {
+        try {
+            send(MessageType.CREATE_TABLE, seats);
+        } catch (IOException e) {
+            System.err.println("IOException - Could not create table!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sits down at a table.
+     *
+     * @param table The id of the table to join or 0 for any table
+     */
+    public void joinTable(int table) {
+        try {
+            send(MessageType.JOIN_TABLE, table);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not join table %d!\n", table);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Watches the game at a table without playing.
+     *
+     * @param table The id of the table to watch
+     */
+    public void watchTable(int table) {
+        try {
+            send(MessageType.WATCH_TABLE, table);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not watch table %d!\n", table);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Asks the server to send game events instead of the whole state after
+     * every change, at the next table joined.
+     */
+    public void syncEvents() {
+        try {
+            send(MessageType.SYNC_EVENTS);
+        } catch (IOException e) {
+            System.err.println("IOException - Could not ask server for game events!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Asks the server to send the whole state of the game again because
+     * game events have been missed.
+     */
+    public void resync() {
+        try {
+            send(MessageType.RESYNC);
+        } catch (IOException e) {
+            System.err.println("IOException - Could not ask server for the game state!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the connection to the server.
+     */
+    public void close() {
+        closing = true;
+        inSession = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package wizard.common;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
-import java.util.ArrayDeque;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
 
 import wizard.common.cards.Card;
 import wizard.common.game.Color;
@@ -20,99 +22,243 @@ import wizard.common.messages.MessageType;
 import wizard.common.messages.ScoresMessage;
 import wizard.common.messages.StringMessage;
 import wizard.common.messages.VoidMessage;
+import wizard.common.network.BufferPool;
+import wizard.common.network.Frames;
+import wizard.common.network.MessageCodec;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.SerializationCodec;
+import wizard.common.network.SharedMessage;
+import wizard.common.network.WireFormat;
 
 /**
  * Abstracting class handling receiving of message and putting them into
- * a buffer for consumption.
+ * a mailbox for consumption.
  * Also provides methods for sending messages to other side of network
- * connection.
+ * connection. How encoded frames reach the network is up to the subclass.
+ * Messages can only be sent and received once both sides agreed on a
+ * {@link WireFormat} in the handshake.
+ * Messages sent between {@link #beginBatch()} and {@link #endBatch()} are
+ * collected and written to the network together.
+ * If a {@link BufferPool} is given, frames are encoded into pooled buffers
+ * which the subclass releases once they have been written.
  */
-public abstract class ConnectionHandler implements Runnable {
+public abstract class ConnectionHandler {
 
-    protected final ArrayDeque<Message> buffer;
+    protected final Mailbox mailbox;
+    protected final BufferPool pool;
 
-    protected final Socket socket;
-    protected ObjectOutputStream out;
+    protected volatile MessageCodec codec;
+    private final CountDownLatch negotiated;
+    private final ReentrantLock sendLock;
+    private final List<PooledBuffer> pending;
+    private int batchDepth;
+    private volatile long bytesSent;
 
     /**
-     * Create new {@code ConnectionHandler} object with given connection.
+     * Create new {@code ConnectionHandler} object encoding every frame into
+     * a newly allocated buffer.
+     */
+    public ConnectionHandler() {
+        this(null);
+    }
+
+    /**
+     * Create new {@code ConnectionHandler} object encoding frames into
+     * buffers of given pool.
      *
-     * @param socket Socket handling the connection
+     * @param pool The pool to take buffers from or {@code null}
+     */
+    public ConnectionHandler(final BufferPool pool) {
+        this.mailbox = new Mailbox(this);
+        this.pool = pool;
+        this.codec = null;
+        this.negotiated = new CountDownLatch(1);
+        this.sendLock = new ReentrantLock();
+        this.pending = new ArrayList<PooledBuffer>();
+        this.batchDepth = 0;
+        this.bytesSent = 0;
+    }
+
+    /**
+     * Returns the address of the other side of this connection.
+     *
+     * @return String representation of this connection
+     */
+    @Override
+    public abstract String toString();
+
+    /**
+     * Writes encoded frames to the connection, as few write calls as
+     * possible. Takes over the reference to every frame and releases it
+     * once written, even if writing fails.
+     *
+     * @param frames Buffers each holding one complete frame
+     * @throws IOException If writing to the connection fails
+     */
+    protected abstract void write(final List<PooledBuffer> frames) throws IOException;
+
+    /**
+     * Writes an encoded frame to the connection.
+     *
+     * @param frame Buffer holding one complete frame
+     * @throws IOException If writing to the connection fails
+     */
+    protected void write(final PooledBuffer frame) throws IOException {
+        write(Collections.singletonList(frame));
+    }
+
+    /**
+     * Writes an encoded frame not belonging to any pool to the connection.
+     *
+     * @param frame Buffer holding one complete frame
+     * @throws IOException If writing to the connection fails
+     */
+    protected void write(final ByteBuffer frame) throws IOException {
+        write(PooledBuffer.wrap(frame));
+    }
+
+    /**
+     * Starts collecting sent messages instead of writing them one by one.
+     * Batches may be nested, messages get written when the outermost batch
+     * ends or {@link #flush()} is called.
      */
-    public ConnectionHandler(final Socket socket) {
-        this.buffer = new ArrayDeque<Message>(10);
-        this.socket = socket;
+    public void beginBatch() {
+        sendLock.lock();
+        try {
+            batchDepth++;
+        } finally {
+            sendLock.unlock();
+        }
+    }
 
+    /**
+     * Ends a batch started with {@link #beginBatch()}.
+     * Writes all collected messages if this was the outermost batch.
+     *
+     * @throws IOException If writing to the connection fails
+     */
+    public void endBatch() throws IOException {
+        sendLock.lock();
         try {
-            out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-        } catch (IOException e) {
-            System.err.printf("IOException - Error when opening output stream to client '%s'!\n", this);
-            e.printStackTrace();
-            try {
-                out.close();
-            } catch (IOException e1) {
-                System.err.printf("IOException - Error when trying to close output stream to client '%s'!\n", this);
-                e1.printStackTrace();
+            if (batchDepth > 0) {
+                batchDepth--;
             }
+            if (batchDepth == 0) {
+                flushPending();
+            }
+        } finally {
+            sendLock.unlock();
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Writes all messages collected in the current batch.
+     * The batch stays open.
+     *
+     * @throws IOException If writing to the connection fails
      */
-    @Override
-    public String toString() {
-        String str = socket.getInetAddress().getHostAddress();
-        str += ":";
-        str += socket.getPort();
-
-        return str;
+    public void flush() throws IOException {
+        sendLock.lock();
+        try {
+            flushPending();
+        } finally {
+            sendLock.unlock();
+        }
     }
 
     /**
-     * Returns whether the receiving buffer is empty.
+     * Writes all collected frames. Must hold the send lock.
      *
-     * @return True if buffer is empty, false otherwise
+     * @throws IOException If writing to the connection fails
      */
-    public boolean bufferIsEmpty() {
-        synchronized(buffer) {
-            return buffer.isEmpty();
+    private void flushPending() throws IOException {
+        if (pending.isEmpty()) {
+            return;
         }
+
+        List<PooledBuffer> frames = new ArrayList<PooledBuffer>(pending);
+        pending.clear();
+        write(frames);
     }
 
     /**
-     * Returns the content of the receiving buffer without removing it from
-     * the buffer.
+     * Returns whether the handshake has been completed.
      *
-     * @return The content of the buffer
+     * @return True if a wire format has been agreed on, false otherwise
      */
-    public Message bufferPeek() {
-        synchronized(buffer) {
-            return buffer.peek();
-        }
+    public boolean isNegotiated() {
+        return codec != null;
+    }
+
+    /**
+     * Returns the number of bytes sent on this connection, including frame
+     * headers.
+     *
+     * @return Number of bytes sent so far
+     */
+    public long getBytesSent() {
+        return bytesSent;
     }
 
     /**
-     * Returns the content of the receiving buffer and removes it from the
-     * buffer.
+     * Returns the number of bytes saved by not resetting the object stream
+     * before every message. Always 0 unless java serialization is used.
      *
-     * @return The content of the buffer
+     * @return Number of bytes saved so far
      */
-    public Message bufferPop() {
-        synchronized(buffer) {
-            return buffer.poll();
+    public long getBytesSaved() {
+        MessageCodec current = codec;
+        if (current instanceof SerializationCodec) {
+            return ((SerializationCodec)current).getBytesSaved();
         }
+        return 0;
+    }
+
+    /**
+     * Starts using the wire format agreed on in the handshake.
+     * Wakes up all threads waiting to send.
+     *
+     * @param format The wire format to use from now on
+     */
+    protected void useFormat(final WireFormat format) {
+        codec = format.newCodec();
+        negotiated.countDown();
     }
 
     /**
-     * Puts content into the receiving buffer.
+     * Decodes a received frame and puts the message into the mailbox.
      *
-     * @param message The content to put into the buffer
+     * @param payload The payload of the received frame
      */
-    public void bufferPut(final Message message) {
-        synchronized(buffer) {
-            buffer.offer(message);
+    protected void receive(final ByteBuffer payload) {
+        Message message;
+        try {
+            message = codec.decode(payload);
+        } catch (IOException e) {
+            System.err.printf("IOException - Received malformed message from '%s'!\n", this);
+            e.printStackTrace();
+            return;
         }
+
+        received(message);
+    }
+
+    /**
+     * Handles a decoded message. Puts it into the mailbox by default.
+     *
+     * @param message The received message
+     */
+    protected void received(final Message message) {
+        mailbox.put(message);
+    }
+
+    /**
+     * Returns the mailbox holding all received messages.
+     *
+     * @return The mailbox of this connection
+     */
+    public Mailbox getMailbox() {
+        return mailbox;
     }
 
     /**
@@ -122,9 +268,75 @@ public abstract class ConnectionHandler implements Runnable {
      * @throws IOException If sending to connection fails
      */
     protected void send(final Message message) throws IOException {
-        out.writeObject(message);
-        out.flush();
-        out.reset();
+        awaitNegotiation();
+
+        sendLock.lock();
+        try {
+            sent(message);
+            enqueue(Frames.encode(codec, message, pool));
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Send message shared with other connections to connection.
+     * The message is only encoded again if the codec of this connection
+     * cannot reuse the frame of other connections.
+     *
+     * @param message The message to send
+     * @throws IOException If sending to connection fails
+     */
+    public void send(final SharedMessage message) throws IOException {
+        awaitNegotiation();
+
+        sendLock.lock();
+        try {
+            sent(message.getMessage());
+            enqueue(message.frameFor(codec, pool));
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Called for every message sent, in the order of sending and before it
+     * is written. Holds the send lock. Does nothing by default.
+     *
+     * @param message The message being sent
+     */
+    protected void sent(final Message message) {
+    }
+
+    /**
+     * Blocks until a wire format has been agreed on.
+     *
+     * @throws InterruptedIOException If interrupted while waiting
+     */
+    private void awaitNegotiation() throws InterruptedIOException {
+        try {
+            negotiated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for handshake");
+        }
+    }
+
+    /**
+     * Writes an encoded frame or collects it if a batch is open.
+     * Must hold the send lock.
+     *
+     * @param frame Buffer holding one complete frame
+     * @throws IOException If writing to the connection fails
+     */
+    private void enqueue(final PooledBuffer frame) throws IOException {
+        bytesSent += frame.buffer().remaining();
+
+        if (batchDepth > 0) {
+            pending.add(frame);
+        } else {
+            write(frame);
+        }
     }
 
     /**
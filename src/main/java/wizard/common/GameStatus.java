@@ -7,6 +7,8 @@ public enum GameStatus {
     WAITING_PREDICTION,
     WAITING_CARD_OTHER,
     WAITING_CARD,
+    WAITING_PLAYERS,
+    GAME_OVER,
     UNKNOWN;
 
     /**
@@ -36,6 +38,10 @@ public enum GameStatus {
                 return "Waiting for other player play a card";
             case WAITING_CARD:
                 return "Waiting for you to play a card";
+            case WAITING_PLAYERS:
+                return "Waiting for other players to join the table";
+            case GAME_OVER:
+                return "Game over";
             case UNKNOWN:
             default:
                 return "Unknown";
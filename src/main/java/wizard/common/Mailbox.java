@@ -0,0 +1,244 @@
+package wizard.common;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+
+/**
+ * Receiving buffer of a connection.
+ * Any number of threads may put messages, one consumer at a time takes them
+ * by expected type. Messages at the head of the mailbox which do not match
+ * the pending receive are dropped, so stale or out-of-order messages cannot
+ * block the consumer. No locks or monitors are involved; waiting consumers
+ * are parked.
+ */
+public class Mailbox {
+
+    /**
+     * A pending receive waiting for a message of a given type.
+     *
+     * @param <T> The expected message class
+     */
+    private static final class Request<T extends Message> {
+
+        private final MessageType type;
+        private final Class<T> kind;
+        private final CompletableFuture<T> future;
+
+        /**
+         * Create new {@code Request} for given type and class.
+         *
+         * @param type The expected message type or {@code null} for any type
+         * @param kind The expected message class
+         */
+        Request(final MessageType type, final Class<T> kind) {
+            this.type = type;
+            this.kind = kind;
+            this.future = new CompletableFuture<T>();
+        }
+
+        /**
+         * Checks whether a message is the expected one.
+         *
+         * @param message The message to check
+         * @return True if the message satisfies this request
+         */
+        boolean matches(final Message message) {
+            return (type == null || message.getType() == type) && kind.isInstance(message);
+        }
+
+        /**
+         * Completes this request with given message.
+         *
+         * @param message The matching message
+         * @return True if completed, false if the request has been withdrawn
+         */
+        boolean complete(final Message message) {
+            return future.complete(kind.cast(message));
+        }
+    }
+
+    private final Object owner;
+
+    private final Queue<Message> queue;
+    private final AtomicReference<Request<?>> request;
+    private final AtomicInteger wip;
+
+    /**
+     * Create new {@code Mailbox}.
+     *
+     * @param owner Description of the connection owning this mailbox
+     */
+    public Mailbox(final Object owner) {
+        this.owner = owner;
+        this.queue = new ConcurrentLinkedQueue<Message>();
+        this.request = new AtomicReference<Request<?>>();
+        this.wip = new AtomicInteger();
+    }
+
+    /**
+     * Returns the number of messages waiting to be received.
+     *
+     * @return The number of queued messages
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Drops all messages waiting to be received, e.g. answers which arrived
+     * too late.
+     *
+     * @return The number of dropped messages
+     */
+    public int clear() {
+        int dropped = 0;
+        while (queue.poll() != null) {
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /**
+     * Puts a message into this mailbox and hands it to a pending receive.
+     *
+     * @param message The message to put
+     */
+    public void put(final Message message) {
+        queue.offer(message);
+        drain();
+    }
+
+    /**
+     * Receives the next message of any type. Blocks until there is one.
+     *
+     * @return The next message
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Message receive() throws InterruptedException {
+        return receive(null, Message.class);
+    }
+
+    /**
+     * Receives the next message of given type and class, dropping all
+     * others. Blocks until there is one.
+     *
+     * @param <T> The expected message class
+     * @param type The expected message type or {@code null} for any type
+     * @param kind The expected message class
+     * @return The received message
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public <T extends Message> T receive(final MessageType type, final Class<T> kind)
+            throws InterruptedException {
+        CompletableFuture<T> future = receiveAsync(type, kind);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            cancel(future);
+        }
+    }
+
+    /**
+     * Receives the next message of given type and class, dropping all
+     * others. Blocks until there is one or the timeout expires.
+     *
+     * @param <T> The expected message class
+     * @param type The expected message type or {@code null} for any type
+     * @param kind The expected message class
+     * @param timeout How long to wait at most
+     * @param unit The unit of the timeout
+     * @return The received message or {@code null} if the timeout expired
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public <T extends Message> T receive(final MessageType type, final Class<T> kind,
+            long timeout, final TimeUnit unit) throws InterruptedException {
+        CompletableFuture<T> future = receiveAsync(type, kind);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            return cancel(future) ? null : future.join();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            cancel(future);
+        }
+    }
+
+    /**
+     * Returns a future completed with the next message of given type and
+     * class, dropping all others. Only one receive may be pending at a time.
+     * Cancelling the returned future withdraws the receive.
+     *
+     * @param <T> The expected message class
+     * @param type The expected message type or {@code null} for any type
+     * @param kind The expected message class
+     * @return Future completed with the received message
+     */
+    public <T extends Message> CompletableFuture<T> receiveAsync(final MessageType type, final Class<T> kind) {
+        Request<T> r = new Request<T>(type, kind);
+        if (!request.compareAndSet(null, r)) {
+            throw new IllegalStateException("Mailbox already has a pending receive");
+        }
+
+        r.future.whenComplete((m, e) -> request.compareAndSet(r, null));
+
+        drain();
+        return r.future;
+    }
+
+    /**
+     * Withdraws the pending receive belonging to a future.
+     *
+     * @param future The future returned by {@link #receiveAsync(MessageType, Class)}
+     * @return True if the receive was withdrawn, false if it already got a message
+     */
+    private boolean cancel(final CompletableFuture<?> future) {
+        Request<?> r = request.get();
+        if (r != null && r.future == future && request.compareAndSet(r, null)) {
+            future.cancel(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Hands queued messages to the pending receive.
+     * Only one thread drains at a time; calls made meanwhile make it loop
+     * again.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            Request<?> r;
+            Message message;
+            while ((r = request.get()) != null && (message = queue.peek()) != null) {
+                if (r.future.isDone()) {
+                    // Receive has been withdrawn, e.g. by a deadline
+                    request.compareAndSet(r, null);
+                } else if (!r.matches(message)) {
+                    queue.poll();
+                    System.err.printf("Dropping unexpected message %s from '%s'\n", message.getType(), owner);
+                } else if (request.compareAndSet(r, null) && r.complete(message)) {
+                    // Message is only taken if the receive was still pending
+                    queue.poll();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -5,4 +5,6 @@ public class Settings {
     public static final boolean COLORED_TEXT = true;
 
     public static final boolean DEBUG_NETWORK_COMMUNICATION = false;
+
+    public static final boolean MEASURE_SERIALIZATION_SAVINGS = false;
 }
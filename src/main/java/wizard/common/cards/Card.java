@@ -1,52 +1,82 @@
 package wizard.common.cards;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.List;
 
 import wizard.common.game.Color;
 
+/**
+ * A card of the one deck of the game.
+ * All 60 cards exist exactly once and are identified by their ordinal:
+ * the number cards of each color ordered by value take 0 to 51, followed
+ * by the four jesters and the four wizards. Cards are therefore equal only
+ * to themselves, and the two wizards played in a trick stay different.
+ */
 public abstract class Card implements Serializable, Comparable<Card> {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    protected int value;
-    protected Color color;
+    /** Number of cards in the deck. */
+    public static final int COUNT = 60;
+
+    /** Number of cards of each color. */
+    public static final int VALUES = 13;
+
+    /** Ordinal of the first jester. */
+    public static final int FIRST_JESTER = 52;
+
+    /** Ordinal of the first wizard. */
+    public static final int FIRST_WIZARD = 56;
+
+    protected final int value;
+    protected final Color color;
+    private final int ordinal;
 
     /**
      * Create new card of given value and color.
      *
+     * @param ordinal The ordinal of the created card
      * @param value The value of the created card
      * @param color The color of the created card
      */
-    public Card(int value, Color color) {
+    Card(int ordinal, int value, Color color) {
+        this.ordinal = ordinal;
         this.value = value;
         this.color = color;
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the card with an ordinal.
+     *
+     * @param ordinal The ordinal of the card
+     * @return The card
+     * @throws IllegalArgumentException If there is no card with the ordinal
      */
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
+    public static Card of(int ordinal) {
+        if (ordinal < 0 || ordinal >= COUNT) {
+            throw new IllegalArgumentException(String.format("No card with ordinal %d", ordinal));
         }
-        if (object == null) {
-            return false;
-        }
-        if (getClass() != object.getClass()) {
-            return false;
-        }
-
-        Card other = (Card)object;
+        return CardTable.ALL[ordinal];
+    }
 
-        if (getColor() != other.getColor()) {
-            return false;
-        }
-        if (getValue() != other.getValue()) {
-            return false;
-        }
+    /**
+     * Returns all cards of the deck in order of their ordinals.
+     *
+     * @return Unmodifiable list of all cards
+     */
+    public static List<Card> values() {
+        return CardTable.LIST;
+    }
 
-        return true;
+    /**
+     * Keeps deserialized cards canonical.
+     *
+     * @return The card with the ordinal of the deserialized one
+     * @throws ObjectStreamException Never
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        return CardTable.ALL[ordinal];
     }
 
     /**
@@ -96,6 +126,15 @@ public abstract class Card implements Serializable, Comparable<Card> {
         return color;
     }
 
+    /**
+     * Returns the ordinal identifying this card.
+     *
+     * @return The ordinal, from 0 to {@value #COUNT} - 1
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     /**
      * Returns the value of the card.
      *
@@ -0,0 +1,222 @@
+package wizard.common.cards;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import wizard.common.game.Color;
+
+/**
+ * {@code CardSet} is a set of cards packed into a single {@code long}.
+ * Every card owns the bit of its ordinal, see {@link Card}, so iterating the
+ * bits from lowest to highest yields the cards sorted by color and then by
+ * value, with the jesters and wizards last.
+ */
+public class CardSet extends Cards {
+
+    /** Mask of all cards of the deck. */
+    public static final long ALL = (1L << Card.COUNT) - 1;
+
+    /** Mask of the four jesters. */
+    public static final long JESTERS = 0xFL << Card.FIRST_JESTER;
+
+    /** Mask of the four wizards. */
+    public static final long WIZARDS = 0xFL << Card.FIRST_WIZARD;
+
+    private static final long VALUE_MASK = (1L << Card.VALUES) - 1;
+
+    private long bits;
+
+    /**
+     * Creates new empty {@code CardSet}.
+     */
+    public CardSet() {
+        this.bits = 0;
+    }
+
+    /**
+     * Creates new {@code CardSet} of the cards of a mask.
+     *
+     * @param bits The mask of the cards, see {@link #bits()}
+     */
+    public CardSet(long bits) {
+        this.bits = bits & ALL;
+    }
+
+    /**
+     * Creates new {@code CardSet} containing the given cards.
+     *
+     * @param cards The cards to add
+     */
+    public CardSet(final Collection<Card> cards) {
+        this.bits = 0;
+        for (Card card : cards) {
+            add(card);
+        }
+    }
+
+    /**
+     * Returns the mask of all cards of a color. The mask of
+     * {@link Color#CLEAR} covers the jesters and wizards.
+     *
+     * @param color The color of the cards
+     * @return The mask of all cards of the given color
+     */
+    public static long colorMask(final Color color) {
+        if (color == Color.CLEAR) {
+            return JESTERS | WIZARDS;
+        }
+        return VALUE_MASK << (color.ordinal() * Card.VALUES);
+    }
+
+    /**
+     * Returns the mask of a single card.
+     *
+     * @param card The card
+     * @return The mask with only the bit of the given card set, no bits
+     *         if the card is {@code null}
+     */
+    public static long mask(final Card card) {
+        return (card == null) ? 0 : 1L << card.getOrdinal();
+    }
+
+    /**
+     * Returns the cards of a mask sorted by color and then by value.
+     *
+     * @param bits The mask of the cards
+     * @return The cards of the given mask
+     */
+    public static List<Card> toList(long bits) {
+        List<Card> cards = new ArrayList<Card>(Long.bitCount(bits));
+        for (long b = bits; b != 0; b &= b - 1) {
+            cards.add(Card.of(Long.numberOfTrailingZeros(b)));
+        }
+        return cards;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Card> asList() {
+        return toList(bits);
+    }
+
+    /**
+     * Returns the mask of the cards in this set.
+     *
+     * @return The mask of the cards
+     */
+    public long bits() {
+        return bits;
+    }
+
+    /**
+     * Returns the number of cards in this set.
+     *
+     * @return The number of cards
+     */
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    /**
+     * Checks whether this set contains no cards.
+     *
+     * @return True if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return bits == 0;
+    }
+
+    /**
+     * Adds a card to this set.
+     *
+     * @param card The card to add
+     * @return True if added, false if the card is in this set already or
+     *         {@code null}
+     */
+    public boolean add(final Card card) {
+        long bit = mask(card);
+        if (bit == 0 || (bits & bit) != 0) {
+            return false;
+        }
+        bits |= bit;
+        return true;
+    }
+
+    /**
+     * Removes a card from this set.
+     *
+     * @param card The card to remove
+     * @return True if removed, false if the card is not in this set
+     */
+    public boolean remove(final Card card) {
+        long bit = mask(card);
+        if ((bits & bit) == 0) {
+            return false;
+        }
+        bits &= ~bit;
+        return true;
+    }
+
+    /**
+     * Checks whether a card is in this set.
+     *
+     * @param card The card to check for
+     * @return True if the card is in this set, false otherwise
+     */
+    public boolean contains(final Card card) {
+        return (bits & mask(card)) != 0;
+    }
+
+    /**
+     * Checks whether any card of a color is in this set.
+     *
+     * @param color The color to check for
+     * @return True if at least one card of the given color is in this set
+     */
+    public boolean containsColor(final Color color) {
+        return (bits & colorMask(color)) != 0;
+    }
+
+    /**
+     * Returns the card at an index of this set in sorted order.
+     *
+     * @param index The index of the card
+     * @return The card at the given index or {@code null} if it does not exist
+     */
+    public Card get(int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+
+        long b = bits;
+        for (int i = 0; i < index; i++) {
+            b &= b - 1;
+        }
+        return Card.of(Long.numberOfTrailingZeros(b));
+    }
+
+    /**
+     * Removes the card at an index of this set in sorted order.
+     *
+     * @param index The index of the card
+     * @return The removed card or {@code null} if it does not exist
+     */
+    public Card take(int index) {
+        Card card = get(index);
+        if (card != null) {
+            remove(card);
+        }
+        return card;
+    }
+}
@@ -0,0 +1,51 @@
+package wizard.common.cards;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import wizard.common.game.Color;
+
+/**
+ * Holder of the one instance of every card, indexed by ordinal.
+ * The table is created when it is first used, not while {@link Card} or
+ * one of its subclasses is initialized. Initializing a subclass first
+ * initializes {@code Card}, so creating the subclass instances from the
+ * initializer of {@code Card} could deadlock two threads initializing
+ * {@code Card} and a subclass at the same time.
+ */
+final class CardTable {
+
+    /** All cards in order of their ordinals. */
+    static final Card[] ALL = createCards();
+
+    /** Unmodifiable view of all cards. */
+    static final List<Card> LIST = Collections.unmodifiableList(Arrays.asList(ALL));
+
+    private CardTable() {
+        //
+    }
+
+    /**
+     * Creates the cards of the deck in order of their ordinals.
+     *
+     * @return All cards
+     */
+    private static Card[] createCards() {
+        Card[] cards = new Card[Card.COUNT];
+        for (Color color : Color.values()) {
+            if (color == Color.CLEAR) {
+                continue;
+            }
+            for (int value = 1; value <= Card.VALUES; value++) {
+                int ordinal = color.ordinal() * Card.VALUES + value - 1;
+                cards[ordinal] = new NumberCard(ordinal, value, color);
+            }
+        }
+        for (int i = 0; i < Card.FIRST_WIZARD - Card.FIRST_JESTER; i++) {
+            cards[Card.FIRST_JESTER + i] = new JesterCard(Card.FIRST_JESTER + i);
+            cards[Card.FIRST_WIZARD + i] = new WizardCard(Card.FIRST_WIZARD + i);
+        }
+        return cards;
+    }
+}
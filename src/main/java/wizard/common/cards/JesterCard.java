@@ -8,9 +8,25 @@ public class JesterCard extends Card {
 
     /**
      * Create new jester card.
+     *
+     * @param ordinal The ordinal of the created card
      */
-    public JesterCard() {
-        super(0, Color.CLEAR);
+    JesterCard(int ordinal) {
+        super(ordinal, 0, Color.CLEAR);
+    }
+
+    /**
+     * Returns one of the four jesters.
+     *
+     * @param copy Which jester, from 0 to 3
+     * @return The card
+     * @throws IllegalArgumentException If there is no such card
+     */
+    public static Card of(int copy) {
+        if (copy < 0 || copy > 3) {
+            throw new IllegalArgumentException(String.format("No jester %d", copy));
+        }
+        return Card.of(FIRST_JESTER + copy);
     }
 
     /**
@@ -9,11 +9,27 @@ public class NumberCard extends Card {
     /**
      * Create new number card of given value and color.
      *
+     * @param ordinal The ordinal of the created card
      * @param value The value of the created card
      * @param color The color of the created card
      */
-    public NumberCard(int value, final Color color) {
-        super(value, color);
+    NumberCard(int ordinal, int value, final Color color) {
+        super(ordinal, value, color);
+    }
+
+    /**
+     * Returns the number card of given value and color.
+     *
+     * @param value The value of the card, from 1 to 13
+     * @param color The color of the card, not {@link Color#CLEAR}
+     * @return The card
+     * @throws IllegalArgumentException If there is no such card
+     */
+    public static Card of(int value, final Color color) {
+        if (value < 1 || value > VALUES || color == Color.CLEAR) {
+            throw new IllegalArgumentException(String.format("No number card %s %d", color, value));
+        }
+        return of(color.ordinal() * VALUES + value - 1);
     }
 
     /**
@@ -8,9 +8,25 @@ public class WizardCard extends Card {
 
     /**
      * Create new wizard card.
+     *
+     * @param ordinal The ordinal of the created card
+     */
+    WizardCard(int ordinal) {
+        super(ordinal, 14, Color.CLEAR);
+    }
+
+    /**
+     * Returns one of the four wizards.
+     *
+     * @param copy Which wizard, from 0 to 3
+     * @return The card
+     * @throws IllegalArgumentException If there is no such card
      */
-    public WizardCard() {
-        super(14, Color.CLEAR);
+    public static Card of(int copy) {
+        if (copy < 0 || copy > 3) {
+            throw new IllegalArgumentException(String.format("No wizard %d", copy));
+        }
+        return Card.of(FIRST_WIZARD + copy);
     }
 
     /**
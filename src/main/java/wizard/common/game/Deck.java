@@ -2,68 +2,122 @@ package wizard.common.game;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import wizard.common.cards.Card;
 import wizard.common.cards.Cards;
-import wizard.common.cards.JesterCard;
-import wizard.common.cards.NumberCard;
-import wizard.common.cards.WizardCard;
 
 /**
- * {@code Deck} object representing a deck of cards.
+ * {@code Deck} object representing a shuffled deck of cards.
+ * The ordinals of all cards are shuffled once when the deck is created and
+ * cards are dealt from the top, so every draw takes constant time. Decks
+ * shuffled by generators with the same seed deal the same cards in the same
+ * order.
  */
 public class Deck extends Cards {
 
-    private final List<Card> cards;
+    private final byte[] order;
+    private int top;
 
     /**
-     * Create a new {@code Deck} with all cards.
+     * Create a new randomly shuffled {@code Deck} with all cards.
      */
     public Deck() {
-        cards = new ArrayList<Card>();
-
-        // Add normal cards
-        for (int i = 1; i < 14; i++) {
-            cards.add(new NumberCard(i,  Color.BLUE));
-            cards.add(new NumberCard(i,  Color.GREEN));
-            cards.add(new NumberCard(i,  Color.RED));
-            cards.add(new NumberCard(i,  Color.YELLOW));
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new {@code Deck} with all cards, shuffled reproducibly.
+     *
+     * @param seed The seed of the shuffle
+     */
+    public Deck(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Create a new {@code Deck} with all cards, shuffled by a generator.
+     * Use {@link SplittableRandom#split()} to shuffle decks on several
+     * threads.
+     *
+     * @param random The generator to shuffle with, used by this thread only
+     */
+    public Deck(final SplittableRandom random) {
+        this.order = new byte[Card.COUNT];
+        this.top = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (byte)i;
         }
 
-        // Add special cards
-        for (int i = 0; i < 4; i++) {
-            cards.add(new WizardCard());
-            cards.add(new JesterCard());
+        // Fisher-Yates shuffle
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the cards left in this deck, top card first.
+     *
+     * @return The remaining cards in dealing order
      */
     @Override
     public List<Card> asList() {
+        List<Card> cards = new ArrayList<Card>(size());
+        for (int i = top; i < order.length; i++) {
+            cards.add(Card.of(order[i]));
+        }
         return cards;
     }
 
     /**
-     * Removes a random card from the deck and returns it.
+     * Returns the number of cards left in this deck.
+     *
+     * @return The number of remaining cards
+     */
+    public int size() {
+        return order.length - top;
+    }
+
+    /**
+     * Removes the top card from the deck and returns it.
      *
      * @return Random card
      */
     public Card takeRandom() {
-        if (cards.size() < 1) {
+        if (top == order.length) {
             // TODO: Error
             System.err.println("Error! Could not take a card from deck!");
             return null;
         }
 
-        int n = new Random().nextInt(cards.size());
-        return cards.remove(n);
+        return Card.of(order[top++]);
+    }
+
+    /**
+     * Removes a number of cards from the top of the deck and returns them.
+     *
+     * @param count The number of cards to deal
+     * @return The dealt cards or {@code null} if there are not enough cards
+     */
+    public List<Card> deal(int count) {
+        if (count > size()) {
+            System.err.println("Error! Could not deal cards from deck!");
+            return null;
+        }
+
+        List<Card> cards = new ArrayList<Card>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.of(order[top++]));
+        }
+        return cards;
     }
 
     @Override
     public String toString() {
-        return String.format("Deck, %d cards", cards.size());
+        return String.format("Deck, %d cards", size());
     }
 }
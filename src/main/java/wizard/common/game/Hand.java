@@ -1,10 +1,10 @@
 package wizard.common.game;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.BiFunction;
 
 import wizard.common.cards.Card;
+import wizard.common.cards.CardSet;
 import wizard.common.cards.Cards;
 
 /**
@@ -12,13 +12,15 @@ import wizard.common.cards.Cards;
  */
 public class Hand extends Cards {
 
-    private final List<Card> cards;
+    private final CardSet cards;
+    private List<Card> view;
 
     /**
      * Creates new {@code Hand} object containing no cards.
      */
     public Hand() {
-        this.cards = new ArrayList<Card>();
+        this.cards = new CardSet();
+        this.view = null;
     }
 
     /**
@@ -27,8 +29,8 @@ public class Hand extends Cards {
      * @param cards The cards on this hand
      */
     public Hand(final List<Card> cards) {
-        this.cards = cards;
-        sort();
+        this.cards = new CardSet(cards);
+        this.view = null;
     }
 
     /**
@@ -40,37 +42,27 @@ public class Hand extends Cards {
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the cards on this hand sorted by color and then by value.
+     * The list is built once per change of this hand and must not be
+     * modified.
+     *
+     * @return The cards on this hand
      */
     @Override
     public List<Card> asList() {
-        return cards;
+        if (view == null) {
+            view = Collections.unmodifiableList(cards.asList());
+        }
+        return view;
     }
 
     /**
-     * Sort hand cards by color and then by value.
+     * Returns the cards on this hand as mask, see {@link CardSet#bits()}.
+     *
+     * @return The mask of the cards on this hand
      */
-    private void sort() {
-        // Sort cards by color
-        BiFunction<Card, Card, Integer> colorComparison = (x, y) -> {
-            return x.getColor().compareTo(y.getColor());
-        };
-
-        // Sort cards by value
-        BiFunction<Card, Card, Integer> valueComparison = (x, y) -> {
-            return x.getValue() - y.getValue();
-        };
-
-        // Sort first by color, then by value
-        cards.sort((a, b) -> {
-            int v = colorComparison.apply(a, b);
-
-            if (v != 0) {
-                return v;
-            }
-
-            return valueComparison.apply(a, b);
-        });
+    public long bits() {
+        return cards.bits();
     }
 
     /**
@@ -89,10 +81,6 @@ public class Hand extends Cards {
      * @return The card at the given index or {@code null} if it does not exist
      */
     public Card get(int index) {
-        if (index < 0 || index >= cards.size()) {
-            return null;
-        }
-
         return cards.get(index);
     }
 
@@ -114,7 +102,18 @@ public class Hand extends Cards {
      *         the given color.
      */
     public boolean containsColor(final Color color) {
-        return cards.parallelStream().anyMatch(x -> x.getColor() == color);
+        return cards.containsColor(color);
+    }
+
+    /**
+     * Returns the cards on this hand which may be played on a trick.
+     *
+     * @param firstColor The first color of the trick
+     * @return The cards following the first color if possible, along with
+     *         all jesters and wizards
+     */
+    public CardSet playable(final Color firstColor) {
+        return new CardSet(Rules.legalMoves(cards.bits(), firstColor));
     }
 
     /**
@@ -123,6 +122,8 @@ public class Hand extends Cards {
      * @param card The card to remove from this hand
      */
     public void remove(final Card card) {
-        cards.remove(card);
+        if (cards.remove(card)) {
+            view = null;
+        }
     }
 }
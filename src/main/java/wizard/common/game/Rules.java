@@ -0,0 +1,75 @@
+package wizard.common.game;
+
+import wizard.common.cards.Card;
+import wizard.common.cards.CardSet;
+
+/**
+ * Rules deciding which cards of a hand may be played on a trick.
+ * A player has to follow the first color of the trick if he can. Jesters
+ * and wizards may be played anytime, and every card may be played if the
+ * trick has no first color yet or a wizard led it.
+ * Legal moves are computed as {@link CardSet} mask without branches or
+ * allocations, so bots may call them for every node of a search.
+ */
+public final class Rules {
+
+    private static final long SPECIALS = CardSet.JESTERS | CardSet.WIZARDS;
+    private static final long[] FOLLOW_MASKS = createFollowMasks();
+
+    private Rules() {
+        //
+    }
+
+    /**
+     * Computes the cards which follow each first color.
+     *
+     * @return Masks indexed by color ordinal, no cards for {@link Color#CLEAR}
+     */
+    private static long[] createFollowMasks() {
+        long[] masks = new long[Color.values().length];
+        for (Color color : Color.values()) {
+            masks[color.ordinal()] = (color == Color.CLEAR) ? 0 : CardSet.colorMask(color);
+        }
+        return masks;
+    }
+
+    /**
+     * Returns the cards of a hand which may be played on a trick.
+     *
+     * @param hand The mask of the cards on the hand
+     * @param firstColor The first color of the trick, {@link Color#CLEAR}
+     *                   if there is none
+     * @return The mask of the legal cards, all cards of the hand if it
+     *         cannot follow
+     */
+    public static long legalMoves(long hand, final Color firstColor) {
+        long following = hand & FOLLOW_MASKS[firstColor.ordinal()];
+
+        // All bits set if the hand can follow, none otherwise
+        long canFollow = (following | -following) >> 63;
+        return (hand & ~canFollow) | ((following | (hand & SPECIALS)) & canFollow);
+    }
+
+    /**
+     * Returns the cards of a hand which may be played on a trick.
+     *
+     * @param hand The hand of the player on turn
+     * @param trick The current trick
+     * @return The mask of the legal cards
+     */
+    public static long legalMoves(final Hand hand, final Trick trick) {
+        return legalMoves(hand.bits(), trick.firstColor());
+    }
+
+    /**
+     * Checks whether a card may be played from a hand on a trick.
+     *
+     * @param hand The hand of the player on turn
+     * @param trick The current trick
+     * @param card The card to play
+     * @return True if the card is on the hand and may be played
+     */
+    public static boolean isLegal(final Hand hand, final Trick trick, final Card card) {
+        return (legalMoves(hand, trick) & CardSet.mask(card)) != 0;
+    }
+}
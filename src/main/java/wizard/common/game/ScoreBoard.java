@@ -1,33 +1,182 @@
 package wizard.common.game;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
+/**
+ * Predictions, taken tricks and scores of all players of a game.
+ * Players are kept by seat in the order they were added, every value is
+ * stored in a primitive array indexed by seat. Methods taking a seat run
+ * in constant time; methods taking a player name look up the seat first.
+ *
+ * Every finished round adds one row per seat to the history, stored in
+ * columns of prediction, tricks, score delta and total score. Copies sent
+ * to clients keep only the newest row, see {@link #latest()}; clients put
+ * the rows together again with {@link #merge(ScoreBoard)}.
+ */
 public class ScoreBoard implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    private class Triple implements Serializable {
-        private static final long serialVersionUID = 1L;
+    private static final int INITIAL_SEATS = 6;
+    private static final int INITIAL_ROUNDS = 20;
 
-        public int prediction = -1;
-        public int tricks = 0;
-        public int score = 0;
-    }
+    private transient String[] players;
+    private transient int[] predictions;
+    private transient int[] tricks;
+    private transient int[] scores;
+    private transient int size;
+
+    // History of the kept rounds, one row of seats per round
+    private transient int rounds;
+    private transient int firstRound;
+    private transient int[] roundPredictions;
+    private transient int[] roundTricks;
+    private transient int[] roundDeltas;
+    private transient int[] roundTotals;
 
-    private Map<String, Triple> map;
+    // Seats ordered by score, best first, and the rank of every seat
+    private transient int[] standings;
+    private transient int[] ranks;
 
     /**
      * Creates a new {@code ScoreBoard}.
      */
     public ScoreBoard() {
-        this.map = new HashMap<String, Triple>();
+        init(INITIAL_SEATS);
+    }
+
+    /**
+     * Creates a new {@code ScoreBoard} holding a copy of the given scores.
+     *
+     * @param other The scoreboard to copy
+     */
+    public ScoreBoard(final ScoreBoard other) {
+        this(other, other.rounds - other.firstRound);
+    }
+
+    /**
+     * Creates a new {@code ScoreBoard} holding a copy of the given scores
+     * and of the newest rounds of their history.
+     *
+     * @param other The scoreboard to copy
+     * @param keep The number of rounds to keep
+     */
+    private ScoreBoard(final ScoreBoard other, int keep) {
+        this.size = other.size;
+        this.players = Arrays.copyOf(other.players, size);
+        this.predictions = Arrays.copyOf(other.predictions, size);
+        this.tricks = Arrays.copyOf(other.tricks, size);
+        this.scores = Arrays.copyOf(other.scores, size);
+        this.standings = Arrays.copyOf(other.standings, size);
+        this.ranks = Arrays.copyOf(other.ranks, size);
+
+        this.rounds = other.rounds;
+        this.firstRound = Math.max(other.firstRound, other.rounds - keep);
+        int from = (firstRound - other.firstRound) * size;
+        int to = (rounds - other.firstRound) * size;
+        this.roundPredictions = Arrays.copyOfRange(other.roundPredictions, from, to);
+        this.roundTricks = Arrays.copyOfRange(other.roundTricks, from, to);
+        this.roundDeltas = Arrays.copyOfRange(other.roundDeltas, from, to);
+        this.roundTotals = Arrays.copyOfRange(other.roundTotals, from, to);
+    }
+
+    /**
+     * Allocates empty arrays for a number of seats.
+     *
+     * @param seats The number of seats
+     */
+    private void init(int seats) {
+        this.players = new String[seats];
+        this.predictions = new int[seats];
+        this.tricks = new int[seats];
+        this.scores = new int[seats];
+        this.standings = new int[seats];
+        this.ranks = new int[seats];
+        this.size = 0;
+
+        this.rounds = 0;
+        this.firstRound = 0;
+        this.roundPredictions = new int[0];
+        this.roundTricks = new int[0];
+        this.roundDeltas = new int[0];
+        this.roundTotals = new int[0];
+    }
+
+    /**
+     * Writes this scoreboard compactly: number of players, then name,
+     * prediction, tricks and score of every seat, followed by the first
+     * kept round, the number of rounds and prediction, tricks, delta and
+     * total of every seat in every kept round.
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeByte(size);
+        for (int seat = 0; seat < size; seat++) {
+            out.writeUTF(players[seat]);
+            out.writeByte(predictions[seat]);
+            out.writeByte(tricks[seat]);
+            out.writeShort(scores[seat]);
+        }
+
+        out.writeByte(firstRound);
+        out.writeByte(rounds);
+        for (int i = 0; i < (rounds - firstRound) * size; i++) {
+            out.writeByte(roundPredictions[i]);
+            out.writeByte(roundTricks[i]);
+            out.writeShort(roundDeltas[i]);
+            out.writeShort(roundTotals[i]);
+        }
+    }
+
+    /**
+     * Reads a scoreboard written by {@link #writeObject(ObjectOutputStream)}.
+     *
+     * @param in The stream to read from
+     * @throws IOException If reading fails
+     * @throws ClassNotFoundException Never
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int seats = in.readUnsignedByte();
+        init(seats);
+        for (int seat = 0; seat < seats; seat++) {
+            add(in.readUTF());
+            predictions[seat] = in.readByte();
+            tricks[seat] = in.readByte();
+            scores[seat] = in.readShort();
+        }
+        updateStandings();
+
+        int first = in.readUnsignedByte();
+        int last = in.readUnsignedByte();
+        if (last > first) {
+            int[] p = new int[seats];
+            int[] t = new int[seats];
+            int[] d = new int[seats];
+            int[] s = new int[seats];
+            for (int round = first; round < last; round++) {
+                for (int seat = 0; seat < seats; seat++) {
+                    p[seat] = in.readByte();
+                    t[seat] = in.readByte();
+                    d[seat] = in.readShort();
+                    s[seat] = in.readShort();
+                }
+                addRound(round, p, t, d, s);
+            }
+        } else {
+            setRoundsPlayed(last);
+        }
     }
 
     /**
@@ -40,17 +189,12 @@ public class ScoreBoard implements Serializable {
     public String toString() {
         StringBuilder str = new StringBuilder();
 
-        for (Entry<String, Triple> entry : map.entrySet()) {
-            String player = entry.getKey();
-            int prediction = entry.getValue().prediction;
-            int tricks = entry.getValue().tricks;
-            int score = entry.getValue().score;
-
+        for (int seat = 0; seat < size; seat++) {
             String line = String.format("%s:"
                 + " [Predicted: %2d]"
                 + " [Taken: %2d]"
                 + " [Score: %3d]",
-                player, prediction, tricks, score);
+                players[seat], predictions[seat], tricks[seat], scores[seat]);
 
             str.append(line);
             str.append('\n');
@@ -87,17 +231,17 @@ public class ScoreBoard implements Serializable {
             return str;
         };
 
-        final List<String> players = new ArrayList<String>(map.size());
-        final List<Integer> predictions = new ArrayList<Integer>(map.size());
-        final List<String> tricks = new ArrayList<String>(map.size());
-        final List<String> scores = new ArrayList<String>(map.size());
+        final List<String> players = new ArrayList<String>(size);
+        final List<Integer> predictions = new ArrayList<Integer>(size);
+        final List<String> tricks = new ArrayList<String>(size);
+        final List<String> scores = new ArrayList<String>(size);
 
         // Convert all values to lists of equal size
-        for (Entry<String, Triple> entry : map.entrySet()) {
-            players.add(" " +entry.getKey() +" ");
-            predictions.add(entry.getValue().prediction);
-            tricks.add(Integer.toString(entry.getValue().tricks));
-            scores.add(Integer.toString(entry.getValue().score));
+        for (int seat = 0; seat < size; seat++) {
+            players.add(" " +this.players[seat] +" ");
+            predictions.add(this.predictions[seat]);
+            tricks.add(Integer.toString(this.tricks[seat]));
+            scores.add(Integer.toString(this.scores[seat]));
         }
 
 
@@ -179,110 +323,280 @@ public class ScoreBoard implements Serializable {
     }
 
     /**
-     * Adds a given player.
+     * Adds a given player at the next seat.
      *
      * @param player The player to add
      */
     public void add(final String player) {
-        if (!map.containsKey(player)) {
-            map.put(player, new Triple());
+        if (getSeat(player) >= 0) {
+            return;
+        }
+
+        if (size == players.length) {
+            int seats = Math.max(1, 2 * size);
+            players = Arrays.copyOf(players, seats);
+            predictions = Arrays.copyOf(predictions, seats);
+            tricks = Arrays.copyOf(tricks, seats);
+            scores = Arrays.copyOf(scores, seats);
+            standings = Arrays.copyOf(standings, seats);
+            ranks = Arrays.copyOf(ranks, seats);
         }
+        players[size] = player;
+        predictions[size] = -1;
+        tricks[size] = 0;
+        scores[size] = 0;
+        standings[size] = size;
+        size++;
+        widenHistory();
+        updateStandings();
+    }
+
+    /**
+     * Makes room for the newest seat in every row of the history. The new
+     * player did not play the kept rounds, so the seat is left empty.
+     */
+    private void widenHistory() {
+        int kept = rounds - firstRound;
+        if (kept == 0) {
+            return;
+        }
+
+        int seats = size - 1;
+        int[] p = new int[kept * size];
+        int[] t = new int[kept * size];
+        int[] d = new int[kept * size];
+        int[] s = new int[kept * size];
+        for (int row = 0; row < kept; row++) {
+            System.arraycopy(roundPredictions, row * seats, p, row * size, seats);
+            System.arraycopy(roundTricks, row * seats, t, row * size, seats);
+            System.arraycopy(roundDeltas, row * seats, d, row * size, seats);
+            System.arraycopy(roundTotals, row * seats, s, row * size, seats);
+            p[row * size + seats] = -1;
+        }
+        roundPredictions = p;
+        roundTricks = t;
+        roundDeltas = d;
+        roundTotals = s;
+    }
+
+    /**
+     * Returns the names of all players on this scoreboard.
+     *
+     * @return List of all player names ordered by seat
+     */
+    public List<String> getPlayers() {
+        return new ArrayList<String>(Arrays.asList(players).subList(0, size));
+    }
+
+    /**
+     * Returns the name of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @return The name of the player
+     */
+    public String getPlayer(int seat) {
+        return players[seat];
+    }
+
+    /**
+     * Returns the number of players on this scoreboard.
+     *
+     * @return The number of seats
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the seat of a given player.
+     *
+     * @param player The name of the player
+     * @return The seat of the player or -1 if the player is unknown
+     */
+    public int getSeat(final String player) {
+        for (int seat = 0; seat < size; seat++) {
+            if (players[seat].equals(player)) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the seat of a given player, adding unknown players.
+     *
+     * @param player The name of the player
+     * @return The seat of the player
+     */
+    private int seatOf(final String player) {
+        int seat = getSeat(player);
+        if (seat < 0) {
+            add(player);
+            seat = size - 1;
+        }
+        return seat;
     }
 
     /**
      * Sets the current prediction of a given player.
+     * Unknown players are added.
      *
      * @param player The player to set the current prediction of
      * @param prediction The prediction to set
      */
     public void setPredictions(final String player, int prediction) {
-        Triple triple = map.get(player);
-        if (triple == null) {
-            add(player);
-        }
-        triple.prediction = prediction;
+        predictions[seatOf(player)] = prediction;
+    }
+
+    /**
+     * Sets the current prediction of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @param prediction The prediction to set
+     */
+    public void setPredictions(int seat, int prediction) {
+        predictions[seat] = prediction;
     }
 
     /**
      * Sets the current number of taken tricks of a given player.
+     * Unknown players are added.
      *
      * @param player The player to set the current number of tricks of
      * @param tricks The number of tricks to set
      */
     public void setTricks(final String player, int tricks) {
-        Triple triple = map.get(player);
-        if (triple == null) {
-            add(player);
-        }
-        triple.tricks = tricks;
+        this.tricks[seatOf(player)] = tricks;
+    }
+
+    /**
+     * Sets the current number of taken tricks of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @param tricks The number of tricks to set
+     */
+    public void setTricks(int seat, int tricks) {
+        this.tricks[seat] = tricks;
     }
 
     /**
      * Sets the current score of a given player.
+     * Unknown players are added.
      *
      * @param player The player to set the current score of
      * @param score The score to set
      */
     public void setScore(final String player, int score) {
-        Triple triple = map.get(player);
-        if (triple == null) {
-            add(player);
-        }
-        triple.score = score;
+        setScore(seatOf(player), score);
+    }
+
+    /**
+     * Sets the current score of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @param score The score to set
+     */
+    public void setScore(int seat, int score) {
+        scores[seat] = score;
+        updateStandings();
     }
 
     /**
      * Increases the current number of taken tricks of a given player by one.
+     * Unknown players are added.
      *
      * @param player The player to increase the number of taken tricks of
      */
     public void addTrick(final String player) {
-        int tricks = getTricks(player);
-        setTricks(player, tricks + 1);
+        tricks[seatOf(player)]++;
+    }
+
+    /**
+     * Increases the current number of taken tricks of the player at a seat
+     * by one.
+     *
+     * @param seat The seat of the player
+     */
+    public void addTrick(int seat) {
+        tricks[seat]++;
     }
 
     /**
      * Increases the current score of a given player by a given amount.
+     * Unknown players are added.
      *
      * @param player The player of which to increase the score
      * @param score The amount of how much to increase the score
      */
     public void addScore(final String player, int score) {
-        int current = getScore(player);
-        setScore(player, current + score);
+        int seat = seatOf(player);
+        setScore(seat, scores[seat] + score);
     }
 
     /**
      * Returns the current prediction of a given player.
      *
      * @param player The player to return the current prediction of
-     * @return The current prediction of given player
+     * @return The current prediction of given player, -1 if he has not
+     *         predicted yet or is unknown
      */
     public int getPrediction(final String player) {
-        Triple triple = map.get(player);
-        return (triple == null) ? null : triple.prediction;
+        int seat = getSeat(player);
+        return (seat < 0) ? -1 : predictions[seat];
+    }
+
+    /**
+     * Returns the current prediction of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @return The current prediction, -1 if not predicted yet
+     */
+    public int getPrediction(int seat) {
+        return predictions[seat];
     }
 
     /**
-     * Returns the current number of taken tricks of a given play)er.
+     * Returns the current number of taken tricks of a given player.
      *
      * @param player The player to return the current tricks of
-     * @return The current number of taken tricks of given player
+     * @return The current number of taken tricks of given player, 0 if
+     *         the player is unknown
      */
     public int getTricks(final String player) {
-        Triple triple = map.get(player);
-        return (triple == null) ? null : triple.tricks;
+        int seat = getSeat(player);
+        return (seat < 0) ? 0 : tricks[seat];
+    }
+
+    /**
+     * Returns the current number of taken tricks of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @return The current number of taken tricks
+     */
+    public int getTricks(int seat) {
+        return tricks[seat];
     }
 
     /**
      * Returns the current score of a given player.
      *
      * @param player The player to return the current score of
-     * @return The current score of a given player
+     * @return The current score of a given player, 0 if the player is
+     *         unknown
      */
     public int getScore(final String player) {
-        Triple triple = map.get(player);
-        return (triple == null) ? null : triple.score;
+        int seat = getSeat(player);
+        return (seat < 0) ? 0 : scores[seat];
+    }
+
+    /**
+     * Returns the current score of the player at a seat.
+     *
+     * @param seat The seat of the player
+     * @return The current score
+     */
+    public int getScore(int seat) {
+        return scores[seat];
     }
 
     /**
@@ -290,11 +604,11 @@ public class ScoreBoard implements Serializable {
      * Call this when round ends.
      */
     public void predictionsToScore() {
-        for (Entry<String, Triple> entry : map.entrySet()) {
-            String player = entry.getKey();
-            int prediction = entry.getValue().prediction;
-            int tricks = entry.getValue().tricks;
-            int score = entry.getValue().score;
+        int row = appendRow();
+        for (int seat = 0; seat < size; seat++) {
+            String player = players[seat];
+            int prediction = predictions[seat];
+            int tricks = this.tricks[seat];
 
             // Calculate achieved score
             int achievedScore = 0;
@@ -317,12 +631,271 @@ public class ScoreBoard implements Serializable {
             }
 
             // Apply achieved score to total score
-            setScore(player, score + achievedScore);
+            scores[seat] += achievedScore;
+
+            roundPredictions[row + seat] = prediction;
+            roundTricks[row + seat] = tricks;
+            roundDeltas[row + seat] = achievedScore;
+            roundTotals[row + seat] = scores[seat];
 
             // Set prediction to -1 and tricks to 0 to indicate they are
             // not yet set.
-            setPredictions(player, -1);
-            setTricks(player, 0);
+            predictions[seat] = -1;
+            this.tricks[seat] = 0;
+        }
+        updateStandings();
+    }
+
+    /**
+     * Sorts the seats by score again and updates their ranks. Players with
+     * equal scores share a rank. Insertion sort only moves the seats whose
+     * order changed since the last update.
+     */
+    private void updateStandings() {
+        for (int i = 1; i < size; i++) {
+            int seat = standings[i];
+            int j = i - 1;
+            while (j >= 0 && scores[standings[j]] < scores[seat]) {
+                standings[j + 1] = standings[j];
+                j--;
+            }
+            standings[j + 1] = seat;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int seat = standings[i];
+            boolean tied = i > 0 && scores[standings[i - 1]] == scores[seat];
+            ranks[seat] = tied ? ranks[standings[i - 1]] : i + 1;
+        }
+    }
+
+    /**
+     * Adds an empty row to the history for the next round.
+     *
+     * @return The index of the first seat of the new row
+     */
+    private int appendRow() {
+        int row = (rounds - firstRound) * size;
+        if (row + size > roundTotals.length) {
+            int capacity = Math.max(INITIAL_ROUNDS * size, 2 * roundTotals.length);
+            roundPredictions = Arrays.copyOf(roundPredictions, capacity);
+            roundTricks = Arrays.copyOf(roundTricks, capacity);
+            roundDeltas = Arrays.copyOf(roundDeltas, capacity);
+            roundTotals = Arrays.copyOf(roundTotals, capacity);
+        }
+        rounds++;
+        return row;
+    }
+
+    /**
+     * Adds a scored round to the history, e.g. one received from the
+     * server. The first round added to an empty history may be any round.
+     *
+     * @param round The index of the round, counting from 0
+     * @param predictions The prediction of every seat
+     * @param tricks The tricks taken by every seat
+     * @param deltas The points every seat won or lost
+     * @param totals The score of every seat after the round
+     * @throws IllegalArgumentException If the round does not follow the
+     *         newest round of the history
+     */
+    public void addRound(int round, final int[] predictions, final int[] tricks, final int[] deltas,
+            final int[] totals) {
+        if (rounds == firstRound) {
+            firstRound = round;
+            rounds = round;
+        } else if (round != rounds) {
+            throw new IllegalArgumentException(String.format("Round %d does not follow round %d",
+                round, rounds - 1));
+        }
+
+        int row = appendRow();
+        System.arraycopy(predictions, 0, roundPredictions, row, size);
+        System.arraycopy(tricks, 0, roundTricks, row, size);
+        System.arraycopy(deltas, 0, roundDeltas, row, size);
+        System.arraycopy(totals, 0, roundTotals, row, size);
+    }
+
+    /**
+     * Sets the number of rounds played before the history starts, e.g. for
+     * a game restored without history.
+     *
+     * @param rounds The number of rounds played
+     * @throws IllegalStateException If rounds have been kept already
+     */
+    public void setRoundsPlayed(int rounds) {
+        if (this.rounds > firstRound) {
+            throw new IllegalStateException("Rounds have been scored already");
+        }
+        this.rounds = rounds;
+        this.firstRound = rounds;
+    }
+
+    /**
+     * Returns the number of rounds scored.
+     *
+     * @return The number of rounds played
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns the oldest round kept in the history.
+     *
+     * @return The index of the oldest round, equal to {@link #getRounds()}
+     *         if no round is kept
+     */
+    public int getFirstRound() {
+        return firstRound;
+    }
+
+    /**
+     * Returns the position of a value in the history columns.
+     *
+     * @param round The index of the round
+     * @param seat The seat of the player
+     * @return The index into the history columns
+     * @throws IllegalArgumentException If the round is not kept or there
+     *         is no such seat
+     */
+    private int row(int round, int seat) {
+        if (round < firstRound || round >= rounds || seat < 0 || seat >= size) {
+            throw new IllegalArgumentException(String.format("No scores of round %d at seat %d", round, seat));
         }
+        return (round - firstRound) * size + seat;
+    }
+
+    /**
+     * Returns the prediction of the player at a seat in a round.
+     *
+     * @param round The index of the round
+     * @param seat The seat of the player
+     * @return The prediction
+     */
+    public int getRoundPrediction(int round, int seat) {
+        return roundPredictions[row(round, seat)];
+    }
+
+    /**
+     * Returns the tricks taken by the player at a seat in a round.
+     *
+     * @param round The index of the round
+     * @param seat The seat of the player
+     * @return The number of tricks taken
+     */
+    public int getRoundTricks(int round, int seat) {
+        return roundTricks[row(round, seat)];
+    }
+
+    /**
+     * Returns the points won or lost by the player at a seat in a round.
+     *
+     * @param round The index of the round
+     * @param seat The seat of the player
+     * @return The score of the round, negative if points were lost
+     */
+    public int getRoundDelta(int round, int seat) {
+        return roundDeltas[row(round, seat)];
+    }
+
+    /**
+     * Returns the score of the player at a seat after a round.
+     *
+     * @param round The index of the round
+     * @param seat The seat of the player
+     * @return The total score after the round
+     */
+    public int getRoundTotal(int round, int seat) {
+        return roundTotals[row(round, seat)];
+    }
+
+    /**
+     * Returns the rank of the player at a seat by score.
+     *
+     * @param seat The seat of the player
+     * @return The rank, 1 for the leading players
+     */
+    public int getRank(int seat) {
+        return ranks[seat];
+    }
+
+    /**
+     * Returns the rank of a given player by score.
+     *
+     * @param player The player to return the rank of
+     * @return The rank, 1 for the leading players, 0 if the player is
+     *         unknown
+     */
+    public int getRank(final String player) {
+        int seat = getSeat(player);
+        return (seat < 0) ? 0 : ranks[seat];
+    }
+
+    /**
+     * Returns the names of all players ordered by score.
+     *
+     * @return List of all player names, leading player first
+     */
+    public List<String> getStandings() {
+        List<String> names = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(players[standings[i]]);
+        }
+        return names;
+    }
+
+    /**
+     * Returns a copy of the current scores keeping only the newest round
+     * of the history, to be sent to clients.
+     *
+     * @return The copy
+     */
+    public ScoreBoard latest() {
+        return new ScoreBoard(this, 1);
+    }
+
+    /**
+     * Returns the scores of an update, along with the rounds of this
+     * history before the rounds the update keeps.
+     * If the players differ or rounds are missing in between, the history
+     * of the update is kept as it is.
+     *
+     * @param update Newer scores of the same game, e.g. from
+     *               {@link #latest()}
+     * @return The merged scores
+     */
+    public ScoreBoard merge(final ScoreBoard update) {
+        ScoreBoard merged = new ScoreBoard(update);
+        boolean samePlayers = size == update.size
+            && Arrays.equals(players, 0, size, update.players, 0, size);
+        if (!samePlayers || update.firstRound <= firstRound || update.firstRound > rounds) {
+            return merged;
+        }
+
+        int older = (update.firstRound - firstRound) * size;
+        int newer = (update.rounds - update.firstRound) * size;
+        merged.firstRound = firstRound;
+        merged.roundPredictions = concat(roundPredictions, older, update.roundPredictions, newer);
+        merged.roundTricks = concat(roundTricks, older, update.roundTricks, newer);
+        merged.roundDeltas = concat(roundDeltas, older, update.roundDeltas, newer);
+        merged.roundTotals = concat(roundTotals, older, update.roundTotals, newer);
+        return merged;
+    }
+
+    /**
+     * Returns the first values of one array followed by the first values
+     * of another.
+     *
+     * @param a The first array
+     * @param aLength The number of values of the first array
+     * @param b The second array
+     * @param bLength The number of values of the second array
+     * @return New array holding both parts
+     */
+    private static int[] concat(final int[] a, int aLength, final int[] b, int bLength) {
+        int[] result = Arrays.copyOf(a, aLength + bLength);
+        System.arraycopy(b, 0, result, aLength, bLength);
+        return result;
     }
 }
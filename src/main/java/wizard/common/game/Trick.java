@@ -9,16 +9,40 @@ import wizard.common.cards.Cards;
 /**
  * {@code Trick} object representing a trick consisting of multiple cards
  * played by different players.
+ * The first card which is not a jester decides the first color; a trick led
+ * by a wizard has none. The card taking the trick is updated with every
+ * card added, by comparing the strength of the new card with the strength
+ * of the card taking the trick so far. Strengths of all cards for every
+ * first color and trump color are computed once, so adding a card
+ * allocates nothing.
  */
 public class Trick extends Cards {
 
+    private static final int COLORS = Color.values().length;
+    private static final int WIZARD_STRENGTH = 3 * Card.VALUES + 1;
+    private static final byte[] STRENGTHS = createStrengths();
+
     private final List<Card> cards;
+    private final Color trump;
+    private Color firstColor;
+    private boolean led;
+    private int winner;
+    private int winnerStrength;
 
     /**
-     * Create a new {@code Trick}.
+     * Create a new {@code Trick} without trump color.
      */
     public Trick() {
-        this.cards = new ArrayList<Card>();
+        this(Color.CLEAR);
+    }
+
+    /**
+     * Create a new {@code Trick} played with a trump color.
+     *
+     * @param trump The trump color or {@link Color#CLEAR} for none
+     */
+    public Trick(final Color trump) {
+        this(new ArrayList<Card>(), trump);
     }
 
     /**
@@ -27,7 +51,89 @@ public class Trick extends Cards {
      * @param cards The cards making up this {@code Trick}
      */
     public Trick(final List<Card> cards) {
+        this(new ArrayList<Card>(cards.size()), Color.CLEAR);
+        cards.forEach(this::add);
+    }
+
+    /**
+     * Create a new empty {@code Trick} collecting its cards in a list.
+     *
+     * @param cards The empty list to add the cards to
+     * @param trump The trump color or {@link Color#CLEAR} for none
+     */
+    private Trick(final List<Card> cards, final Color trump) {
         this.cards = cards;
+        this.trump = trump;
+        this.firstColor = Color.CLEAR;
+        this.led = false;
+        this.winner = -1;
+        this.winnerStrength = 0;
+    }
+
+    /**
+     * Computes the strength of every card for every first color and trump
+     * color. Wizards are strongest, followed by trump-colored cards, then
+     * cards of the first color, each ordered by value. All other cards have
+     * no strength.
+     *
+     * @return Strengths indexed by card ordinal, first color and trump color
+     */
+    private static byte[] createStrengths() {
+        byte[] strengths = new byte[Card.COUNT * COLORS * COLORS];
+        for (Card card : Card.values()) {
+            for (Color first : Color.values()) {
+                for (Color trump : Color.values()) {
+                    int strength = 0;
+                    if (card.isWizard()) {
+                        strength = WIZARD_STRENGTH;
+                    } else if (card.getColor() == Color.CLEAR) {
+                        strength = 0;
+                    } else if (card.getColor() == trump) {
+                        strength = 2 * Card.VALUES + card.getValue();
+                    } else if (card.getColor() == first) {
+                        strength = Card.VALUES + card.getValue();
+                    }
+                    strengths[index(card, first, trump)] = (byte)strength;
+                }
+            }
+        }
+        return strengths;
+    }
+
+    /**
+     * Returns the index of a strength in the table of strengths.
+     *
+     * @param card The card
+     * @param first The first color of the trick
+     * @param trump The trump color
+     * @return The index of the strength of the card
+     */
+    private static int index(final Card card, final Color first, final Color trump) {
+        return (card.getOrdinal() * COLORS + first.ordinal()) * COLORS + trump.ordinal();
+    }
+
+    /**
+     * Checks whether a card played takes the trick from the card taking it
+     * so far. Ties keep the earlier card, except when only jesters have
+     * been played: the last jester takes the trick.
+     *
+     * @param strength The strength of the card played
+     * @param winnerStrength The strength of the card taking the trick so far
+     * @param first The first color of the trick
+     * @return True if the card played takes the trick
+     */
+    private static boolean takesOver(int strength, int winnerStrength, final Color first) {
+        return strength > winnerStrength || (strength == 0 && winnerStrength == 0 && first == Color.CLEAR);
+    }
+
+    /**
+     * Checks whether a card is a jester.
+     *
+     * @param card The card to check
+     * @return True if the card is a jester
+     */
+    private static boolean isJester(final Card card) {
+        return card.getColor() == Color.CLEAR && !card.isWizard();
     }
 
     /**
@@ -50,31 +156,42 @@ public class Trick extends Cards {
     }
 
     /**
-     * Adds a new card to this trick.
+     * Adds a new card to this trick and updates which card takes it.
      *
      * @param card The card to add to this trick
      */
     public void add(final Card card) {
         cards.add(card);
-    }
+        if (!led && !isJester(card)) {
+            firstColor = card.getColor();
+            led = true;
+        }
 
-    // TODO: Remove !
-    public int cardId(final Card card) {
-        return cards.indexOf(card);
+        int strength = STRENGTHS[index(card, firstColor, trump)];
+        if (winner < 0 || takesOver(strength, winnerStrength, firstColor)) {
+            winner = cards.size() - 1;
+            winnerStrength = strength;
+        }
     }
 
     /**
-     * Returns the first color of this trick.
+     * Returns the first color of this trick, which has to be followed.
      *
-     * @return The first color of this trick.
+     * @return The first color of this trick or {@link Color#CLEAR} if
+     *         only jesters have been played or a wizard led the trick
      */
     public Color firstColor() {
-        // Return first color in trick
-        return cards.stream()
-                    .filter(x -> x.getColor() != Color.CLEAR)
-                    .findFirst()
-                    .map(x -> x.getColor())
-                    .orElse(Color.CLEAR);
+        return firstColor;
+    }
+
+    /**
+     * Returns the position of the card taking this trick with the trump
+     * color of this trick, counting from the first card played.
+     *
+     * @return The index of the winner card or -1 if the trick is empty
+     */
+    public int getWinner() {
+        return winner;
     }
 
     /**
@@ -85,53 +202,32 @@ public class Trick extends Cards {
      */
     public Card takenBy(Color trump) {
         // Trick without cards cannot be taken by anyone
-        if (cards.size() == 0) {
+        if (cards.isEmpty()) {
             return null;
         }
-
-        Card winner = null;
-
-
-        // The trick gets taken by the first player to play a wizard
-        winner = cards.stream()
-                      .filter(x -> x.isWizard())
-                      .findFirst()
-                      .orElse(null);
-
-        if (winner != null) {
-            return winner;
+        if (trump == this.trump) {
+            return cards.get(winner);
         }
 
-
-        // The trick gets taken by the highest trump-colored card
-        winner = cards.stream()
-                      .filter(x -> x.getColor() == trump)
-                      .max((a, b) -> {
-                          return a.compareTo(b);
-                      })
-                      .orElse(null);
-
-        if (winner != null) {
-            return winner;
+        // Evaluate again for another trump color
+        Color first = Color.CLEAR;
+        boolean firstLed = false;
+        int best = -1;
+        int bestStrength = 0;
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            if (!firstLed && !isJester(card)) {
+                first = card.getColor();
+                firstLed = true;
+            }
+
+            int strength = STRENGTHS[index(card, first, trump)];
+            if (best < 0 || takesOver(strength, bestStrength, first)) {
+                best = i;
+                bestStrength = strength;
+            }
         }
-
-
-        Color firstColor = firstColor();
-
-
-        // If there is never any color (all players play jesters) the trick is taken by the
-        // last player to play a jester.
-        if (firstColor == Color.CLEAR) {
-            return cards.get(cards.size() - 1);
-        }
-
-        // The trick gets taken by the highest card colored the same as the first color.
-        return cards.stream()
-                    .filter(x -> x.getColor() == firstColor)
-                    .max((a, b) -> {
-                        return a.compareTo(b);
-                    })
-                    .orElse(null);
+        return cards.get(best);
     }
 
 }
@@ -0,0 +1,55 @@
+package wizard.common.messages;
+
+public class EventMessage extends Message {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int seat;
+    private final int value;
+
+    /**
+     * Create a new {@code EventMessage} with given type, sequence number,
+     * seat and value.
+     *
+     * @param type The type of this new message
+     * @param sequence The number of this event in its game, or the number
+     *                 of the last event contained in a synced state
+     * @param seat The seat of the player the event is about or -1
+     * @param value The prediction or card ordinal of the event, 0 if unused
+     */
+    public EventMessage(final MessageType type, int sequence, int seat, int value) {
+        super(type, sequence);
+        this.seat = seat;
+        this.value = value;
+    }
+
+    /**
+     * Returns the number of this event. Events of a game are numbered from
+     * 1 in the order they happen.
+     *
+     * @return The sequence number
+     */
+    @Override
+    public Integer getContent() {
+        return (Integer)super.getContent();
+    }
+
+    /**
+     * Returns the seat of the player the event is about.
+     *
+     * @return The seat or -1 if the event is about no player
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Returns the value of the event, e.g. the prediction made or the
+     * ordinal of the card played.
+     *
+     * @return The value of the event
+     */
+    public int getValue() {
+        return value;
+    }
+}
@@ -16,9 +16,12 @@ public class IntMessage extends Message {
 
     /**
      * {@inheritDoc}
+     * A deserialized message may carry no or another content, it is
+     * returned as {@code null}.
      */
     @Override
     public Integer getContent() {
-        return (Integer)super.getContent();
+        Object content = super.getContent();
+        return (content instanceof Integer) ? (Integer)content : null;
     }
 }
@@ -2,12 +2,16 @@ package wizard.common.messages;
 
 import java.io.Serializable;
 
+/**
+ * Immutable message exchanged between client and server.
+ * Content objects must not be changed after the message has been created.
+ */
 public abstract class Message implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    private MessageType type;
-    private Object content;
+    private final MessageType type;
+    private final Object content;
 
     /**
      * Create a new {@code Message} with given type and content.
@@ -12,7 +12,26 @@ public enum MessageType {
     ASK_TRICK_CARD     ("<ASK_TRICK_CARD>"),
 
     ANSWER_PREDICTION  ("<ANSWER_PREDICTION>"),
-    ANSWER_TRICK_CARD  ("<ANSWER_TRICK_CARD>");
+    ANSWER_TRICK_CARD  ("<ANSWER_TRICK_CARD>"),
+
+    SET_NAME           ("<SET_NAME>"),
+    LIST_TABLES        ("<LIST_TABLES>"),
+    CREATE_TABLE       ("<CREATE_TABLE>"),
+    JOIN_TABLE         ("<JOIN_TABLE>"),
+    TABLES             ("<TABLES>"),
+    TABLE_JOINED       ("<TABLE_JOINED>"),
+
+    SESSION            ("<SESSION>"),
+    RESUME_SESSION     ("<RESUME_SESSION>"),
+    WATCH_TABLE        ("<WATCH_TABLE>"),
+
+    SYNC_EVENTS        ("<SYNC_EVENTS>"),
+    RESYNC             ("<RESYNC>"),
+    STATE_SYNCED       ("<STATE_SYNCED>"),
+    PLAYER_PREDICTED   ("<PLAYER_PREDICTED>"),
+    CARD_PLAYED        ("<CARD_PLAYED>"),
+    TRICK_TAKEN        ("<TRICK_TAKEN>"),
+    ROUND_SCORED       ("<ROUND_SCORED>");
 
     private final String representation;
 
@@ -8,12 +8,14 @@ public class ScoresMessage extends Message {
 
     /**
      * Create a new {@code ScoreMessage} with given type and content.
+     * The message holds a copy of the scores at the time of creation,
+     * keeping only the newest round of their history.
      *
      * @param type The type of this new message
      * @param content The content of this new message
      */
     public ScoresMessage(final MessageType type, final ScoreBoard content) {
-        super(type, content);
+        super(type, content.latest());
     }
 
     /**
@@ -0,0 +1,43 @@
+package wizard.common.messages;
+
+public class SessionMessage extends Message {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+
+    /**
+     * Create a new {@code SessionMessage} with given type, session token and
+     * sequence number.
+     *
+     * @param type The type of this new message
+     * @param token The token identifying the session
+     * @param sequence The number of the last message of the session the
+     *                 client received
+     */
+    public SessionMessage(final MessageType type, long token, long sequence) {
+        super(type, token);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the token identifying the session.
+     *
+     * @return The session token
+     */
+    @Override
+    public Long getContent() {
+        return (Long)super.getContent();
+    }
+
+    /**
+     * Returns the number of the last message of the session the client
+     * received. Messages of a session are numbered from 1 in the order they
+     * are sent.
+     *
+     * @return The sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
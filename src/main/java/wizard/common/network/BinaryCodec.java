@@ -0,0 +1,375 @@
+package wizard.common.network;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import wizard.common.GameStatus;
+import wizard.common.cards.Card;
+import wizard.common.game.Color;
+import wizard.common.game.ScoreBoard;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.ColorMessage;
+import wizard.common.messages.EventMessage;
+import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.ScoresMessage;
+import wizard.common.messages.SessionMessage;
+import wizard.common.messages.StringMessage;
+import wizard.common.messages.VoidMessage;
+
+/**
+ * Compact hand-written {@code MessageCodec}.
+ * Every payload starts with the message type as one byte opcode followed by
+ * one byte naming the kind of content:
+ *
+ * VOID:   -
+ * INT:    int (4 bytes)
+ * STRING: unsigned short length, UTF-8 bytes
+ * CARD:   card ordinal (1 byte), see {@link Card}
+ * CARDS:  count (1 byte), card ordinals (1 byte each)
+ * COLOR:  color (1 byte)
+ * STATUS: game status (1 byte)
+ * SCORES: count (1 byte), then per player: name (like STRING),
+ *         prediction (1 byte), tricks (1 byte), score (short)
+ * SESSION: token (long), sequence number (long)
+ * EVENT:  sequence number (int), seat (1 byte), value (1 byte)
+ *
+ * The codec keeps no state between messages.
+ */
+public class BinaryCodec implements MessageCodec {
+
+    private static final byte KIND_VOID    = 0;
+    private static final byte KIND_INT     = 1;
+    private static final byte KIND_STRING  = 2;
+    private static final byte KIND_CARD    = 3;
+    private static final byte KIND_CARDS   = 4;
+    private static final byte KIND_COLOR   = 5;
+    private static final byte KIND_STATUS  = 6;
+    private static final byte KIND_SCORES  = 7;
+    private static final byte KIND_SESSION = 8;
+    private static final byte KIND_EVENT   = 9;
+
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final Color[] COLORS = Color.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    private ByteBuffer scratch;
+
+    /**
+     * Create new {@code BinaryCodec}.
+     */
+    public BinaryCodec() {
+        this.scratch = ByteBuffer.allocate(256);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final Message message) throws IOException {
+        while (!writeFrame(scratch, message)) {
+            scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(scratch.remaining());
+        frame.put(scratch);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final Message message, final ByteBuffer target) throws IOException {
+        if (writeFrame(target, message)) {
+            return target;
+        }
+        return encode(message);
+    }
+
+    /**
+     * Writes a complete frame to the start of a buffer and flips it.
+     *
+     * @param out The buffer to write to
+     * @param message The message to write
+     * @return True if the frame fit into the buffer, false otherwise
+     * @throws IOException If the message cannot be represented
+     */
+    private static boolean writeFrame(final ByteBuffer out, final Message message) throws IOException {
+        out.clear();
+        out.position(Frames.HEADER_LENGTH);
+        try {
+            write(out, message);
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+        out.putInt(0, out.position() - Frames.HEADER_LENGTH);
+        out.flip();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Message decode(final ByteBuffer payload) throws IOException {
+        try {
+            Message message = read(payload);
+            if (payload.hasRemaining()) {
+                throw new IOException("Received frame with trailing bytes");
+            }
+            return message;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Received truncated frame", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Received inconsistent frame", e);
+        }
+    }
+
+    /**
+     * Writes the payload of a message.
+     *
+     * @param out The buffer to write to
+     * @param message The message to write
+     * @throws IOException If the message cannot be represented
+     */
+    static void write(final ByteBuffer out, final Message message) throws IOException {
+        out.put((byte)message.getType().ordinal());
+
+        if (message instanceof IntMessage) {
+            out.put(KIND_INT);
+            out.putInt(((IntMessage)message).getContent());
+        } else if (message instanceof StringMessage) {
+            out.put(KIND_STRING);
+            writeString(out, ((StringMessage)message).getContent());
+        } else if (message instanceof CardMessage) {
+            out.put(KIND_CARD);
+            out.put(cardToByte(((CardMessage)message).getContent()));
+        } else if (message instanceof CardsMessage) {
+            Card[] cards = ((CardsMessage)message).getContent();
+            out.put(KIND_CARDS);
+            out.put((byte)cards.length);
+            for (Card card : cards) {
+                out.put(cardToByte(card));
+            }
+        } else if (message instanceof ColorMessage) {
+            out.put(KIND_COLOR);
+            out.put((byte)((ColorMessage)message).getContent().ordinal());
+        } else if (message instanceof GameStatusMessage) {
+            out.put(KIND_STATUS);
+            out.put((byte)((GameStatusMessage)message).getContent().ordinal());
+        } else if (message instanceof ScoresMessage) {
+            out.put(KIND_SCORES);
+            writeScores(out, ((ScoresMessage)message).getContent());
+        } else if (message instanceof SessionMessage) {
+            out.put(KIND_SESSION);
+            out.putLong(((SessionMessage)message).getContent());
+            out.putLong(((SessionMessage)message).getSequence());
+        } else if (message instanceof EventMessage) {
+            out.put(KIND_EVENT);
+            out.putInt(((EventMessage)message).getContent());
+            out.put((byte)((EventMessage)message).getSeat());
+            out.put((byte)((EventMessage)message).getValue());
+        } else if (message instanceof VoidMessage) {
+            out.put(KIND_VOID);
+        } else {
+            throw new IOException(String.format("Cannot encode message of class %s",
+                message.getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * Reads the payload of a message.
+     *
+     * @param in The buffer to read from
+     * @return The message read
+     * @throws IOException If the payload is malformed
+     */
+    static Message read(final ByteBuffer in) throws IOException {
+        MessageType type = lookup(TYPES, in.get());
+        byte kind = in.get();
+
+        switch (kind) {
+            case KIND_VOID:
+                return new VoidMessage(type);
+            case KIND_INT:
+                return new IntMessage(type, in.getInt());
+            case KIND_STRING:
+                return new StringMessage(type, readString(in));
+            case KIND_CARD:
+                return new CardMessage(type, byteToCard(in.get()));
+            case KIND_CARDS:
+                Card[] cards = new Card[in.get() & 0xFF];
+                for (int i = 0; i < cards.length; i++) {
+                    cards[i] = byteToCard(in.get());
+                }
+                return new CardsMessage(type, cards);
+            case KIND_COLOR:
+                return new ColorMessage(type, lookup(COLORS, in.get()));
+            case KIND_STATUS:
+                return new GameStatusMessage(type, lookup(STATUSES, in.get()));
+            case KIND_SCORES:
+                return new ScoresMessage(type, readScores(in));
+            case KIND_SESSION:
+                return new SessionMessage(type, in.getLong(), in.getLong());
+            case KIND_EVENT:
+                return new EventMessage(type, in.getInt(), in.get(), in.get());
+            default:
+                throw new IOException(String.format("Received message of unknown kind %d", kind));
+        }
+    }
+
+    /**
+     * Returns the enum constant with ordinal given by a received byte.
+     *
+     * @param values All constants of the enum
+     * @param ordinal The received ordinal
+     * @return The enum constant
+     * @throws IOException If the ordinal is out of range
+     */
+    private static <T> T lookup(final T[] values, byte ordinal) throws IOException {
+        int i = ordinal & 0xFF;
+        if (i >= values.length) {
+            throw new IOException(String.format("Received invalid ordinal %d", i));
+        }
+        return values[i];
+    }
+
+    /**
+     * Returns the one byte representation of a card, its ordinal.
+     *
+     * @param card The card to convert
+     * @return Byte representing the card
+     */
+    public static byte cardToByte(final Card card) {
+        return (byte)card.getOrdinal();
+    }
+
+    /**
+     * Returns the card represented by a byte.
+     *
+     * @param b Byte representing the card
+     * @return The card
+     * @throws IOException If the byte represents no card
+     */
+    public static Card byteToCard(byte b) throws IOException {
+        int i = b & 0xFF;
+        if (i >= Card.COUNT) {
+            throw new IOException(String.format("Received invalid card %d", i));
+        }
+        return Card.of(i);
+    }
+
+    /**
+     * Writes a string as length and UTF-8 bytes.
+     *
+     * @param out The buffer to write to
+     * @param str The string to write
+     * @throws IOException If the string is too long
+     */
+    private static void writeString(final ByteBuffer out, final String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long to encode");
+        }
+        out.putShort((short)bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(ByteBuffer, String)}.
+     *
+     * @param in The buffer to read from
+     * @return The string
+     */
+    private static String readString(final ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes all entries of a scoreboard, followed by the rounds of its
+     * history, usually only the newest one.
+     *
+     * @param out The buffer to write to
+     * @param scoreBoard The scoreboard to write
+     * @throws IOException If a player name is too long
+     */
+    private static void writeScores(final ByteBuffer out, final ScoreBoard scoreBoard) throws IOException {
+        out.put((byte)scoreBoard.size());
+        for (int seat = 0; seat < scoreBoard.size(); seat++) {
+            writeString(out, scoreBoard.getPlayer(seat));
+            out.put((byte)scoreBoard.getPrediction(seat));
+            out.put((byte)scoreBoard.getTricks(seat));
+            out.putShort((short)scoreBoard.getScore(seat));
+        }
+
+        out.put((byte)scoreBoard.getFirstRound());
+        out.put((byte)scoreBoard.getRounds());
+        for (int round = scoreBoard.getFirstRound(); round < scoreBoard.getRounds(); round++) {
+            for (int seat = 0; seat < scoreBoard.size(); seat++) {
+                out.put((byte)scoreBoard.getRoundPrediction(round, seat));
+                out.put((byte)scoreBoard.getRoundTricks(round, seat));
+                out.putShort((short)scoreBoard.getRoundDelta(round, seat));
+                out.putShort((short)scoreBoard.getRoundTotal(round, seat));
+            }
+        }
+    }
+
+    /**
+     * Reads a scoreboard written by {@link #writeScores(ByteBuffer, ScoreBoard)}.
+     *
+     * @param in The buffer to read from
+     * @return The scoreboard
+     */
+    private static ScoreBoard readScores(final ByteBuffer in) {
+        ScoreBoard scoreBoard = new ScoreBoard();
+        int count = in.get() & 0xFF;
+        for (int i = 0; i < count; i++) {
+            String player = readString(in);
+            scoreBoard.add(player);
+            int seat = scoreBoard.getSeat(player);
+            scoreBoard.setPredictions(seat, in.get());
+            scoreBoard.setTricks(seat, in.get());
+            scoreBoard.setScore(seat, in.getShort());
+        }
+
+        int first = in.get() & 0xFF;
+        int last = in.get() & 0xFF;
+        if (last == first) {
+            scoreBoard.setRoundsPlayed(last);
+            return scoreBoard;
+        }
+        int[] predictions = new int[count];
+        int[] tricks = new int[count];
+        int[] deltas = new int[count];
+        int[] totals = new int[count];
+        for (int round = first; round < last; round++) {
+            for (int seat = 0; seat < count; seat++) {
+                predictions[seat] = in.get();
+                tricks[seat] = in.get();
+                deltas[seat] = in.getShort();
+                totals[seat] = in.getShort();
+            }
+            scoreBoard.addRound(round, predictions, tricks, deltas, totals);
+        }
+        return scoreBoard;
+    }
+}
@@ -0,0 +1,111 @@
+package wizard.common.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct buffers of equal size used to encode outgoing frames.
+ * Buffers are handed out as {@link PooledBuffer}s and return to the pool once
+ * their last reference is released. Buffers which are never released are
+ * simply garbage collected.
+ */
+public class BufferPool {
+
+    /** Size of pooled buffers by default, large enough for every game message. */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /** Number of idle buffers kept by default. */
+    public static final int DEFAULT_MAX_IDLE = 1024;
+
+    private final int bufferSize;
+    private final int maxIdle;
+
+    private final Queue<ByteBuffer> idle;
+    private final AtomicInteger idleCount;
+    private final AtomicInteger allocated;
+
+    /**
+     * Create new {@code BufferPool} with default sizes.
+     */
+    public BufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Create new {@code BufferPool}.
+     *
+     * @param bufferSize Capacity of every buffer in bytes
+     * @param maxIdle Number of returned buffers to keep, further returned
+     *                buffers are left to the garbage collector
+     */
+    public BufferPool(int bufferSize, int maxIdle) {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+
+        this.idle = new ConcurrentLinkedQueue<ByteBuffer>();
+        this.idleCount = new AtomicInteger(0);
+        this.allocated = new AtomicInteger(0);
+    }
+
+    /**
+     * Returns the capacity of the buffers of this pool.
+     *
+     * @return Capacity of every buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns how many buffers this pool had to allocate.
+     * Stays constant once the pool has warmed up.
+     *
+     * @return Number of buffers allocated so far
+     */
+    public int getAllocated() {
+        return allocated.get();
+    }
+
+    /**
+     * Returns how many buffers are currently waiting to be reused.
+     *
+     * @return Number of idle buffers
+     */
+    public int getIdle() {
+        return idleCount.get();
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating a new one if none is
+     * idle. The returned buffer holds one reference.
+     *
+     * @return The pooled buffer
+     */
+    public PooledBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            allocated.incrementAndGet();
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        } else {
+            idleCount.decrementAndGet();
+            buffer.clear();
+        }
+        return new PooledBuffer(this, buffer);
+    }
+
+    /**
+     * Puts a buffer whose last reference has been released back into the
+     * pool.
+     *
+     * @param buffer The buffer to reuse
+     */
+    void recycle(final ByteBuffer buffer) {
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(buffer);
+    }
+}
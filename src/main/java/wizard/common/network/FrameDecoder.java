@@ -0,0 +1,92 @@
+package wizard.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Accumulates bytes read from a non-blocking channel and splits them into
+ * frames.
+ * Bytes are read into a direct buffer and payloads are handed out as views
+ * of it, so frames are decoded in place without copying.
+ */
+public class FrameDecoder {
+
+    private ByteBuffer buffer;
+    private int readIndex;
+    private int required;
+
+    /**
+     * Create new {@code FrameDecoder} with given initial buffer size.
+     *
+     * @param initialCapacity Initial size of the receive buffer in bytes
+     */
+    public FrameDecoder(int initialCapacity) {
+        this.buffer = ByteBuffer.allocateDirect(initialCapacity);
+        this.readIndex = 0;
+        this.required = Frames.HEADER_LENGTH;
+    }
+
+    /**
+     * Reads as many bytes as currently available from the given channel.
+     * Payloads returned by {@link #next()} before this call become invalid.
+     *
+     * @param channel The channel to read from
+     * @return Number of bytes read or -1 if the channel reached end of stream
+     * @throws IOException If reading from the channel fails
+     */
+    public int readFrom(final ReadableByteChannel channel) throws IOException {
+        // Move unconsumed bytes to the front of the buffer
+        int unread = buffer.position() - readIndex;
+        if (readIndex > 0) {
+            ByteBuffer rest = buffer.duplicate();
+            rest.position(readIndex);
+            rest.limit(readIndex + unread);
+            buffer.clear();
+            buffer.put(rest);
+            readIndex = 0;
+        }
+
+        // Make room for at least the next complete frame
+        if (buffer.capacity() < required || !buffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(required, buffer.capacity() * 2));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        return channel.read(buffer);
+    }
+
+    /**
+     * Returns the payload of the next complete frame, if any.
+     * The returned buffer is only valid until the next call to
+     * {@link #readFrom(ReadableByteChannel)}.
+     *
+     * @return The payload of the next frame or {@code null} if no complete
+     *         frame has been received yet
+     * @throws IOException If the next frame header is invalid
+     */
+    public ByteBuffer next() throws IOException {
+        int available = buffer.position() - readIndex;
+        if (available < Frames.HEADER_LENGTH) {
+            required = Frames.HEADER_LENGTH;
+            return null;
+        }
+
+        int length = buffer.getInt(readIndex);
+        Frames.checkLength(length);
+
+        if (available < Frames.HEADER_LENGTH + length) {
+            required = Frames.HEADER_LENGTH + length;
+            return null;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(readIndex + Frames.HEADER_LENGTH + length);
+        payload.position(readIndex + Frames.HEADER_LENGTH);
+        readIndex += Frames.HEADER_LENGTH + length;
+        required = Frames.HEADER_LENGTH;
+        return payload.slice();
+    }
+}
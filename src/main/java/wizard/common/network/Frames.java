@@ -0,0 +1,86 @@
+package wizard.common.network;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import wizard.common.messages.Message;
+
+/**
+ * Constants and helpers for the length-prefixed frame format used on the wire.
+ * Every frame starts with a 4 byte big-endian payload length followed by the
+ * payload itself.
+ */
+public final class Frames {
+
+    /** Number of bytes of the length prefix. */
+    public static final int HEADER_LENGTH = 4;
+
+    /** Largest payload accepted from the other side. */
+    public static final int MAX_PAYLOAD_LENGTH = 1 << 20;
+
+    private Frames() {
+        //
+    }
+
+    /**
+     * Checks that a received payload length is acceptable.
+     *
+     * @param length The payload length read from a frame header
+     * @throws IOException If the length is negative or too large
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+            throw new IOException(String.format("Invalid frame length %d", length));
+        }
+    }
+
+    /**
+     * Reads one frame from a blocking stream.
+     *
+     * @param in The stream to read from
+     * @return Buffer holding the payload of the frame
+     * @throws IOException If reading fails or the frame is malformed
+     */
+    public static ByteBuffer read(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * Encodes a message into a buffer taken from a pool. Falls back to a
+     * newly allocated buffer if there is no pool or the frame does not fit
+     * into a pooled buffer.
+     *
+     * @param codec The codec to encode with
+     * @param message The message to encode
+     * @param pool The pool to take the buffer from or {@code null}
+     * @return Buffer holding the frame with one reference
+     * @throws IOException If the message cannot be encoded
+     */
+    public static PooledBuffer encode(final MessageCodec codec, final Message message,
+            final BufferPool pool) throws IOException {
+        if (pool == null) {
+            return PooledBuffer.wrap(codec.encode(message));
+        }
+
+        PooledBuffer frame = pool.acquire();
+        ByteBuffer encoded;
+        try {
+            encoded = codec.encode(message, frame.buffer());
+        } catch (IOException | RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+
+        if (encoded != frame.buffer()) {
+            frame.release();
+            return PooledBuffer.wrap(encoded);
+        }
+        return frame;
+    }
+}
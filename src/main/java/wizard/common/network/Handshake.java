@@ -0,0 +1,137 @@
+package wizard.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * First frames exchanged on every connection.
+ * The client offers all wire formats it supports, the server answers with
+ * the one both sides use for the rest of the connection.
+ *
+ * Offer:  'W' 'Z' version formats (bit mask of format ids)
+ * Answer: 'W' 'Z' version format (id of chosen format)
+ */
+public final class Handshake {
+
+    private static final byte MAGIC_0 = 'W';
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte VERSION = 3;
+
+    private static final int PAYLOAD_LENGTH = 4;
+
+    private Handshake() {
+        //
+    }
+
+    /**
+     * Creates the frame a client sends to offer wire formats.
+     *
+     * @param formats The wire formats supported by the client
+     * @return Buffer holding the offer frame
+     */
+    public static ByteBuffer offer(final Set<WireFormat> formats) {
+        int mask = 0;
+        for (WireFormat format : formats) {
+            mask |= 1 << format.getId();
+        }
+        return frame(mask);
+    }
+
+    /**
+     * Reads the wire formats offered by a client.
+     *
+     * @param payload Payload of the offer frame
+     * @return The offered wire formats
+     * @throws IOException If the payload is no valid offer
+     */
+    public static Set<WireFormat> readOffer(final ByteBuffer payload) throws IOException {
+        int mask = read(payload);
+
+        Set<WireFormat> formats = EnumSet.noneOf(WireFormat.class);
+        for (WireFormat format : WireFormat.values()) {
+            if ((mask & (1 << format.getId())) != 0) {
+                formats.add(format);
+            }
+        }
+        return formats;
+    }
+
+    /**
+     * Creates the frame a server sends to announce the chosen wire format.
+     *
+     * @param format The chosen wire format
+     * @return Buffer holding the answer frame
+     */
+    public static ByteBuffer answer(final WireFormat format) {
+        return frame(format.getId());
+    }
+
+    /**
+     * Reads the wire format chosen by a server.
+     *
+     * @param payload Payload of the answer frame
+     * @return The chosen wire format
+     * @throws IOException If the payload is no valid answer
+     */
+    public static WireFormat readAnswer(final ByteBuffer payload) throws IOException {
+        WireFormat format = WireFormat.fromId(read(payload));
+        if (format == null) {
+            throw new IOException("Server chose unknown wire format");
+        }
+        return format;
+    }
+
+    /**
+     * Picks the first format of a preference list the client offered.
+     *
+     * @param preferred Formats acceptable to the server, most preferred first
+     * @param offered Formats offered by the client
+     * @return The chosen format or {@code null} if there is no common format
+     */
+    public static WireFormat choose(final Iterable<WireFormat> preferred, final Set<WireFormat> offered) {
+        for (WireFormat format : preferred) {
+            if (offered.contains(format)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a handshake frame with given value.
+     *
+     * @param value The value following the version byte
+     * @return Buffer holding the frame
+     */
+    private static ByteBuffer frame(int value) {
+        ByteBuffer frame = ByteBuffer.allocate(Frames.HEADER_LENGTH + PAYLOAD_LENGTH);
+        frame.putInt(PAYLOAD_LENGTH);
+        frame.put(MAGIC_0);
+        frame.put(MAGIC_1);
+        frame.put(VERSION);
+        frame.put((byte)value);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Checks a handshake payload and returns its value.
+     *
+     * @param payload Payload of a handshake frame
+     * @return The value following the version byte
+     * @throws IOException If the payload is no valid handshake
+     */
+    private static int read(final ByteBuffer payload) throws IOException {
+        if (payload.remaining() != PAYLOAD_LENGTH
+                || payload.get() != MAGIC_0
+                || payload.get() != MAGIC_1) {
+            throw new IOException("Received invalid handshake");
+        }
+        if (payload.get() != VERSION) {
+            throw new IOException("Received handshake of unsupported version");
+        }
+        return payload.get() & 0xFF;
+    }
+}
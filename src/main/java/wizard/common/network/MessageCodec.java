@@ -0,0 +1,53 @@
+package wizard.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import wizard.common.messages.Message;
+
+/**
+ * Converts messages to and from the payload of length-prefixed frames.
+ * A codec may keep state between calls, so every connection needs its own
+ * instance and calls to each direction must not overlap.
+ */
+public interface MessageCodec {
+
+    /**
+     * Encodes a message into a complete frame including its length prefix.
+     *
+     * @param message The message to encode
+     * @return Buffer positioned at the start of the frame and limited to its end
+     * @throws IOException If the message cannot be encoded
+     */
+    public ByteBuffer encode(final Message message) throws IOException;
+
+    /**
+     * Encodes a message into a complete frame including its length prefix,
+     * writing into the given buffer if the frame fits.
+     *
+     * @param message The message to encode
+     * @param target Buffer to write the frame to from its start
+     * @return The target buffer, flipped to hold the frame, or a newly
+     *         allocated buffer if the frame is larger than the target
+     * @throws IOException If the message cannot be encoded
+     */
+    public ByteBuffer encode(final Message message, final ByteBuffer target) throws IOException;
+
+    /**
+     * Decodes the payload of one frame (without length prefix) into a message.
+     *
+     * @param payload Buffer holding exactly the payload of one frame
+     * @return The decoded message
+     * @throws IOException If the payload is malformed
+     */
+    public Message decode(final ByteBuffer payload) throws IOException;
+
+    /**
+     * Returns whether encoding a message does not depend on previously
+     * encoded messages, so one encoded frame can be sent on every connection
+     * using the same wire format.
+     *
+     * @return True if frames of this codec can be shared between connections
+     */
+    public boolean isStateless();
+}
@@ -0,0 +1,102 @@
+package wizard.common.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference counted buffer holding one encoded frame.
+ * Every holder of a reference has to call {@link #release()} exactly once
+ * when done with the buffer, buffers from a {@link BufferPool} are reused
+ * when the last reference is released. Buffers not taken from a pool are
+ * left to the garbage collector.
+ */
+public final class PooledBuffer {
+
+    private final BufferPool pool;
+    private final ByteBuffer root;
+    private final ByteBuffer buffer;
+    private final AtomicInteger refCount;
+
+    /**
+     * Create new {@code PooledBuffer} holding one reference to a buffer of
+     * given pool.
+     *
+     * @param pool The pool the buffer belongs to or {@code null}
+     * @param buffer The buffer
+     */
+    PooledBuffer(final BufferPool pool, final ByteBuffer buffer) {
+        this(pool, buffer, buffer, new AtomicInteger(1));
+    }
+
+    /**
+     * Create new {@code PooledBuffer} sharing the reference count of another
+     * one.
+     *
+     * @param pool The pool the buffer belongs to or {@code null}
+     * @param root The buffer returned to the pool
+     * @param buffer The view of the buffer handed out
+     * @param refCount The shared reference count
+     */
+    private PooledBuffer(final BufferPool pool, final ByteBuffer root, final ByteBuffer buffer,
+            final AtomicInteger refCount) {
+        this.pool = pool;
+        this.root = root;
+        this.buffer = buffer;
+        this.refCount = refCount;
+    }
+
+    /**
+     * Wraps a buffer not belonging to any pool.
+     *
+     * @param buffer The buffer to wrap
+     * @return Buffer holding one reference
+     */
+    public static PooledBuffer wrap(final ByteBuffer buffer) {
+        return new PooledBuffer(null, buffer);
+    }
+
+    /**
+     * Returns the underlying buffer. Must not be used after releasing.
+     *
+     * @return The buffer
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of references currently held.
+     *
+     * @return Number of references
+     */
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Adds a reference and returns a view of the same content with its own
+     * position and limit, so every connection can write it independently.
+     *
+     * @return View of this buffer holding the new reference
+     */
+    public PooledBuffer retainedDuplicate() {
+        if (refCount.getAndIncrement() <= 0) {
+            refCount.getAndDecrement();
+            throw new IllegalStateException("Buffer has already been released");
+        }
+        return new PooledBuffer(pool, root, buffer.duplicate(), refCount);
+    }
+
+    /**
+     * Releases one reference. The buffer goes back to its pool once all
+     * references have been released.
+     */
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0 && pool != null) {
+            pool.recycle(root);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Buffer has been released too often");
+        }
+    }
+}
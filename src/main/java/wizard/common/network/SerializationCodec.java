@@ -0,0 +1,346 @@
+package wizard.common.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import wizard.common.Settings;
+import wizard.common.messages.Message;
+
+/**
+ * {@code MessageCodec} using java serialization.
+ * Both directions keep one object stream open for the whole connection, every
+ * frame carries exactly the bytes written for one message. The stream header
+ * is sent as part of the first frame.
+ *
+ * Messages and cards are immutable, so objects already known to the other
+ * side are sent as back references. The stream is only reset after a number
+ * of messages or once it remembers too many objects.
+ */
+public class SerializationCodec implements MessageCodec {
+
+    /** Number of messages after which the stream gets reset by default. */
+    public static final int DEFAULT_RESET_INTERVAL = 1024;
+
+    /** Number of remembered objects after which the stream gets reset by default. */
+    public static final int DEFAULT_MAX_HANDLES = 8192;
+
+    /**
+     * Object stream counting the objects it has assigned handles to.
+     */
+    private static class CountingObjectOutputStream extends ObjectOutputStream {
+
+        private int handles;
+
+        /**
+         * Create new {@code CountingObjectOutputStream} writing to given stream.
+         *
+         * @param out The stream to write to
+         * @throws IOException If the stream header cannot be written
+         */
+        CountingObjectOutputStream(final OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        /**
+         * Called once for every object which is not yet known to the stream.
+         *
+         * @param obj The object to be written
+         * @return The given object
+         */
+        @Override
+        protected Object replaceObject(final Object obj) {
+            handles++;
+            return obj;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            handles = 0;
+        }
+    }
+
+    /**
+     * Output stream discarding everything but the number of written bytes.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * Output stream which turns its content into a length-prefixed frame.
+     */
+    private static class FrameOutputStream extends ByteArrayOutputStream {
+
+        /**
+         * Create new {@code FrameOutputStream} with given initial size.
+         *
+         * @param size Initial size of the internal array
+         */
+        FrameOutputStream(int size) {
+            super(size);
+        }
+
+        /**
+         * Returns a copy of the current content as a frame, filling in the
+         * length prefix.
+         *
+         * @return Buffer holding the frame
+         */
+        ByteBuffer toFrame() {
+            ByteBuffer frame = ByteBuffer.wrap(toByteArray());
+            frame.putInt(0, count - Frames.HEADER_LENGTH);
+            return frame;
+        }
+
+        /**
+         * Copies the current content as a frame into the given buffer if it
+         * fits, filling in the length prefix.
+         *
+         * @param target The buffer to write the frame to from its start
+         * @return True if the frame fit into the buffer, false otherwise
+         */
+        boolean copyFrameTo(final ByteBuffer target) {
+            if (target.capacity() < count) {
+                return false;
+            }
+            target.clear();
+            target.put(buf, 0, count);
+            target.putInt(0, count - Frames.HEADER_LENGTH);
+            target.flip();
+            return true;
+        }
+    }
+
+    /**
+     * Input stream reading from the payload of the current frame.
+     * Running out of bytes means the frame was truncated.
+     */
+    private static class FrameInputStream extends InputStream {
+
+        private ByteBuffer payload = ByteBuffer.allocate(0);
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() {
+            if (!payload.hasRemaining()) {
+                return -1;
+            }
+            return payload.get() & 0xFF;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(final byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!payload.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, payload.remaining());
+            payload.get(b, off, n);
+            return n;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available() {
+            return payload.remaining();
+        }
+    }
+
+    private final int resetInterval;
+    private final int maxHandles;
+
+    private final FrameOutputStream bytes;
+    private final FrameInputStream feed;
+
+    private CountingObjectOutputStream out;
+    private ObjectInputStream in;
+    private int sinceReset;
+
+    private final CountingOutputStream baselineBytes;
+    private ObjectOutputStream baseline;
+    private long bytesSaved;
+
+    /**
+     * Create new {@code SerializationCodec} with default reset thresholds.
+     */
+    public SerializationCodec() {
+        this(DEFAULT_RESET_INTERVAL, DEFAULT_MAX_HANDLES);
+    }
+
+    /**
+     * Create new {@code SerializationCodec} with given reset thresholds.
+     * A reset interval of 1 resets the stream before every message.
+     *
+     * @param resetInterval Number of messages after which to reset the stream
+     * @param maxHandles Number of remembered objects after which to reset the stream
+     */
+    public SerializationCodec(int resetInterval, int maxHandles) {
+        this.resetInterval = resetInterval;
+        this.maxHandles = maxHandles;
+
+        this.bytes = new FrameOutputStream(512);
+        this.feed = new FrameInputStream();
+        this.sinceReset = 0;
+
+        this.baselineBytes = new CountingOutputStream();
+        this.bytesSaved = 0;
+    }
+
+    /**
+     * Returns how many bytes were saved compared to resetting the stream
+     * before every message. Only counted if
+     * {@link Settings#MEASURE_SERIALIZATION_SAVINGS} is enabled.
+     *
+     * @return Number of bytes saved so far
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final Message message) throws IOException {
+        writeMessage(message);
+        return bytes.toFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final Message message, final ByteBuffer target) throws IOException {
+        writeMessage(message);
+        if (bytes.copyFrameTo(target)) {
+            return target;
+        }
+        return bytes.toFrame();
+    }
+
+    /**
+     * Writes a message to the object stream, leaving header space and the
+     * bytes of the message in the frame stream.
+     *
+     * @param message The message to write
+     * @throws IOException If the message cannot be serialized
+     */
+    private void writeMessage(final Message message) throws IOException {
+        bytes.reset();
+        for (int i = 0; i < Frames.HEADER_LENGTH; i++) {
+            bytes.write(0);
+        }
+
+        if (out == null) {
+            // Stream header becomes part of the first frame
+            out = new CountingObjectOutputStream(bytes);
+        } else if (sinceReset >= resetInterval || out.handles >= maxHandles) {
+            // Keep the object tables of both sides from growing without bound
+            out.reset();
+            sinceReset = 0;
+        }
+        out.writeObject(message);
+        out.flush();
+        sinceReset++;
+
+        if (Settings.MEASURE_SERIALIZATION_SAVINGS) {
+            measure(message, bytes.size() - Frames.HEADER_LENGTH);
+        }
+    }
+
+    /**
+     * Counts how many bytes the given message would have needed if the
+     * stream was reset before every message.
+     *
+     * @param message The message just encoded
+     * @param actual Number of bytes the message actually needed
+     * @throws IOException If the message cannot be serialized
+     */
+    private void measure(final Message message, int actual) throws IOException {
+        long before = baselineBytes.count;
+        if (baseline == null) {
+            baseline = new ObjectOutputStream(baselineBytes);
+        } else {
+            baseline.reset();
+        }
+        baseline.writeObject(message);
+        baseline.flush();
+
+        bytesSaved += (baselineBytes.count - before) - actual;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStateless() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Message decode(final ByteBuffer payload) throws IOException {
+        feed.payload = payload;
+
+        if (in == null) {
+            in = new ObjectInputStream(feed);
+        }
+
+        Object object;
+        try {
+            object = in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Received object of unknown class", e);
+        } catch (RuntimeException e) {
+            // Thrown by readObject or readResolve of a received class
+            throw new IOException("Received malformed message", e);
+        }
+
+        if (!(object instanceof Message)) {
+            throw new IOException("Received malformed message (wrong object type)");
+        }
+        if (payload.hasRemaining()) {
+            throw new IOException("Received frame with trailing bytes");
+        }
+
+        return (Message)object;
+    }
+}
@@ -0,0 +1,78 @@
+package wizard.common.network;
+
+import java.io.IOException;
+
+import wizard.common.messages.Message;
+
+/**
+ * Message sent to many connections at once.
+ * Connections using a stateless codec share one encoded frame, which is
+ * created by the first of them; all others encode the message themselves.
+ * The sender calls {@link #release()} once the message has been handed to
+ * all connections, the shared frame returns to its pool when the last
+ * connection has written it.
+ */
+public final class SharedMessage {
+
+    private final Message message;
+
+    private MessageCodec sharedCodec;
+    private PooledBuffer sharedFrame;
+
+    /**
+     * Create new {@code SharedMessage} for given message.
+     *
+     * @param message The message to send
+     */
+    public SharedMessage(final Message message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the message.
+     *
+     * @return The message
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns a frame of this message for a connection using given codec.
+     * The returned buffer may share its content with other connections but
+     * has its own position and limit. The caller owns one reference.
+     *
+     * @param codec The codec of the connection
+     * @param pool The pool to take buffers from or {@code null}
+     * @return Buffer holding the frame
+     * @throws IOException If the message cannot be encoded
+     */
+    public PooledBuffer frameFor(final MessageCodec codec, final BufferPool pool) throws IOException {
+        if (!codec.isStateless()) {
+            return Frames.encode(codec, message, pool);
+        }
+
+        synchronized(this) {
+            if (sharedFrame == null) {
+                sharedCodec = codec;
+                sharedFrame = Frames.encode(codec, message, pool);
+            } else if (sharedCodec.getClass() != codec.getClass()) {
+                // Another stateless format, not worth caching
+                return Frames.encode(codec, message, pool);
+            }
+            return sharedFrame.retainedDuplicate();
+        }
+    }
+
+    /**
+     * Releases the reference to the shared frame held by this message.
+     * Connections still writing the frame keep their own references.
+     */
+    public synchronized void release() {
+        if (sharedFrame != null) {
+            sharedFrame.release();
+            sharedFrame = null;
+            sharedCodec = null;
+        }
+    }
+}
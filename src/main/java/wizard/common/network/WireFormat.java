@@ -0,0 +1,60 @@
+package wizard.common.network;
+
+/**
+ * Encodings of messages which client and server can agree on in the
+ * {@link Handshake}.
+ */
+public enum WireFormat {
+    SERIALIZATION (0),
+    BINARY        (1);
+
+    private final int id;
+
+    /**
+     * Creates a new {@code WireFormat} enum with given id.
+     *
+     * @param id The id used for this format in the handshake
+     */
+    WireFormat(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the id used for this format in the handshake.
+     *
+     * @return The id of this format
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the format with a given handshake id.
+     *
+     * @param id The id to look up
+     * @return The format with given id or {@code null} if there is none
+     */
+    public static WireFormat fromId(int id) {
+        for (WireFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a new codec for one connection using this format.
+     *
+     * @return New codec instance
+     */
+    public MessageCodec newCodec() {
+        switch (this) {
+            case BINARY:
+                return new BinaryCodec();
+            case SERIALIZATION:
+            default:
+                return new SerializationCodec();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package wizard.server;
+
+import java.util.Collection;
+import java.util.List;
+
+import wizard.common.GameStatus;
+import wizard.common.cards.Card;
+import wizard.common.game.ScoreBoard;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.ScoresMessage;
+import wizard.common.network.SharedMessage;
+
+/**
+ * Sends the same message to many players.
+ * Every message is encoded once per wire format and the encoded frame is
+ * handed to all players using that format. Sending only queues the frame
+ * at every connection, so fan-out runs on the calling shard thread and all
+ * messages of a game leave in the order the game sent them.
+ */
+public class Broadcaster {
+
+    /**
+     * Create new {@code Broadcaster}.
+     */
+    public Broadcaster() {
+    }
+
+    /**
+     * Sends updated scores to given players. Nothing is copied if there
+     * is nobody to send to.
+     *
+     * @param players The players to send to
+     * @param scoreBoard The current scores
+     */
+    public void updateScores(final Collection<Player> players, final ScoreBoard scoreBoard) {
+        if (!players.isEmpty()) {
+            broadcast(players, new ScoresMessage(MessageType.UPDATE_SCORES, scoreBoard));
+        }
+    }
+
+    /**
+     * Sends updated trick to given players.
+     *
+     * @param players The players to send to
+     * @param trick The cards of the current trick
+     */
+    public void updateTrick(final Collection<Player> players, final List<Card> trick) {
+        if (!players.isEmpty()) {
+            broadcast(players, new CardsMessage(MessageType.UPDATE_TRICK, trick.toArray(new Card[trick.size()])));
+        }
+    }
+
+    /**
+     * Sends new game status to given players.
+     *
+     * @param players The players to send to
+     * @param gameStatus The new game status
+     */
+    public void updateGameStatus(final Collection<Player> players, final GameStatus gameStatus) {
+        if (!players.isEmpty()) {
+            broadcast(players, new GameStatusMessage(MessageType.GAME_STATUS, gameStatus));
+        }
+    }
+
+    /**
+     * Sends a message to given players.
+     *
+     * @param players The players to send to
+     * @param message The message to send
+     */
+    public void broadcast(final Collection<Player> players, final Message message) {
+        SharedMessage shared = new SharedMessage(message);
+
+        try {
+            players.forEach(p -> p.send(shared));
+        } finally {
+            shared.release();
+        }
+    }
+}
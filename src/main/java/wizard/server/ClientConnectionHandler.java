@@ -1,11 +1,9 @@
 package wizard.server;
 
-import java.io.BufferedInputStream;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Set;
 
 import wizard.common.ConnectionHandler;
 import wizard.common.GameStatus;
@@ -14,72 +12,397 @@ import wizard.common.cards.Card;
 import wizard.common.game.Color;
 import wizard.common.game.Hand;
 import wizard.common.game.ScoreBoard;
-import wizard.common.messages.CardMessage;
-import wizard.common.messages.IntMessage;
 import wizard.common.messages.Message;
 import wizard.common.messages.MessageType;
+import wizard.common.messages.SessionMessage;
+import wizard.common.network.BufferPool;
+import wizard.common.network.Handshake;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.SharedMessage;
+import wizard.common.network.WireFormat;
+import wizard.server.network.Connection;
+import wizard.server.network.FrameHandler;
 
 /**
  * Class handling receiving of message from client on server side and putting
  * them into a buffer for consumption.
  * Also provides methods for sending messages to client.
  */
-public class ClientConnectionHandler extends ConnectionHandler {
+public class ClientConnectionHandler extends ConnectionHandler implements FrameHandler {
+
+    private final Connection connection;
+    private final List<WireFormat> formats;
+    private final Lobby lobby;
+
+    private volatile String name;
+    private volatile boolean eventSync;
+    private volatile Table table;
+
+    private volatile Player player;
+    private volatile Session session;
+    private volatile Spectators watching;
 
     /**
      * Create new {@code PlayerConnectionHandler} object with given connection.
      *
-     * @param socket Socket handling the connection to the client
+     * @param connection Connection to the client
+     * @param formats The wire formats the server accepts, most preferred first
+     * @param pool The pool to encode frames into
+     * @param lobby The lobby handling messages of this client outside of games
      */
-    public ClientConnectionHandler(final Socket socket) {
-        super(socket);
+    public ClientConnectionHandler(final Connection connection, final List<WireFormat> formats,
+            final BufferPool pool, final Lobby lobby) {
+        super(pool);
+        this.connection = connection;
+        this.formats = formats;
+        this.lobby = lobby;
+        this.name = null;
+        this.eventSync = false;
+        this.table = null;
+        this.player = null;
+        this.session = null;
+        this.watching = null;
     }
 
     /**
-     * Listen for messages from client. Messages will be handled by receive().
-     * Will block indefinitely. Meant to be run in its own thread.
+     * {@inheritDoc}
      */
     @Override
-    public void run() {
-        Thread.currentThread().setName(String.format("Player connection thread '%s'", this));
-
-        try (ObjectInputStream in = new ObjectInputStream(
-                new BufferedInputStream(socket.getInputStream()))) {
-            while (true) {
-                // Receive object
-                Object object = in.readObject();
-
-                // Check if received object is of type message,
-                // add object to buffer and notify waiting threads
-                if (object instanceof Message) {
-                    bufferPut((Message)object);
-                    synchronized(this) {
-                        notify();
-                    }
-                } else {
-                    System.err.println("Received malformed message (wrong object type)");
+    public String toString() {
+        return connection.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void write(final List<PooledBuffer> frames) throws IOException {
+        connection.write(frames);
+    }
+
+    /**
+     * Returns the number of write calls made to the socket of this client.
+     *
+     * @return Number of write calls so far
+     */
+    public long getWriteCalls() {
+        return connection.getWriteCalls();
+    }
+
+    /**
+     * Returns the name the client chose.
+     *
+     * @return The name of the client or {@code null} if none has been chosen
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name the client wants to play with.
+     *
+     * @param name The name of the client
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns whether the client wants to be sent game events instead of
+     * the whole state after every change.
+     *
+     * @return True if the client syncs by events, false otherwise
+     */
+    public boolean isEventSync() {
+        return eventSync;
+    }
+
+    /**
+     * Sets whether the client wants to be sent game events instead of the
+     * whole state after every change.
+     *
+     * @param eventSync True to sync by events
+     */
+    public void setEventSync(boolean eventSync) {
+        this.eventSync = eventSync;
+    }
+
+    /**
+     * Returns the table the client is seated at.
+     *
+     * @return The table of the client or {@code null} if the client is in the lobby
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * Tells the client it has been seated at a table.
+     *
+     * @param table The table the client is seated at
+     */
+    public void joinedTable(final Table table) {
+        this.table = table;
+
+        try {
+            send(MessageType.TABLE_JOINED, table.getId());
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not send joined table to client '%s'!\n", this);
+            e.printStackTrace();
+        }
+        updateGameStatus(GameStatus.WAITING_PLAYERS);
+    }
+
+    /**
+     * Returns whether the client is watching a table.
+     *
+     * @return True if watching, false otherwise
+     */
+    public boolean isWatching() {
+        return watching != null;
+    }
+
+    /**
+     * Tells the client it is watching a table.
+     *
+     * @param spectators The spectators of the table
+     * @param tableId The id of the watched table
+     */
+    public void startedWatching(final Spectators spectators, int tableId) {
+        this.watching = spectators;
+
+        try {
+            send(MessageType.TABLE_JOINED, tableId);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not send watched table to client '%s'!\n", this);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the client to the lobby after the game it watched is over.
+     */
+    public void stoppedWatching() {
+        this.watching = null;
+    }
+
+    /**
+     * Sets the player this client plays as. Game messages of the client are
+     * passed to the player.
+     *
+     * @param player The player of this client
+     */
+    public void setPlayer(final Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Starts a resumable session. Tells the client the token of the session,
+     * all messages sent afterwards are recorded in the session.
+     *
+     * @param session The new session of the client
+     */
+    public void startSession(final Session session) {
+        try {
+            send(new SessionMessage(MessageType.SESSION, session.getToken(), 0));
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not send session to client '%s'!\n", this);
+            e.printStackTrace();
+        }
+        this.session = session;
+    }
+
+    /**
+     * Continues a session on this connection after the connection of the
+     * session dropped. Sends the messages the client missed, or tells the
+     * client to expect the whole state if they are not kept anymore.
+     * Must run on the executor of the game of the session.
+     *
+     * @param session The resumed session
+     * @param acknowledged The number of the last message the client received
+     * @param missed The messages sent after that one or {@code null}
+     */
+    public void resumeSession(final Session session, long acknowledged, final List<Message> missed) {
+        // Messages of the game get collected like those of other players
+        beginBatch();
+        try {
+            long from = (missed == null) ? session.getSequence() : acknowledged;
+            send(new SessionMessage(MessageType.SESSION, session.getToken(), from));
+            if (missed != null) {
+                for (Message message : missed) {
+                    send(message);
                 }
             }
-        } catch (EOFException e) {
-            System.err.println("EOFException - Error when receiving message with readObject()!");
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not resume session of client '%s'!\n", this);
             e.printStackTrace();
+        }
+
+        this.table = session.getTable();
+        this.session = session;
+    }
+
+    /**
+     * Records every message sent during a session.
+     *
+     * @param message The message being sent
+     */
+    @Override
+    protected void sent(final Message message) {
+        Session current = session;
+        if (current != null) {
+            current.record(message);
+        }
+    }
+
+    /**
+     * Returns the client to the lobby after leaving its table.
+     * Drops everything the client sent for the game at the table.
+     */
+    public void leftTable() {
+        this.table = null;
+        this.player = null;
+        this.session = null;
+        mailbox.clear();
+    }
+
+    /**
+     * Sends the list of tables to the client.
+     *
+     * @param tables Description of all tables
+     */
+    public void sendTables(final String tables) {
+        try {
+            send(MessageType.TABLES, tables);
         } catch (IOException e) {
-            System.err.println("IOException - Error when receiving message with readObject()!");
+            System.err.printf("IOException - Could not send tables to client '%s'!\n", this);
             e.printStackTrace();
-            try {
-                out.close();
-            } catch (IOException e1) {
-                e1.printStackTrace();
+        }
+    }
+
+    /**
+     * Passes lobby messages to the lobby and game messages to the player of
+     * this client. Messages received outside of a game are put into the
+     * mailbox.
+     *
+     * @param message The received message
+     */
+    @Override
+    protected void received(final Message message) {
+        Player current = player;
+        if (lobby != null && Lobby.isLobbyMessage(message.getType())) {
+            lobby.handle(this, message);
+        } else if (current != null) {
+            current.received(message);
+        } else {
+            mailbox.put(message);
+        }
+    }
+
+    /**
+     * Returns the largest number of bytes waiting to be written to this
+     * client at once so far.
+     *
+     * @return Largest number of queued bytes
+     */
+    public long getMaxQueuedBytes() {
+        return connection.getOutboundQueue().getMaxBytes();
+    }
+
+    /**
+     * Returns whether this client does not keep up with reading messages.
+     *
+     * @return True if the client has been flagged as slow, false otherwise
+     */
+    public boolean isSlow() {
+        return connection.getOutboundQueue().isSlow();
+    }
+
+    /**
+     * Returns whether the connection to this client is still open.
+     *
+     * @return True if connected, false otherwise
+     */
+    public boolean isConnected() {
+        return !connection.isClosed();
+    }
+
+    /**
+     * Closes the connection to this client after writing queued messages.
+     */
+    public void disconnect() {
+        connection.close();
+    }
+
+    /**
+     * Handle frame received from client. The first frame is the handshake,
+     * all following messages will be put into buffer.
+     *
+     * @param payload The payload of the received frame
+     */
+    @Override
+    public void frameReceived(final ByteBuffer payload) {
+        if (isNegotiated()) {
+            receive(payload);
+            return;
+        }
+
+        try {
+            Set<WireFormat> offered = Handshake.readOffer(payload);
+            WireFormat format = Handshake.choose(formats, offered);
+            if (format == null) {
+                System.err.printf("Client '%s' supports no accepted wire format %s\n", this, offered);
+                connection.close();
+                return;
+            }
+
+            write(Handshake.answer(format));
+            useFormat(format);
+
+            if (Settings.DEBUG_NETWORK_COMMUNICATION) {
+                System.out.printf("Using wire format %s for client '%s'\n", format, this);
             }
-        } catch (ClassNotFoundException e) {
-            System.err.println("ClassNotFoundException - Error when receiving message with readObject()!");
+        } catch (IOException e) {
+            System.err.printf("IOException - Handshake with client '%s' failed!\n", this);
             e.printStackTrace();
-            try {
-                out.close();
-            } catch (IOException e1) {
-                e1.printStackTrace();
+            connection.close();
+        }
+    }
+
+    /**
+     * Handle closed connection to client. The session of the client is kept
+     * for a while, so the client can resume it.
+     *
+     * @param cause The error which caused the connection to close or {@code null}
+     */
+    @Override
+    public void connectionClosed(final Exception cause) {
+        Player current = player;
+        Session resumable = session;
+        if (current != null) {
+            if (lobby != null && resumable != null) {
+                lobby.suspend(resumable, this);
+            } else {
+                // Nobody is going to answer anymore
+                current.disconnected();
             }
         }
+
+        Spectators watched = watching;
+        if (watched != null) {
+            watched.remove(this);
+        }
+
+        if (lobby != null) {
+            lobby.leave(this);
+        }
+
+        if (cause == null) {
+            System.err.printf("Connection to client '%s' has been closed\n", this);
+        } else {
+            System.err.printf("Exception - Connection to client '%s' failed!\n", this);
+            cause.printStackTrace();
+        }
     }
 
     /**
@@ -107,6 +430,8 @@ public class ClientConnectionHandler extends ConnectionHandler {
      * @param trumpColor The trump color to send to client
      */
     public void updateTrump(final Card trumpCard, final Color trumpColor) {
+        beginBatch();
+
         // Send trump card
         if (Settings.DEBUG_NETWORK_COMMUNICATION) {
             System.out.printf("Sending updated trump card to player '%s'...\n", this);
@@ -128,6 +453,8 @@ public class ClientConnectionHandler extends ConnectionHandler {
             System.err.printf("IOException - Could not send updated trump color to player '%s'!\n", this);
             e.printStackTrace();
         }
+
+        endBatchQuietly();
     }
 
     public void updateTrick(final List<Card> trick) {
@@ -174,107 +501,90 @@ public class ClientConnectionHandler extends ConnectionHandler {
         }
     }
 
-    public int askPrediction(int upperBorder, int notAllowed) {
+    /**
+     * Sends a message to client prompting player to make a prediction.
+     * The answer is passed to the player of this client.
+     */
+    public void askPrediction() {
         if (Settings.DEBUG_NETWORK_COMMUNICATION) {
             System.out.printf("Asking client '%s' for prediction...\n", this);
         }
 
-        // Ask client for prediction
         try {
             send(MessageType.ASK_PREDICTION);
         } catch (IOException e) {
             System.err.printf("IOException - Could not ask player '%s' for prediction!\n", this);
             e.printStackTrace();
         }
-
-        while (true) {
-            synchronized(this) {
-                // Wait for message from client
-                while (bufferIsEmpty()) {
-                    if (Settings.DEBUG_NETWORK_COMMUNICATION) {
-                        System.out.printf("Waiting for answer of client '%s'...\n", this);
-                    }
-
-                    try {
-                        wait();
-                    } catch (InterruptedException e) {
-                        System.err.println("Thread interrupted!");
-                        e.printStackTrace();
-                        Thread.currentThread().interrupt();
-                    }
-                }
-
-                // Check if received message is expected message
-                Message peek = buffer.peek();
-                if (!(peek instanceof IntMessage)
-                        || peek.getType() != MessageType.ANSWER_PREDICTION) {
-
-                    // Received message is unexpected
-                    // -> wake up other thread and go back to sleep
-                    System.err.println("Received message object from client is instance of unexpected class");
-                    notify();
-                } else {
-                    // Received message is expected message
-                    // -> return prediction
-                    IntMessage msg = (IntMessage)buffer.pop();
-                    return msg.getContent();
-                }
-            }
-        }
     }
 
     /**
      * Sends a message to client prompting player to select a card.
-     * Will block until player has chosen a card.
-     *
-     * @return The card the player wants to play
+     * The answer is passed to the player of this client.
      */
-    public Card askTrickCard() {
+    public void askTrickCard() {
         if (Settings.DEBUG_NETWORK_COMMUNICATION) {
             System.out.printf("Asking client '%s' for trick card...\n", this);
         }
 
-        // Ask client for card
         try {
             send(MessageType.ASK_TRICK_CARD);
         } catch (IOException e) {
             System.err.printf("IOException - Could not ask player '%s' for trick card!\n", this);
             e.printStackTrace();
         }
+    }
 
-        while (true) {
-            synchronized(this) {
-                // Wait for message from client
-                while (bufferIsEmpty()) {
-                    if (Settings.DEBUG_NETWORK_COMMUNICATION) {
-                        System.out.printf("Waiting for answer of client '%s'...\n", this);
-                    }
-
-                    try {
-                        wait();
-                    } catch (InterruptedException e) {
-                        System.err.println("Thread interrupted!");
-                        e.printStackTrace();
-                        Thread.currentThread().interrupt();
-                    }
-                }
+    /**
+     * Ends a batch and writes all collected messages, logging failures
+     * unless the connection has been closed.
+     */
+    public void endBatchQuietly() {
+        try {
+            endBatch();
+        } catch (IOException e) {
+            if (!isConnected()) {
+                // Closing has been reported already
+                return;
+            }
+            System.err.printf("IOException - Could not send messages to player '%s'!\n", this);
+            e.printStackTrace();
+        }
+    }
 
-                // Check if received message is expected message
-                Message peek = buffer.peek();
-                if (!(peek instanceof CardMessage)
-                        || peek.getType() != MessageType.ANSWER_TRICK_CARD) {
-
-                    // Received message is unexpected
-                    // -> wake up other thread and go back to sleep
-                    System.err.println("Received message object from client is instance of unexpected class");
-                    notify();
-                } else {
-                    // Received message is expected message
-                    // -> return prediction
-                    CardMessage msg = (CardMessage)buffer.pop();
-                    return msg.getContent();
-                }
+    /**
+     * Writes all collected messages, logging failures unless the connection
+     * has been closed.
+     */
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            if (!isConnected()) {
+                // Closing has been reported already
+                return;
             }
+            System.err.printf("IOException - Could not send messages to player '%s'!\n", this);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Send message shared with other clients to connected client.
+     *
+     * @param message The message to send
+     */
+    public void sendShared(final SharedMessage message) {
+        if (Settings.DEBUG_NETWORK_COMMUNICATION) {
+            System.out.printf("Sending %s to player '%s'...\n", message.getMessage().getType(), this);
+        }
+
+        try {
+            send(message);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not send %s to player '%s'!\n",
+                message.getMessage().getType(), this);
+            e.printStackTrace();
         }
     }
 
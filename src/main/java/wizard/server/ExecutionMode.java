@@ -0,0 +1,68 @@
+package wizard.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threading model of the server.
+ */
+public enum ExecutionMode {
+    /** Connections are served by a few selector threads, games run on platform threads. */
+    NIO,
+
+    /** Every connection has its own blocking reader thread, all threads are platform threads. */
+    PLATFORM_THREADS,
+
+    /** Every connection has its own blocking reader thread, all threads are virtual threads. */
+    VIRTUAL_THREADS;
+
+    /**
+     * Returns whether connections are served by selector threads.
+     *
+     * @return True if connections use non-blocking I/O
+     */
+    public boolean usesSelector() {
+        return this == NIO;
+    }
+
+    /**
+     * Returns a factory for connection reader and game threads.
+     * Platform threads are created as daemon threads.
+     *
+     * @return Factory creating threads of this mode
+     * @throws UnsupportedOperationException If virtual threads are requested
+     *         but not supported by the running JVM
+     */
+    public ThreadFactory threadFactory() {
+        if (this != VIRTUAL_THREADS) {
+            return r -> {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        // Looked up reflectively, so the server still builds for older JVMs
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory)factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or newer", e);
+        }
+    }
+
+    /**
+     * Returns whether this mode can be used in the running JVM.
+     *
+     * @return True if this mode is supported
+     */
+    public boolean isSupported() {
+        try {
+            threadFactory();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
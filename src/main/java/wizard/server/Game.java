@@ -1,7 +1,14 @@
 package wizard.server;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import wizard.common.GameStatus;
 import wizard.common.cards.Card;
@@ -10,30 +17,340 @@ import wizard.common.game.Deck;
 import wizard.common.game.Hand;
 import wizard.common.game.ScoreBoard;
 import wizard.common.game.Trick;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.EventMessage;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.network.BinaryCodec;
+import wizard.server.journal.Event;
+import wizard.server.journal.GameRecorder;
+import wizard.server.journal.GameState;
 
 /**
  * {@code Game} object representing a wizard game.
- * Contains all current game status information
+ * Contains all current game status information.
+ * The game is a state machine advanced by events: answers of players and
+ * expired turns. Events are handled one after the other on the executor of
+ * the game, so a game only uses a thread while handling an event and never
+ * waits for a player.
+ * Players syncing by events are sent the whole state only at the start of
+ * a round and when they ask for it; in between they are sent numbered
+ * events (predictions, cards played, tricks taken) and apply them to the
+ * state they hold. All other players are sent the whole changed state
+ * after every step.
  */
 public class Game {
 
+    /**
+     * Steps of a game. Rounds go through all steps but {@code OVER} in order.
+     */
+    public enum State {
+        DEALING,
+        TRUMP,
+        PREDICTING,
+        PLAYING,
+        SCORING,
+        OVER
+    }
+
     private final List<Player> players;
+    private final List<Player> eventPlayers;
+    private final List<Player> statePlayers;
     private final ScoreBoard scoreBoard;
-
+    private final Broadcaster broadcaster;
+    private final HashedWheelTimer timer;
+    private final long turnTimeout;
+    private final Executor executor;
+    private final GameRecorder recorder;
+    private final Spectators spectators;
+    private final CompletableFuture<Void> finished;
+
+    private volatile State state = State.DEALING;
     private int currentPlayer = 0;
+    private int tricksPlayed = 0;
+    private int round = 0;
+    private int turns = 0;
+    private int predictionSum = 0;
+    private int roundTricks = 0;
+    private int events = 0;
+    private final long seed;
+    private final SplittableRandom random;
     private Deck deck;
     private Color trumpColor;
     private Card trumpCard;
+    private Trick trick;
+    private Turn turn;
 
     /**
      * Create new {@code Game} with given players.
      *
      * @param players List of players playing this {@code Game}
+     * @param broadcaster The broadcaster sending messages to all players
+     * @param timer The timer watching turn deadlines
+     * @param turnTimeout Time in milliseconds each player has for a turn,
+     *                    0 for no deadline
+     * @param executor Runs the events of this game one after the other
+     * @param recorder Writes every step of this game to the journal
+     * @param spectators The clients watching this game
+     * @param seed The seed all decks of this game are shuffled with
      */
-    public Game(List<Player> players) {
+    public Game(List<Player> players, final Broadcaster broadcaster, final HashedWheelTimer timer,
+            long turnTimeout, final Executor executor, final GameRecorder recorder, final Spectators spectators,
+            long seed) {
         this.players = players;
         this.scoreBoard = new ScoreBoard();
+        this.broadcaster = broadcaster;
+        this.timer = timer;
+        this.turnTimeout = turnTimeout;
+        this.executor = executor;
+        this.recorder = recorder;
+        this.spectators = spectators;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.finished = new CompletableFuture<Void>();
         players.stream().map(Player::getName).forEach(scoreBoard::add);
+
+        this.eventPlayers = new ArrayList<Player>(players.size());
+        this.statePlayers = new ArrayList<Player>(players.size());
+        for (Player p : players) {
+            (p.isEventSync() ? eventPlayers : statePlayers).add(p);
+        }
+    }
+
+    /**
+     * Returns the current step of this game.
+     *
+     * @return The state of this game
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the seed all decks of this game are shuffled with. A game
+     * started with the same seed deals the same cards.
+     *
+     * @return The seed of this game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the clients watching this game.
+     *
+     * @return The spectators of this game
+     */
+    public Spectators getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * Returns a future completed when this game is over.
+     *
+     * @return Future completed at the end of the last round, or
+     *         exceptionally if the game failed
+     */
+    public CompletableFuture<Void> getFinished() {
+        return finished;
+    }
+
+    /**
+     * Takes a snapshot of this game on its executor, between two events.
+     *
+     * @return Future completed with the state of this game or with
+     *         {@code null} if the game is over
+     */
+    public CompletableFuture<GameState> snapshot() {
+        CompletableFuture<GameState> snapshot = new CompletableFuture<GameState>();
+        executor.execute(() -> snapshot.complete(state == State.OVER ? null : recorder.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * Restores the state of a game which stopped when the server stopped.
+     * Runs before any other event of the game.
+     *
+     * @param recovered The state of the game when it stopped
+     * @throws IOException If the state holds invalid cards
+     */
+    private void restore(final GameState recovered) throws IOException {
+        round = recovered.getRound();
+        currentPlayer = recovered.getCurrentSeat();
+        state = recovered.getState();
+
+        if (recovered.getTrump() != Event.NO_CARD) {
+            trumpCard = BinaryCodec.byteToCard(recovered.getTrump());
+            trumpColor = trumpCard.getColor();
+        }
+
+        // The history of finished rounds is not recovered
+        scoreBoard.setRoundsPlayed(round - 1);
+        predictionSum = 0;
+        roundTricks = 0;
+        for (int seat = 0; seat < players.size(); seat++) {
+            scoreBoard.setScore(seat, recovered.getScore(seat));
+            scoreBoard.setTricks(seat, recovered.getTricks(seat));
+            scoreBoard.setPredictions(seat, recovered.getPrediction(seat));
+            predictionSum += Math.max(0, recovered.getPrediction(seat));
+            roundTricks += recovered.getTricks(seat);
+
+            List<Card> hand = new ArrayList<Card>(recovered.getHandSize(seat));
+            for (int i = 0; i < recovered.getHandSize(seat); i++) {
+                hand.add(BinaryCodec.byteToCard(recovered.getHandCard(seat, i)));
+            }
+            players.get(seat).restoreHand(new Hand(hand));
+        }
+
+        trick = new Trick(trumpColor == null ? Color.CLEAR : trumpColor);
+        for (int i = 0; i < recovered.getTrickSize(); i++) {
+            trick.add(BinaryCodec.byteToCard(recovered.getTrickCard(i)));
+        }
+        turns = (state == State.PREDICTING) ? recovered.getPredictionCount() : trick.asList().size();
+    }
+
+    /**
+     * Continues a game which stopped when the server stopped at the step it
+     * stopped at instead of playing it from the start. Players get sent the
+     * whole state of the game first. If the state cannot be restored, the
+     * game fails and its players return to the lobby.
+     *
+     * @param recovered The state of the game when it stopped
+     */
+    public void resume(final GameState recovered) {
+        execute(() -> {
+            players.forEach(Player::beginBatch);
+            try {
+                restore(recovered);
+            } catch (IOException e) {
+                // Given up for good, not recovered again after the next restart
+                recorder.gameOver();
+                throw new UncheckedIOException("Could not restore the recovered game", e);
+            }
+            resendState(players);
+            if (trumpCard != null) {
+                spectators.updateTrump(trumpCard, trumpColor);
+            }
+            spectators.updateScores(scoreBoard);
+            spectators.updateTrick(trick.asList());
+
+            switch (state) {
+                case PREDICTING:
+                    askPrediction();
+                    break;
+                case PLAYING:
+                    if (turns > 0) {
+                        askTrickCard();
+                    } else if (roundTricks < round) {
+                        startTrick();
+                    } else {
+                        endRound();
+                    }
+                    break;
+                case SCORING:
+                    nextRound();
+                    break;
+                default:
+                    // Stopped while dealing, deal again
+                    startRound(Math.max(1, round));
+                    break;
+            }
+        });
+    }
+
+    /**
+     * Sends the whole state of this game to some players again.
+     *
+     * @param receivers The players to send the state to
+     */
+    private void resendState(final List<Player> receivers) {
+        for (Player p : receivers) {
+            p.resendHand();
+            if (trumpCard != null) {
+                p.updateTrump(trumpCard, trumpColor);
+            }
+        }
+        broadcaster.updateScores(receivers, scoreBoard);
+        broadcaster.updateTrick(receivers, trick.asList());
+
+        List<Player> syncing = new ArrayList<Player>(receivers);
+        syncing.retainAll(eventPlayers);
+        stateSynced(syncing);
+    }
+
+    /**
+     * Tells players syncing by events that the state they have been sent
+     * contains all events so far. Events are numbered on from here.
+     *
+     * @param receivers The players who have been sent the whole state
+     */
+    private void stateSynced(final List<Player> receivers) {
+        if (!receivers.isEmpty()) {
+            broadcaster.broadcast(receivers, new EventMessage(MessageType.STATE_SYNCED, events, -1, 0));
+        }
+    }
+
+    /**
+     * Sends the next event to all players syncing by events.
+     *
+     * @param type The type of the event
+     * @param seat The seat of the player the event is about or -1
+     * @param value The value of the event
+     */
+    private void publishEvent(final MessageType type, int seat, int value) {
+        events++;
+        if (!eventPlayers.isEmpty()) {
+            broadcaster.broadcast(eventPlayers, new EventMessage(type, events, seat, value));
+        }
+    }
+
+    /**
+     * Continues the session of a player on a new connection after his
+     * connection dropped. Only the messages the player missed are sent
+     * again, the whole state only if they are not kept anymore. A question
+     * the player received before is asked again since his answer may have
+     * been lost. May be called on any thread.
+     *
+     * @param session The session to resume
+     * @param client The new connection of the player
+     * @param acknowledged The number of the last message the player received
+     */
+    public void reconnect(final Session session, final ClientConnectionHandler client, long acknowledged) {
+        execute(() -> {
+            ClientConnectionHandler old = session.getConnection();
+            if (!session.attach(client)) {
+                client.sendGameError("Your session expired");
+                return;
+            }
+
+            Player player = session.getPlayer();
+            List<Message> missed = session.missedSince(acknowledged);
+            client.resumeSession(session, acknowledged, missed);
+            session.getTable().replace(old, client);
+            player.reconnect(client);
+            if (old != null && old != client) {
+                // Drop a connection which has not noticed yet it is dead
+                old.setPlayer(null);
+                old.disconnect();
+            }
+
+            if (missed == null) {
+                resendState(Arrays.asList(player));
+            }
+            if (turn != null && player == currentPlayer()
+                    && (missed == null || session.isAskReceived(acknowledged))) {
+                if (state == State.PREDICTING) {
+                    player.askPrediction();
+                } else if (state == State.PLAYING) {
+                    player.askTrickCard();
+                }
+            }
+
+            System.out.printf("Player '%s' resumed at table %d, %s\n", player.getName(),
+                session.getTable().getId(),
+                (missed == null) ? "sent whole state" : String.format("sent %d missed messages", missed.size()));
+        });
     }
 
     /**
@@ -78,51 +395,281 @@ public class Game {
     }
 
     /**
-     * Starts playing this game.
+     * Returns all players but the one whose turn it is who are sent the
+     * whole state. Players syncing by events learn from the events that
+     * somebody else is on turn.
+     *
+     * @return List of all other players syncing by state
+     */
+    private List<Player> otherPlayers() {
+        List<Player> others = new ArrayList<Player>(statePlayers);
+        others.remove(currentPlayer());
+        return others;
+    }
+
+    /**
+     * Starts the turn of the current player.
+     * The game is told on its executor if the turn expires. Turns of
+     * players who are gone expire right away.
+     *
+     * @return True if the player has to be asked, false if he is gone
+     */
+    private boolean newTurn() {
+        final Turn t = new Turn(turnTimeout, TimeUnit.MILLISECONDS);
+        turn = t;
+
+        if (currentPlayer().isGone()) {
+            execute(() -> turnExpired(t));
+            return false;
+        }
+        if (timer != null) {
+            t.watch(timer, () -> execute(() -> turnExpired(t)));
+        }
+        return true;
+    }
+
+    /**
+     * Ends the turn of the current player.
+     */
+    private void endTurn() {
+        turn.end();
+        currentPlayer().endTurn(turn);
+        turn = null;
+    }
+
+    /**
+     * Sends all messages collected for all players.
+     * Called at the end of every event, before waiting for the next one.
+     */
+    private void flushAll() {
+        players.forEach(Player::flush);
+    }
+
+    /**
+     * Handles an event on the executor of this game. Messages sent while
+     * handling the event are sent together afterwards.
+     *
+     * @param event The event to handle
+     */
+    private void execute(final Runnable event) {
+        executor.execute(() -> {
+            if (state == State.OVER) {
+                return;
+            }
+
+            try {
+                event.run();
+                flushAll();
+            } catch (RuntimeException e) {
+                if (turn != null) {
+                    turn.end();
+                }
+                state = State.OVER;
+                players.forEach(Player::endBatch);
+                finished.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Starts playing this game. Returns immediately, use
+     * {@link #getFinished()} to learn when the game is over.
      */
     public void play() {
-        // Play all rounds
-        // Number of rounds is dependent on number of players
-        for (int i = 1; i < 60 / players.size(); i++) {
-            playRound(i);
+        execute(() -> {
+            // Messages of one game step get sent together
+            players.forEach(Player::beginBatch);
+
+            List<String> names = new ArrayList<String>(players.size());
+            players.forEach(p -> names.add(p.getName()));
+            recorder.gameStarted(names, turnTimeout);
+            startRound(1);
+        });
+    }
+
+    /**
+     * Passes a message received from a player to this game.
+     * May be called on any thread.
+     *
+     * @param player The player who sent the message
+     * @param message The received message
+     */
+    public void received(final Player player, final Message message) {
+        execute(() -> handleMessage(player, message));
+    }
+
+    /**
+     * Tells this game a player is gone because he disconnected and did not
+     * resume his session in time. His turns are played for him from now on.
+     * May be called on any thread.
+     *
+     * @param player The player who is gone
+     */
+    public void disconnected(final Player player) {
+        execute(() -> {
+            if (turn != null && player == currentPlayer()) {
+                turnExpired(turn);
+            }
+        });
+    }
+
+    /**
+     * Handles a message received from a player.
+     * Only answers of the player whose turn it is are accepted.
+     *
+     * @param player The player who sent the message
+     * @param message The received message
+     */
+    private void handleMessage(final Player player, final Message message) {
+        if (message.getType() == MessageType.RESYNC) {
+            // Player lost track of the events, may ask anytime
+            resendState(Arrays.asList(player));
+            return;
         }
+        if (turn == null || player != currentPlayer()) {
+            System.err.printf("Dropping %s of '%s' who is not on turn\n", message.getType(), player.getName());
+            return;
+        }
+
+        switch (message.getType()) {
+            case ANSWER_PREDICTION:
+                if (state != State.PREDICTING || !(message instanceof IntMessage)) {
+                    break;
+                }
+                Integer prediction = ((IntMessage)message).getContent();
+                if (prediction == null) {
+                    System.err.printf("Asking '%s' again for a prediction missing in %s\n",
+                        player.getName(), message.getType());
+                    player.askPrediction();
+                    return;
+                }
+                predictionAnswered(prediction);
+                return;
+            case ANSWER_TRICK_CARD:
+                if (state != State.PLAYING || !(message instanceof CardMessage)) {
+                    break;
+                }
+                trickCardAnswered(((CardMessage)message).getContent());
+                return;
+            default:
+                break;
+        }
+        System.err.printf("Dropping unexpected message %s of '%s'\n", message.getType(), player.getName());
     }
 
     /**
-     * Plays one round of this game.
+     * Plays the turn of the current player for him because it expired.
+     *
+     * @param expired The turn which expired
+     */
+    private void turnExpired(final Turn expired) {
+        // Player may have answered just before the deadline
+        if (expired != turn) {
+            return;
+        }
+        turn.expire();
+        currentPlayer().endTurn(turn);
+        turn = null;
+
+        if (state == State.PREDICTING) {
+            predict(currentPlayer().timeoutPrediction(notAllowedPrediction()));
+        } else if (state == State.PLAYING) {
+            playCard(currentPlayer().timeoutTrickCard(trick.firstColor()));
+        }
+    }
+
+    /**
+     * Prints statistics about this game and marks it as over.
+     */
+    private void finish() {
+        state = State.OVER;
+        recorder.gameOver();
+        players.forEach(Player::endBatch);
+
+        long writes = players.stream().mapToLong(Player::getWriteCalls).sum();
+        System.out.printf("%d write calls for %d tricks (%.1f per trick)\n",
+            writes, tricksPlayed, (double)writes / Math.max(1, tricksPlayed));
+
+        long sent = players.stream().mapToLong(Player::getBytesSent).sum();
+        long saved = players.stream().mapToLong(Player::getBytesSaved).sum();
+        System.out.printf("Sent %d bytes to players (%d bytes saved by keeping object streams)\n",
+            sent, saved);
+
+        for (Player p : players) {
+            System.out.printf("%s took %.1f s to think, %d turns timed out, at most %d bytes queued%s\n",
+                p.getName(), p.getThinkTime(TimeUnit.MILLISECONDS) / 1000.0, p.getTimeouts(),
+                p.getMaxQueuedBytes(), p.isConnected() ? "" : " (disconnected)");
+        }
+
+        for (String name : scoreBoard.getStandings()) {
+            System.out.printf("%d. %s with %d points\n",
+                scoreBoard.getRank(name), name, scoreBoard.getScore(name));
+        }
+
+        finished.complete(null);
+    }
+
+    /**
+     * Starts one round of this game.
      * The given round index specifies which round is meant to be played
      * and determines the number of cards and number of tricks that get
      * played in this round.
      *
      * @param round The round index of the round to be played
      */
-    private void playRound(int round) {
-        deck = new Deck();
+    private void startRound(int round) {
+        this.round = round;
+        recorder.roundStarted(round);
+        deck = new Deck(random);
 
         // Give out random cards
+        state = State.DEALING;
         giveOutCards(round);
 
         // Determine trump color for this round
+        state = State.TRUMP;
         determineTrump();
 
         //Ask players for their predictions
-        askPredictions(round);
-
-        System.out.println(status());
-
-        // Play all tricks in this round
-        for (int i = 0; i < round; i++) {
-            playTrick();
-        }
+        state = State.PREDICTING;
+        turns = 0;
+        predictionSum = 0;
+
+        // Send unset predictions to all players, the state of the round is
+        // complete now
+        broadcaster.updateScores(players, scoreBoard);
+        spectators.updateScores(scoreBoard);
+        stateSynced(eventPlayers);
+        askPrediction();
+    }
 
-        // End of Round
+    /**
+     * Ends the current round and starts the next one, if any.
+     */
+    private void endRound() {
+        state = State.SCORING;
         scoreBoard.predictionsToScore();
-        players.stream()
-            .unordered()
-            .parallel()
-            .forEach(p -> p.updateScores(scoreBoard));
+        for (int seat = 0; seat < players.size(); seat++) {
+            recorder.score(seat, scoreBoard.getScore(seat));
+        }
+        broadcaster.updateScores(statePlayers, scoreBoard);
+        spectators.updateScores(scoreBoard);
+        publishEvent(MessageType.ROUND_SCORED, -1, round);
 
         System.out.println("End of round\n");
+        nextRound();
+    }
+
+    /**
+     * Starts the next round or ends the game after the last round.
+     * Number of rounds is dependent on number of players.
+     */
+    private void nextRound() {
+        if (round + 1 < 60 / players.size()) {
+            startRound(round + 1);
+        } else {
+            finish();
+        }
     }
 
     /**
@@ -134,12 +681,12 @@ public class Game {
      */
     private void giveOutCards(int cards) {
         // Give out cards to players
-        for (Player player : players) {
-            List<Card> hand = new ArrayList<Card>(cards);
-            for (int i = 0; i < cards; i++) {
-                hand.add(deck.takeRandom());
+        for (int seat = 0; seat < players.size(); seat++) {
+            List<Card> hand = deck.deal(cards);
+            for (Card card : hand) {
+                recorder.cardDealt(seat, card);
             }
-            player.giveHand(new Hand(hand));
+            players.get(seat).giveHand(new Hand(hand));
         }
     }
 
@@ -154,6 +701,7 @@ public class Game {
         // Determine trump color for this round
         trumpCard = deck.takeRandom();
         trumpColor = trumpCard.getColor();
+        recorder.trump(trumpCard);
 
         // TODO: If card is a jester there is no trump color
         // TODO: If card is a wizard player has to choose a color
@@ -162,97 +710,164 @@ public class Game {
         for (Player p : players) {
             p.updateTrump(trumpCard, trumpColor);
         }
+        spectators.updateTrump(trumpCard, trumpColor);
     }
 
     /**
-     * Ask all players for their trick predictions this round.
+     * Returns the prediction the current player must not make.
+     * Predictions must not all come true so prediction of last player
+     * is restricted.
      *
-     * @param round The round index of the current round
-     */
-    private void askPredictions(int round) {
-        int predictionSum = 0;
-
-        // Send unset predictions to all players
-        players.stream()
-            .unordered()
-            .parallel()
-            .forEach(p -> p.updateScores(scoreBoard));
-
-        // Ask all players for prediction
-        for (int i = 0; i < players.size(); i++) {
-            // Update game status accordingly
-            currentPlayer().updateGameStatus(GameStatus.WAITING_PREDICTION);
-            players.stream()
-                .unordered()
-                .parallel()
-                .filter(p -> p != currentPlayer())
-                .forEach(p -> p.updateGameStatus(GameStatus.WAITING_PREDICTION_OTHER));
-
-            // Predictions must not all come true so prediction of last player
-            // is restricted.
-            // All but the last player may predict any amount of tricks.
-            if (i == players.size() - 1) {
-                int prediction = currentPlayer().askPrediction(round, round - predictionSum);
-                scoreBoard.setPredictions(currentPlayer().getName(), prediction);
-            } else {
-                int prediction = currentPlayer().askPrediction(round);
-                scoreBoard.setPredictions(currentPlayer().getName(), prediction);
-                predictionSum += prediction;
-            }
+     * @return The forbidden prediction or -1 if any prediction is allowed
+     */
+    private int notAllowedPrediction() {
+        // All but the last player may predict any amount of tricks.
+        if (turns == players.size() - 1) {
+            return round - predictionSum;
+        }
+        return -1;
+    }
 
-            // Send updated predictions to all players
-            players.stream()
-                .unordered()
-                .parallel()
-                .forEach(p -> p.updateScores(scoreBoard));
+    /**
+     * Asks the current player for his trick prediction this round.
+     */
+    private void askPrediction() {
+        // Update game status accordingly
+        currentPlayer().updateGameStatus(GameStatus.WAITING_PREDICTION);
+        broadcaster.updateGameStatus(otherPlayers(), GameStatus.WAITING_PREDICTION_OTHER);
+        spectators.updateGameStatus(GameStatus.WAITING_PREDICTION_OTHER);
+
+        if (!newTurn()) {
+            return;
+        }
+        currentPlayer().askPrediction();
+    }
 
-            nextPlayer();
+    /**
+     * Handles a prediction answered by the current player.
+     *
+     * @param input The prediction of the player
+     */
+    private void predictionAnswered(int input) {
+        if (!currentPlayer().isValidPrediction(input, round, notAllowedPrediction())) {
+            return;
         }
+        endTurn();
+        predict(input);
     }
 
     /**
-     * Play a trick.
+     * Records the prediction of the current player and asks the next player
+     * or starts the first trick.
+     *
+     * @param prediction The prediction of the current player
+     */
+    private void predict(int prediction) {
+        recorder.prediction(currentPlayer, prediction);
+        scoreBoard.setPredictions(currentPlayer, prediction);
+        predictionSum += prediction;
+
+        // Send updated predictions to all players
+        broadcaster.updateScores(statePlayers, scoreBoard);
+        spectators.updateScores(scoreBoard);
+        publishEvent(MessageType.PLAYER_PREDICTED, currentPlayer, prediction);
+
+        nextPlayer();
+        turns++;
+        if (turns < players.size()) {
+            askPrediction();
+            return;
+        }
+
+        System.out.println(status());
+
+        // Play all tricks in this round
+        state = State.PLAYING;
+        roundTricks = 0;
+        startTrick();
+    }
+
+    /**
+     * Starts a trick.
      * - Ask one player after the other for their cards for a trick
      * - Determine which player took the trick
      * - Add / subtract to all players total score
      */
-    private void playTrick() {
+    private void startTrick() {
         // Send empty trick to players
-        Trick trick = new Trick();
-        players.stream()
-            .unordered()
-            .parallel()
-            .forEach(p -> p.updateTrick(trick.asList()));
+        trick = new Trick(trumpColor);
+        broadcaster.updateTrick(statePlayers, trick.asList());
+        spectators.updateTrick(trick.asList());
 
         System.out.println("Asking players for their cards...");
 
-        // Ask all players for their cards
-        for (int i = 0; i < players.size(); i++) {
-            // Update game status for all players
-            currentPlayer().updateGameStatus(GameStatus.WAITING_CARD);
-            players.stream()
-                .unordered()
-                .parallel()
-                .filter(p -> p != currentPlayer())
-                .forEach(p -> p.updateGameStatus(GameStatus.WAITING_CARD_OTHER));
-
-            // Ask player for card and add to the trick
-            trick.add(currentPlayer().askTrickCard());
+        turns = 0;
+        askTrickCard();
+    }
 
-            System.out.println(trick);
+    /**
+     * Asks the current player for his card for the trick.
+     */
+    private void askTrickCard() {
+        // Update game status for all players
+        currentPlayer().updateGameStatus(GameStatus.WAITING_CARD);
+        broadcaster.updateGameStatus(otherPlayers(), GameStatus.WAITING_CARD_OTHER);
+        spectators.updateGameStatus(GameStatus.WAITING_CARD_OTHER);
+
+        if (!newTurn()) {
+            return;
+        }
+        currentPlayer().askTrickCard();
+    }
 
-            // Send updated trick to players
-            players.stream()
-                .unordered()
-                .parallel()
-                .forEach(p -> p.updateTrick(trick.asList()));
+    /**
+     * Handles a card answered by the current player.
+     *
+     * @param card The card the player wants to play
+     */
+    private void trickCardAnswered(final Card card) {
+        if (!currentPlayer().isValidTrickCard(card, trick)) {
+            return;
+        }
+        endTurn();
+        playCard(card);
+    }
 
-            nextPlayer();
+    /**
+     * Adds the card of the current player to the trick and asks the next
+     * player or ends the trick.
+     *
+     * @param card The card played by the current player
+     */
+    private void playCard(final Card card) {
+        recorder.cardPlayed(currentPlayer, card);
+        currentPlayer().playCard(card);
+        trick.add(card);
+
+        System.out.println(trick);
+
+        // Send updated trick to players
+        broadcaster.updateTrick(statePlayers, trick.asList());
+        spectators.updateTrick(trick.asList());
+        publishEvent(MessageType.CARD_PLAYED, currentPlayer, card.getOrdinal());
+
+        nextPlayer();
+        turns++;
+        if (turns < players.size()) {
+            askTrickCard();
+        } else {
+            endTrick();
         }
+    }
 
+    /**
+     * Determines who took the trick and starts the next trick or ends the
+     * round.
+     */
+    private void endTrick() {
         // Determine who took the trick
-        Card winnerCard = trick.takenBy(trumpColor);
-        int winnerId = (currentPlayer + trick.cardId(winnerCard)) % players.size();
+        Card winnerCard = trick.asList().get(trick.getWinner());
+        int winnerId = (currentPlayer + trick.getWinner()) % players.size();
         Player winner = players.get(winnerId);
 
         System.out.printf("Trick gets taken by card %s by %s\n", winnerCard, winner.getName());
@@ -260,18 +875,24 @@ public class Game {
         // Player who took the trick gets to start the next trick
         currentPlayer = winnerId;
 
-        scoreBoard.addTrick(winner.getName());
+        recorder.trickTaken(winnerId);
+        scoreBoard.addTrick(winnerId);
+        tricksPlayed++;
+        roundTricks++;
+
+        // Send updated scores to indicate who has taken the trick
+        broadcaster.updateScores(statePlayers, scoreBoard);
+        spectators.updateScores(scoreBoard);
 
-        // Update player state
-        players.stream()
-            .unordered()
-            .parallel()
-            .forEach(p -> {
-                // Send updated scores to indicate who has taken the trick
-                p.updateScores(scoreBoard);
+        // Send empty trick to players to indicate trick has been taken
+        broadcaster.updateTrick(statePlayers, new Trick().asList());
+        spectators.updateTrick(new Trick().asList());
+        publishEvent(MessageType.TRICK_TAKEN, winnerId, 0);
 
-                // Send empty trick to players to indicate trick has been taken
-                p.updateTrick(new Trick().asList());
-            });
+        if (roundTricks < round) {
+            startTrick();
+        } else {
+            endRound();
+        }
     }
 }
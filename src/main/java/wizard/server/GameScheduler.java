@@ -0,0 +1,228 @@
+package wizard.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the events of all games on a fixed number of single-threaded shards,
+ * one per core by default. Every table is assigned to one shard for its
+ * whole game, so all events of a table run on the same thread one after the
+ * other and game state needs no locks. New tables are placed on the shard
+ * with the fewest tables.
+ */
+public class GameScheduler {
+
+    /** Number of shards used by default. */
+    public static final int DEFAULT_SHARDS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * A single thread running the events of the tables assigned to it.
+     */
+    public static final class Shard implements Executor {
+
+        private final int id;
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger tables;
+        private final AtomicLong executed;
+        private final AtomicInteger maxQueueDepth;
+
+        /**
+         * Create new {@code Shard} with its own thread.
+         *
+         * @param id The number of this shard
+         * @param threads Factory for the thread of this shard
+         */
+        Shard(int id, final ThreadFactory threads) {
+            this.id = id;
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread thread = threads.newThread(r);
+                    thread.setName(String.format("Shard %d thread", id));
+                    return thread;
+                });
+            this.tables = new AtomicInteger();
+            this.executed = new AtomicLong();
+            this.maxQueueDepth = new AtomicInteger();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Shard %d: %d tables, %d events, %d queued (at most %d)",
+                id, getTables(), getExecuted(), getQueueDepth(), getMaxQueueDepth());
+        }
+
+        /**
+         * Runs an event on the thread of this shard after all events
+         * submitted before.
+         *
+         * @param event The event to run
+         */
+        @Override
+        public void execute(final Runnable event) {
+            executor.execute(() -> {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    System.err.printf("Exception - Event on shard %d failed!\n", id);
+                    e.printStackTrace();
+                } finally {
+                    executed.incrementAndGet();
+                }
+            });
+
+            int depth = executor.getQueue().size();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        /**
+         * Returns the number of this shard.
+         *
+         * @return The id of this shard
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the number of tables assigned to this shard.
+         *
+         * @return The number of tables
+         */
+        public int getTables() {
+            return tables.get();
+        }
+
+        /**
+         * Returns the number of events waiting to be run.
+         *
+         * @return The current queue depth
+         */
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+
+        /**
+         * Returns the largest number of events waiting at once so far.
+         *
+         * @return The largest queue depth
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        /**
+         * Returns the number of events run so far.
+         *
+         * @return The number of events run
+         */
+        public long getExecuted() {
+            return executed.get();
+        }
+
+        /**
+         * Stops the thread of this shard. Queued events are dropped.
+         */
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    private final List<Shard> shards;
+
+    /**
+     * Create new {@code GameScheduler} with default number of shards.
+     *
+     * @param threads Factory for the threads of the shards
+     */
+    public GameScheduler(final ThreadFactory threads) {
+        this(DEFAULT_SHARDS, threads);
+    }
+
+    /**
+     * Create new {@code GameScheduler}.
+     *
+     * @param shards The number of shards
+     * @param threads Factory for the threads of the shards
+     */
+    public GameScheduler(int shards, final ThreadFactory threads) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+
+        List<Shard> list = new ArrayList<Shard>(shards);
+        for (int i = 0; i < shards; i++) {
+            list.add(new Shard(i, threads));
+        }
+        this.shards = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns a string describing the load of all shards, one shard per
+     * line.
+     *
+     * @return String representation of this scheduler
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (Shard shard : shards) {
+            s.append(shard).append('\n');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns all shards of this scheduler.
+     *
+     * @return The shards in order of their ids
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Assigns a new table to the shard with the fewest tables. Ties are
+     * broken by the number of queued events.
+     *
+     * @return The shard to run all events of the table on
+     */
+    public synchronized Shard assign() {
+        Shard best = shards.get(0);
+        for (Shard shard : shards) {
+            if (shard.getTables() < best.getTables()
+                    || (shard.getTables() == best.getTables() && shard.getQueueDepth() < best.getQueueDepth())) {
+                best = shard;
+            }
+        }
+        best.tables.incrementAndGet();
+        return best;
+    }
+
+    /**
+     * Removes a table from its shard once its game is over.
+     *
+     * @param shard The shard the table has been assigned to
+     */
+    public synchronized void release(final Shard shard) {
+        shard.tables.decrementAndGet();
+    }
+
+    /**
+     * Stops the threads of all shards.
+     * Games which are still running do not go on.
+     */
+    public void shutdown() {
+        shards.forEach(Shard::shutdown);
+    }
+}
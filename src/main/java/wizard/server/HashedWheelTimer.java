@@ -0,0 +1,236 @@
+package wizard.server;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer running many short tasks with coarse precision on a single thread.
+ * Timeouts are sorted into a ring of buckets by the tick they expire in, so
+ * scheduling and cancelling are constant time no matter how many timeouts
+ * are pending. Tasks run on the timer thread and must not block.
+ */
+public class HashedWheelTimer {
+
+    /** Duration of one tick by default in milliseconds. */
+    public static final long DEFAULT_TICK_DURATION = 100;
+
+    /** Number of buckets of the wheel by default. */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state;
+        private long remainingRounds;
+
+        /**
+         * Create new {@code Timeout} for given task.
+         *
+         * @param task The task to run on expiry
+         * @param deadline Expiry time relative to the start of the timer in nanoseconds
+         */
+        private Timeout(final Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(STATE_PENDING);
+        }
+
+        /**
+         * Cancels this timeout, so its task will not run.
+         *
+         * @return True if cancelled, false if the task already ran or this
+         *         timeout was cancelled before
+         */
+        public boolean cancel() {
+            return state.compareAndSet(STATE_PENDING, STATE_CANCELLED);
+        }
+
+        /**
+         * Returns whether this timeout has been cancelled.
+         *
+         * @return True if cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * Returns whether the task of this timeout has run.
+         *
+         * @return True if expired, false otherwise
+         */
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+
+        /**
+         * Runs the task unless this timeout has been cancelled.
+         */
+        private void expire() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Exception - Timer task failed!");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private final long tickDuration;
+    private final ArrayDeque<Timeout>[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> added;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running;
+    private long tick;
+
+    /**
+     * Create and start new {@code HashedWheelTimer} with default tick
+     * duration and wheel size.
+     */
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create and start new {@code HashedWheelTimer}.
+     *
+     * @param tickDuration Precision of the timer
+     * @param unit The unit of the tick duration
+     * @param wheelSize Number of buckets, gets rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedWheelTimer(long tickDuration, final TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (wheelSize == 1) {
+            size = 1;
+        }
+
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<Timeout>();
+        }
+        this.mask = size - 1;
+
+        this.added = new ConcurrentLinkedQueue<Timeout>();
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.tick = 0;
+
+        this.worker = new Thread(this::run, "Timer thread");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task to run once after given delay.
+     *
+     * @param task The task to run
+     * @param delay The delay after which to run the task
+     * @param unit The unit of the delay
+     * @return Handle to cancel the task
+     */
+    public Timeout newTimeout(final Runnable task, long delay, final TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, deadline);
+        added.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread. Pending tasks will not run.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Advances the wheel tick by tick until stopped.
+     * Runs on the timer thread.
+     */
+    private void run() {
+        while (running) {
+            // Sleep until the end of the current tick
+            long tickEnd = startTime + (tick + 1) * tickDuration;
+            long sleep;
+            while (running && (sleep = tickEnd - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (!running) {
+                break;
+            }
+
+            transferAdded();
+            expire(wheel[(int)(tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Sorts newly scheduled timeouts into their buckets.
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long expiryTick = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+
+            // Timeouts already overdue expire with the current tick
+            long bucket = Math.max(expiryTick, tick);
+            wheel[(int)(bucket & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Runs all timeouts of a bucket which expire in the current round.
+     *
+     * @param bucket The bucket of the current tick
+     */
+    private void expire(final ArrayDeque<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.isCancelled()) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package wizard.server;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.GameStatus;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.SessionMessage;
+import wizard.common.messages.StringMessage;
+import wizard.common.network.BufferPool;
+import wizard.server.journal.GameRecorder;
+import wizard.server.journal.GameState;
+import wizard.server.journal.Journal;
+import wizard.server.journal.Snapshot;
+
+/**
+ * {@code Lobby} of a server hosting many tables at once.
+ * Connected clients choose a name, create or join tables and return to the
+ * lobby when the game at their table is over. Every table is assigned to a
+ * shard of the scheduler which handles the events of its game; finished
+ * tables are removed so no resources of a table survive its game.
+ * Games recovered after a restart wait at their old tables until all their
+ * players are back. Every player of a game gets a session which the client
+ * can resume on a new connection if its connection drops. Clients can watch
+ * the game of any table as spectators.
+ */
+public class Lobby {
+
+    /** Number of seats of tables created by joining any table. */
+    public static final int DEFAULT_SEATS = 2;
+
+    /** Largest number of seats of a table. */
+    public static final int MAX_SEATS = 6;
+
+    private static final String[] playerNames = {
+        "Alfa",
+        "Bravo",
+        "Charlie",
+        "Delta",
+        "Echo",
+        "Foxtrot",
+        "Golf",
+        "Hotel"
+        };
+
+    private final GameScheduler scheduler;
+    private final Broadcaster broadcaster;
+    private final HashedWheelTimer timer;
+    private final BufferPool bufferPool;
+    private final long turnTimeout;
+    private final Journal journal;
+    private final Executor fanOut;
+
+    private final Map<Integer, Table> tables;
+    private final Map<Long, Session> sessions;
+    private final SecureRandom tokens;
+    private final SplittableRandom seeds;
+    private int nextTableId;
+    private long gamesPlayed;
+
+    /**
+     * Create new empty {@code Lobby}.
+     *
+     * @param scheduler The scheduler running the events of all games
+     * @param broadcaster The broadcaster shared by all games
+     * @param timer The timer watching turn deadlines of all games
+     * @param bufferPool The pool frames of all clients are encoded into
+     * @param turnTimeout Time in milliseconds each player has for a turn at
+     *                    new tables, 0 for no deadline
+     * @param journal The journal all games are written to or {@code null}
+     * @param fanOut Sends the updates of all games to their spectators
+     * @param seed The seed the seeds of all games are drawn from
+     */
+    public Lobby(final GameScheduler scheduler, final Broadcaster broadcaster, final HashedWheelTimer timer,
+            final BufferPool bufferPool, long turnTimeout, final Journal journal, final Executor fanOut,
+            long seed) {
+        this.scheduler = scheduler;
+        this.broadcaster = broadcaster;
+        this.timer = timer;
+        this.bufferPool = bufferPool;
+        this.turnTimeout = turnTimeout;
+        this.journal = journal;
+        this.fanOut = fanOut;
+
+        this.tables = new LinkedHashMap<Integer, Table>();
+        this.sessions = new HashMap<Long, Session>();
+        this.tokens = new SecureRandom();
+        this.seeds = new SplittableRandom(seed);
+        this.nextTableId = (journal == null) ? 1 : journal.getLastTable() + 1;
+        this.gamesPlayed = 0;
+    }
+
+    /**
+     * Checks whether a message is meant for the lobby instead of a game.
+     *
+     * @param type The type of the message
+     * @return True if the message is handled by the lobby, false otherwise
+     */
+    public static boolean isLobbyMessage(final MessageType type) {
+        switch (type) {
+            case SET_NAME:
+            case LIST_TABLES:
+            case CREATE_TABLE:
+            case JOIN_TABLE:
+            case RESUME_SESSION:
+            case WATCH_TABLE:
+            case SYNC_EVENTS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Handles a lobby message received from a client.
+     * Called on the thread receiving from the client.
+     *
+     * @param client The client which sent the message
+     * @param message The received message
+     */
+    public void handle(final ClientConnectionHandler client, final Message message) {
+        switch (message.getType()) {
+            case SET_NAME:
+                if (!(message instanceof StringMessage)) {
+                    client.sendGameError("Invalid name");
+                    break;
+                }
+                if (client.getTable() != null) {
+                    client.sendGameError("You cannot change your name while seated at a table");
+                    break;
+                }
+                client.setName(((StringMessage)message).getContent());
+                break;
+            case LIST_TABLES:
+                client.sendTables(listTables());
+                break;
+            case CREATE_TABLE:
+                Integer seats = (message instanceof IntMessage) ? ((IntMessage)message).getContent() : null;
+                if (seats == null) {
+                    client.sendGameError("Invalid number of seats");
+                    break;
+                }
+                createAndJoin(client, seats);
+                break;
+            case JOIN_TABLE:
+                Integer table = (message instanceof IntMessage) ? ((IntMessage)message).getContent() : null;
+                if (table == null) {
+                    client.sendGameError("Invalid table");
+                    break;
+                }
+                join(client, table);
+                break;
+            case RESUME_SESSION:
+                if (!(message instanceof SessionMessage)) {
+                    client.sendGameError("Invalid session");
+                    break;
+                }
+                resume(client, (SessionMessage)message);
+                break;
+            case WATCH_TABLE:
+                Integer watched = (message instanceof IntMessage) ? ((IntMessage)message).getContent() : null;
+                if (watched == null) {
+                    client.sendGameError("Invalid table");
+                    break;
+                }
+                watch(client, watched);
+                break;
+            case SYNC_EVENTS:
+                if (client.getTable() != null) {
+                    client.sendGameError("You cannot change how you are synced while seated at a table");
+                    break;
+                }
+                client.setEventSync(true);
+                break;
+            default:
+                System.err.printf("Lobby cannot handle message %s from '%s'\n", message.getType(), client);
+                break;
+        }
+    }
+
+    /**
+     * Creates a new empty table with default turn timeout.
+     *
+     * @param seats The number of players needed to start the game
+     * @return The new table
+     */
+    public Table createTable(int seats) {
+        return createTable(seats, turnTimeout);
+    }
+
+    /**
+     * Creates a new empty table.
+     *
+     * @param seats The number of players needed to start the game
+     * @param turnTimeout Time in milliseconds each player has for a turn,
+     *                    0 for no deadline
+     * @return The new table
+     */
+    public synchronized Table createTable(int seats, long turnTimeout) {
+        if (seats < 2 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException(String.format("Tables need 2 to %d seats", MAX_SEATS));
+        }
+
+        Table table = new Table(nextTableId++, seats, turnTimeout);
+        tables.put(table.getId(), table);
+        return table;
+    }
+
+    /**
+     * Opens a table for every game recovered after a restart. The tables
+     * keep their ids and only seat the players of the recovered games.
+     *
+     * @param recovered The states of the recovered games
+     */
+    public synchronized void restore(final List<GameState> recovered) {
+        for (GameState state : recovered) {
+            Table table = new Table(state);
+            tables.put(table.getId(), table);
+            nextTableId = Math.max(nextTableId, table.getId() + 1);
+            System.out.printf("Restored %s\n", table);
+        }
+    }
+
+    /**
+     * Writes a snapshot of all live games to the journal directory.
+     * The state of every game is copied on its shard, so games go on while
+     * the snapshot is written. Does nothing without journal.
+     *
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+
+        // Events appended after this position are replayed on recovery
+        long position = journal.getPosition();
+        List<CompletableFuture<GameState>> copies = new ArrayList<CompletableFuture<GameState>>();
+        synchronized (this) {
+            for (Table table : tables.values()) {
+                Game game = table.getGame();
+                if (game != null) {
+                    copies.add(game.snapshot());
+                } else if (table.isRecovered()) {
+                    copies.add(CompletableFuture.completedFuture(table.getRecovered()));
+                }
+            }
+        }
+
+        List<GameState> games = new ArrayList<GameState>(copies.size());
+        for (CompletableFuture<GameState> copy : copies) {
+            GameState state = copy.join();
+            if (state != null) {
+                games.add(state);
+            }
+        }
+        new Snapshot(position, games).write(journal.getDirectory());
+    }
+
+    /**
+     * Returns a description of all tables, one table per line.
+     *
+     * @return String listing all tables
+     */
+    public synchronized String listTables() {
+        StringBuilder list = new StringBuilder();
+        for (Table table : tables.values()) {
+            list.append(table).append('\n');
+        }
+        return list.toString();
+    }
+
+    /**
+     * Returns the number of tables waiting for players or playing.
+     *
+     * @return The number of tables
+     */
+    public synchronized int getTableCount() {
+        return tables.size();
+    }
+
+    /**
+     * Returns the number of games finished since the server started.
+     *
+     * @return The number of finished games
+     */
+    public synchronized long getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * Creates a table and seats the client creating it.
+     *
+     * @param client The client creating the table
+     * @param seats The number of players needed to start the game
+     */
+    private synchronized void createAndJoin(final ClientConnectionHandler client, int seats) {
+        if (seats < 2 || seats > MAX_SEATS) {
+            client.sendGameError(String.format("Tables need 2 to %d seats", MAX_SEATS));
+            return;
+        }
+        if (client.getTable() != null || client.isWatching()) {
+            client.sendGameError("You are already seated at a table");
+            return;
+        }
+
+        sit(client, createTable(seats));
+    }
+
+    /**
+     * Seats a client at a table. Table 0 means any table waiting for
+     * players, a new one is created if there is none.
+     *
+     * @param client The client to seat
+     * @param tableId The id of the table to join or 0
+     */
+    private synchronized void join(final ClientConnectionHandler client, int tableId) {
+        if (client.getTable() != null || client.isWatching()) {
+            client.sendGameError("You are already seated at a table");
+            return;
+        }
+
+        Table table = null;
+        if (tableId == 0) {
+            for (Table t : tables.values()) {
+                if (t.getState() == Table.State.WAITING && !t.isFull() && !t.isRecovered()) {
+                    table = t;
+                    break;
+                }
+            }
+            if (table == null) {
+                table = createTable(DEFAULT_SEATS);
+            }
+        } else {
+            table = tables.get(tableId);
+        }
+
+        if (table == null || table.getState() != Table.State.WAITING || table.isFull()) {
+            client.sendGameError(String.format("Table %d cannot be joined", tableId));
+            return;
+        }
+
+        sit(client, table);
+    }
+
+    /**
+     * Seats a client at a table which has a free seat and starts the game
+     * if the table is full afterwards.
+     *
+     * @param client The client to seat
+     * @param table The table to seat the client at
+     */
+    private void sit(final ClientConnectionHandler client, final Table table) {
+        String name = client.getName();
+        if (name == null && !table.isRecovered()) {
+            name = playerNames[table.getPlayerCount()];
+        }
+
+        if (!table.sit(client, name)) {
+            client.sendGameError(String.format("Table %d cannot be joined", table.getId()));
+            return;
+        }
+        client.joinedTable(table);
+        System.out.printf("Client '%s' joined %s\n", client, table);
+
+        if (table.isFull()) {
+            start(table);
+        }
+    }
+
+    /**
+     * Lets a client watch the game at a table.
+     *
+     * @param client The client who wants to watch
+     * @param tableId The id of the table to watch
+     */
+    private synchronized void watch(final ClientConnectionHandler client, int tableId) {
+        if (client.getTable() != null || client.isWatching()) {
+            client.sendGameError("You are already at a table");
+            return;
+        }
+
+        Table table = tables.get(tableId);
+        Game game = (table == null) ? null : table.getGame();
+        if (game == null) {
+            client.sendGameError(String.format("Table %d cannot be watched", tableId));
+            return;
+        }
+
+        client.startedWatching(game.getSpectators(), tableId);
+        game.getSpectators().add(client);
+    }
+
+    /**
+     * Continues the session of a client on the connection it resumed the
+     * session on.
+     *
+     * @param client The new connection of the client
+     * @param message The token of the session and the number of the last
+     *                message the client received
+     */
+    private void resume(final ClientConnectionHandler client, final SessionMessage message) {
+        Session session;
+        synchronized (this) {
+            session = sessions.get(message.getContent());
+        }
+
+        Game game = (session == null) ? null : session.getTable().getGame();
+        if (game == null || client.getTable() != null) {
+            client.sendGameError("Your session cannot be resumed");
+            return;
+        }
+        game.reconnect(session, client, message.getSequence());
+    }
+
+    /**
+     * Keeps the session of a client whose connection dropped, so it can be
+     * resumed. The player is gone for good if the client does not resume
+     * in time.
+     *
+     * @param session The session of the client
+     * @param client The connection which dropped
+     */
+    public void suspend(final Session session, final ClientConnectionHandler client) {
+        // Sessions resumed on another connection already go on
+        Game game = session.getTable().getGame();
+        if (session.getConnection() != client || game == null || game.getState() == Game.State.OVER) {
+            return;
+        }
+
+        System.out.printf("Keeping %s for %d s\n", session, Session.DEFAULT_RESUME_TIMEOUT / 1000);
+        session.suspend(timer, Session.DEFAULT_RESUME_TIMEOUT, TimeUnit.MILLISECONDS, () -> {
+            if (session.expire()) {
+                synchronized (this) {
+                    sessions.remove(session.getToken());
+                }
+                session.getPlayer().disconnected();
+            }
+        });
+    }
+
+    /**
+     * Removes a client from the table it is waiting at, e.g. because it
+     * disconnected. Empty waiting tables are removed unless they wait for
+     * the players of a recovered game.
+     *
+     * @param client The client to remove
+     */
+    public synchronized void leave(final ClientConnectionHandler client) {
+        Table table = client.getTable();
+        if (table == null || !table.leave(client)) {
+            return;
+        }
+        client.leftTable();
+
+        if (table.isEmpty() && !table.isRecovered()) {
+            tables.remove(table.getId());
+            table.close();
+        }
+    }
+
+    /**
+     * Starts the game of a full table on the least loaded shard. Recovered
+     * games continue where they stopped, or end if their state is invalid.
+     *
+     * @param table The full table
+     */
+    private void start(final Table table) {
+        List<Player> players = table.start();
+        GameScheduler.Shard shard = scheduler.assign();
+
+        GameState recovered = table.getRecovered();
+        GameRecorder recorder = (recovered == null)
+            ? new GameRecorder(journal, table.getId())
+            : new GameRecorder(journal, recovered);
+        Game game = new Game(players, broadcaster, timer, table.getTurnTimeout(), shard, recorder,
+            new Spectators(table.getId(), fanOut), seeds.nextLong());
+        players.forEach(p -> p.join(game));
+        game.getFinished().whenComplete((v, e) -> {
+            scheduler.release(shard);
+            gameOver(table, players, e);
+        });
+        table.setGame(game);
+
+        for (Player p : players) {
+            p.startSession(newSession(p, table));
+        }
+
+        if (recovered == null) {
+            System.out.printf("Table %d deals with seed %d\n", table.getId(), game.getSeed());
+            game.play();
+            return;
+        }
+        game.resume(recovered);
+    }
+
+    /**
+     * Creates a session with a new random token.
+     *
+     * @param player The player of the session
+     * @param table The table the player is seated at
+     * @return The new session
+     */
+    private synchronized Session newSession(final Player player, final Table table) {
+        long token;
+        do {
+            token = tokens.nextLong();
+        } while (sessions.containsKey(token));
+
+        Session session = new Session(token, player, table);
+        sessions.put(token, session);
+        return session;
+    }
+
+    /**
+     * Tells the players of a table the game is over and returns them to the
+     * lobby. Runs on the shard of the table.
+     *
+     * @param table The table whose game is over
+     * @param players The players at the table
+     * @param failure The exception which ended the game or {@code null}
+     */
+    private void gameOver(final Table table, final List<Player> players, final Throwable failure) {
+        if (failure != null) {
+            System.err.printf("Exception - Game at table %d failed!\n", table.getId());
+            failure.printStackTrace();
+        } else {
+            System.out.printf("Game Over at table %d!\n", table.getId());
+        }
+
+        for (Player p : players) {
+            p.updateGameStatus(GameStatus.GAME_OVER);
+        }
+        finish(table);
+    }
+
+    /**
+     * Removes a table whose game is over and returns its clients to the
+     * lobby.
+     *
+     * @param table The table whose game is over
+     */
+    private synchronized void finish(final Table table) {
+        tables.remove(table.getId());
+        Game game = table.getGame();
+        if (game != null) {
+            game.getSpectators().close();
+        }
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext();) {
+            if (it.next().getTable() == table) {
+                it.remove();
+            }
+        }
+
+        table.close().forEach(ClientConnectionHandler::leftTable);
+        gamesPlayed++;
+
+        System.out.printf("%d games played, %d tables open, %d frame buffers allocated\n",
+            gamesPlayed, tables.size(), bufferPool.getAllocated());
+        System.out.print(scheduler);
+    }
+}
@@ -1,8 +1,15 @@
 package wizard.server;
 
-public class Main {
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import wizard.common.network.WireFormat;
+import wizard.server.network.OutboundLimits;
 
-    private static final int PORT = 2000;
+public class Main {
 
     /**
      * Main function for game server.
@@ -12,7 +19,63 @@ public class Main {
     public static void main(String[] args) {
         Thread.currentThread().setName("Main thread");
 
-        WizardServer server = new WizardServer(PORT, 2);
-        new Thread(server).start();
+        List<WireFormat> formats = WizardServer.DEFAULT_WIRE_FORMATS;
+        ExecutionMode mode = ExecutionMode.NIO;
+        int port = WizardServer.DEFAULT_PORT;
+        long turnTimeout = WizardServer.DEFAULT_TURN_TIMEOUT;
+        Path journal = null;
+        long seed = new SplittableRandom().nextLong();
+        for (String arg : args) {
+            if (arg.equals("--compat")) {
+                // Only accept java serialization in compatibility mode
+                formats = Arrays.asList(WireFormat.SERIALIZATION);
+            } else if (arg.equals("--platform-threads")) {
+                mode = ExecutionMode.PLATFORM_THREADS;
+            } else if (arg.equals("--virtual-threads")) {
+                mode = ExecutionMode.VIRTUAL_THREADS;
+            } else if (arg.startsWith("--port=")) {
+                try {
+                    port = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid port '%s', using %d\n", arg, WizardServer.DEFAULT_PORT);
+                }
+            } else if (arg.startsWith("--turn-timeout=")) {
+                // Seconds per turn, 0 disables the deadline
+                try {
+                    turnTimeout = Long.parseLong(arg.substring(arg.indexOf('=') + 1)) * 1000;
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid turn timeout '%s', using %d s\n",
+                        arg, WizardServer.DEFAULT_TURN_TIMEOUT / 1000);
+                }
+            } else if (arg.startsWith("--journal=")) {
+                journal = Paths.get(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--seed=")) {
+                // Deals the same games again
+                try {
+                    seed = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid seed '%s', using %d\n", arg, seed);
+                }
+            }
+        }
+
+        if (!mode.isSupported()) {
+            System.err.printf("Execution mode %s is not supported by this JVM, using %s\n",
+                mode, ExecutionMode.PLATFORM_THREADS);
+            mode = ExecutionMode.PLATFORM_THREADS;
+        }
+
+        WizardServer server = new WizardServer(port, WizardServer.DEFAULT_IO_THREADS, formats, mode,
+            turnTimeout, OutboundLimits.DEFAULT, journal, seed);
+        Thread thread = mode.threadFactory().newThread(server);
+        thread.start();
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            System.err.println("Thread interrupted!");
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
     }
 }
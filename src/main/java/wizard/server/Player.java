@@ -1,21 +1,32 @@
 package wizard.server;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import wizard.common.GameStatus;
 import wizard.common.cards.Card;
 import wizard.common.game.Color;
 import wizard.common.game.Hand;
+import wizard.common.game.Rules;
 import wizard.common.game.ScoreBoard;
+import wizard.common.game.Trick;
+import wizard.common.messages.Message;
+import wizard.common.network.SharedMessage;
 
 public class Player {
     private final String name;
-    private final ClientConnectionHandler connection;
+    private volatile ClientConnectionHandler connection;
+    private final boolean eventSync;
 
+    private volatile Game game;
+    private volatile boolean gone;
     private Hand hand;
+    private long thinkTime;
+    private int timeouts;
 
     /**
      * Create a new {@code Player} with given name and connection object.
+     * The player is synced the way the client asked for on this connection.
      *
      * @param name The name of this player
      * @param connection The connection object for this player
@@ -23,8 +34,13 @@ public class Player {
     public Player(final String name, final ClientConnectionHandler connection) {
         this.name = name;
         this.connection = connection;
+        this.eventSync = connection != null && connection.isEventSync();
 
+        game = null;
+        gone = false;
         hand = new Hand();
+        thinkTime = 0;
+        timeouts = 0;
     }
 
     /**
@@ -44,6 +60,189 @@ public class Player {
         return name;
     }
 
+    /**
+     * Returns whether this player is sent game events instead of the whole
+     * state after every change.
+     *
+     * @return True if the player syncs by events, false otherwise
+     */
+    public boolean isEventSync() {
+        return eventSync;
+    }
+
+    /**
+     * Seats this player in a game. Answers of the client are passed to the
+     * game from now on.
+     *
+     * @param game The game this player plays in
+     */
+    public void join(final Game game) {
+        this.game = game;
+        connection.setPlayer(this);
+    }
+
+    /**
+     * Passes a message received from the client to the game.
+     * Called on the thread receiving from the client.
+     *
+     * @param message The received message
+     */
+    public void received(final Message message) {
+        Game current = game;
+        if (current != null) {
+            current.received(this, message);
+        }
+    }
+
+    /**
+     * Tells the game the client of this player is gone for good because it
+     * disconnected and did not resume its session in time.
+     * May be called on any thread.
+     */
+    public void disconnected() {
+        gone = true;
+        Game current = game;
+        if (current != null) {
+            current.disconnected(this);
+        }
+    }
+
+    /**
+     * Returns whether the client of this player is gone for good, so his
+     * turns are played for him.
+     *
+     * @return True if gone, false if connected or able to resume
+     */
+    public boolean isGone() {
+        return gone;
+    }
+
+    /**
+     * Starts a resumable session of the client of this player.
+     *
+     * @param session The new session
+     */
+    public void startSession(final Session session) {
+        session.attach(connection);
+        connection.startSession(session);
+    }
+
+    /**
+     * Continues this player on the connection the client resumed its
+     * session on. Must run on the executor of the game.
+     *
+     * @param resumed The new connection of the client
+     */
+    public void reconnect(final ClientConnectionHandler resumed) {
+        connection = resumed;
+        gone = false;
+        resumed.setPlayer(this);
+    }
+
+    /**
+     * Returns how long this player took to answer all his turns.
+     *
+     * @param unit The unit to return the time in
+     * @return Total think time of this player
+     */
+    public long getThinkTime(final TimeUnit unit) {
+        return unit.convert(thinkTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how many turns this player did not answer in time.
+     *
+     * @return Number of expired turns
+     */
+    public int getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Returns the number of bytes sent to this player.
+     *
+     * @return Number of bytes sent so far
+     */
+    public long getBytesSent() {
+        return connection.getBytesSent();
+    }
+
+    /**
+     * Returns the number of bytes saved by not resetting the object stream
+     * to this player before every message.
+     *
+     * @return Number of bytes saved so far
+     */
+    public long getBytesSaved() {
+        return connection.getBytesSaved();
+    }
+
+    /**
+     * Returns the number of write calls made to the socket of this player.
+     *
+     * @return Number of write calls so far
+     */
+    public long getWriteCalls() {
+        return connection.getWriteCalls();
+    }
+
+    /**
+     * Returns the largest number of bytes waiting to be written to this
+     * player at once so far.
+     *
+     * @return Largest number of queued bytes
+     */
+    public long getMaxQueuedBytes() {
+        return connection.getMaxQueuedBytes();
+    }
+
+    /**
+     * Returns whether this player does not keep up with reading messages.
+     *
+     * @return True if the player has been flagged as slow, false otherwise
+     */
+    public boolean isSlow() {
+        return connection.isSlow();
+    }
+
+    /**
+     * Returns whether this player is still connected.
+     *
+     * @return True if connected, false otherwise
+     */
+    public boolean isConnected() {
+        return connection.isConnected();
+    }
+
+    /**
+     * Disconnects this player after sending all queued messages.
+     */
+    public void disconnect() {
+        connection.disconnect();
+    }
+
+    /**
+     * Starts collecting messages to this player instead of sending them one
+     * by one.
+     */
+    public void beginBatch() {
+        connection.beginBatch();
+    }
+
+    /**
+     * Ends collecting messages and sends all collected messages.
+     */
+    public void endBatch() {
+        connection.endBatchQuietly();
+    }
+
+    /**
+     * Sends all collected messages to this player.
+     */
+    public void flush() {
+        connection.flushQuietly();
+    }
+
     /**
      * Give a hand of cards to this player.
      * The old hand will be overwritten.
@@ -55,6 +254,23 @@ public class Player {
         connection.updateHand(hand);
     }
 
+    /**
+     * Gives back the hand this player held when the game stopped, without
+     * sending it.
+     *
+     * @param hand The hand of this player
+     */
+    public void restoreHand(final Hand hand) {
+        this.hand = hand;
+    }
+
+    /**
+     * Sends the current hand to this player again.
+     */
+    public void resendHand() {
+        connection.updateHand(hand);
+    }
+
     /**
      * Send current trump color (and corresponding card) to player.
      *
@@ -82,6 +298,15 @@ public class Player {
         connection.updateGameStatus(gameStatus);
     }
 
+    /**
+     * Send a message which is sent to other players as well.
+     *
+     * @param message The message to send
+     */
+    public void send(final SharedMessage message) {
+        connection.sendShared(message);
+    }
+
     /**
      * Checks whether this player has a given card on his hand.
      *
@@ -104,88 +329,134 @@ public class Player {
 
     /**
      * Asks the player for a prediction of how many tricks he will take this
-     * round.
-     * Will block until the player has chosen a prediction.
-     *
-     * @param upperBorder The maximum of tricks the player is allowed to answer
-     * @return The prediction the player made ranging from 0 to upperBorder
-     *         (both included)
+     * round. The answer is passed to the game once it arrives.
      */
-    public int askPrediction(int upperBorder) {
-        return askPrediction(upperBorder, -1);
+    public void askPrediction() {
+        connection.askPrediction();
     }
 
     /**
-     * Asks the player for a prediction of how many tricks he will take this
-     * round.
-     * Will block until the player has chosen a prediction.
+     * Checks a prediction the player answered. Tells the player what is
+     * wrong and asks again if the prediction is not allowed.
      *
+     * @param input The prediction the player answered
      * @param upperBorder The maximum of tricks the player is allowed to answer
-     * @param notAllowed Which value the player is not allowed to answer
-     * @return The prediction the player made ranging from 0 to upperBorder
-     *         (both included) excluding notAllowed
-     */
-    public int askPrediction(int upperBorder, int notAllowed) {
-        int input = -1;
-
-        boolean done = false;
-        while (!done) {
-            input = connection.askPrediction(upperBorder, notAllowed);
-
-            if (input < 0) {
-                connection.sendGameError("You cannot take less than 0 tricks!");
-                continue;
-            }
-
-            if (input > upperBorder) {
-                String error = String.format("You cannot take %d tricks in this round!\n", input);
-                connection.sendGameError(error);
-                continue;
-            }
-
-            if (input == notAllowed) {
-                String error = String.format("You must not predict taking %d tricks", notAllowed);
-                connection.sendGameError(error);
-                continue;
-            }
-
-            done = true;
+     * @param notAllowed Which value the player is not allowed to answer or -1
+     * @return True if the prediction ranges from 0 to upperBorder (both
+     *         included) excluding notAllowed, false otherwise
+     */
+    public boolean isValidPrediction(int input, int upperBorder, int notAllowed) {
+        if (input < 0) {
+            connection.sendGameError("You cannot take less than 0 tricks!");
+        } else if (input > upperBorder) {
+            connection.sendGameError(String.format("You cannot take %d tricks in this round!\n", input));
+        } else if (input == notAllowed) {
+            connection.sendGameError(String.format("You must not predict taking %d tricks", notAllowed));
+        } else {
+            return true;
         }
 
-        return input;
+        connection.askPrediction();
+        return false;
     }
 
     /**
-     * Asks the player for a card to play.
-     * Will block until player has chosen a card.
+     * Makes a prediction for the player because he did not answer in time.
      *
-     * @return The card the player wants to play
+     * @param notAllowed Which value the player is not allowed to answer or -1
+     * @return The prediction made for the player
+     */
+    public int timeoutPrediction(int notAllowed) {
+        int prediction = (notAllowed == 0) ? 1 : 0;
+        timeouts++;
+        connection.sendGameError(String.format("Time is up, predicting %d tricks for you", prediction));
+        return prediction;
+    }
+
+    /**
+     * Asks the player for a card to play. The answer is passed to the game
+     * once it arrives.
      */
-    public Card askTrickCard() {
-        Card selectedCard = null;
+    public void askTrickCard() {
+        connection.askTrickCard();
+    }
 
-        boolean done = false;
-        while (!done) {
-            selectedCard = connection.askTrickCard();
+    /**
+     * Checks a card the player wants to play. Tells the player what is wrong
+     * and asks again if the card cannot be played.
+     *
+     * @param card The card the player answered
+     * @param trick The current trick
+     * @return True if the card is on the hand of the player and follows the
+     *         first color of the trick if it has to, false otherwise
+     */
+    public boolean isValidTrickCard(final Card card, final Trick trick) {
+        if (!hasCard(card)) {
+            connection.updateHand(hand);
+            connection.sendGameError(String.format(
+                    "You have selected card '%s', which is not on your hand!\n",
+                    card));
+            connection.askTrickCard();
+            return false;
+        }
 
-            if (!hasCard(selectedCard)) {
-                connection.updateHand(hand);
-                connection.sendGameError(String.format(
-                        "You have selected card '%s', which is not on your hand!\n",
-                        selectedCard));
-                continue;
-            }
+        if (!Rules.isLegal(hand, trick, card)) {
+            connection.sendGameError(String.format(
+                    "You have to follow %s, card '%s' cannot be played!\n",
+                    trick.firstColor(), card));
+            connection.askTrickCard();
+            return false;
+        }
 
-            //TODO: Farbe zugeben enforcen!!
-            //if (hasColor(color))
+        return true;
+    }
 
-            done = true;
+    /**
+     * Chooses a card for the player because he did not answer in time.
+     * A card following the first color of the trick is played if possible.
+     *
+     * @param firstColor The first color of the current trick
+     * @return The card played for the player
+     */
+    public Card timeoutTrickCard(final Color firstColor) {
+        Card card = defaultCard(firstColor);
+        timeouts++;
+        connection.sendGameError(String.format("Time is up, playing card '%s' for you", card));
+        return card;
+    }
+
+    /**
+     * Removes a played card from the hand of this player. Players syncing
+     * by events remove it themselves when the card is played.
+     *
+     * @param card The card played
+     */
+    public void playCard(final Card card) {
+        hand.remove(card);
+        if (!eventSync) {
+            connection.updateHand(hand);
         }
+    }
 
-        // Remove selected card from hand
-        hand.remove(selectedCard);
-        connection.updateHand(hand);
+    /**
+     * Ends the turn of this player, adding it to his think time.
+     *
+     * @param turn The turn which ended
+     */
+    public void endTurn(final Turn turn) {
+        thinkTime += turn.getElapsed(TimeUnit.NANOSECONDS);
+    }
 
-        return selectedCard;
+    /**
+     * Returns the card played for this player if he does not answer in time.
+     * Prefers the first card of the first color of the trick.
+     *
+     * @param firstColor The first color of the current trick
+     * @return A card on this players hand
+     */
+    private Card defaultCard(final Color firstColor) {
+        // Jesters and wizards come last, so this is the first card of the
+        // first color if there is one
+        return hand.playable(firstColor).get(0);
     }
 }
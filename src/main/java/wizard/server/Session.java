@@ -0,0 +1,248 @@
+package wizard.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+
+/**
+ * Resumable session of a player in a game.
+ * Every message sent to the player during the session gets the next
+ * sequence number and is kept in a bounded buffer. A client whose
+ * connection dropped presents the token of its session and the number of
+ * the last message it received, and is sent only the messages it missed.
+ * Sequence numbers are implied by the order of messages on the connection,
+ * so frames shared between players stay the same for everyone.
+ */
+public class Session {
+
+    /** Time in milliseconds a dropped session can be resumed by default. */
+    public static final long DEFAULT_RESUME_TIMEOUT = 30000;
+
+    /** Number of sent messages kept for resuming by default. */
+    public static final int DEFAULT_REPLAY_LIMIT = 4096;
+
+    private final long token;
+    private final Player player;
+    private final Table table;
+    private final int replayLimit;
+
+    private final ArrayDeque<Message> sent;
+    private long sequence;
+    private long lastAsk;
+    private ClientConnectionHandler connection;
+    private HashedWheelTimer.Timeout expiry;
+    private boolean suspended;
+    private boolean expired;
+
+    /**
+     * Create new {@code Session} keeping the default number of messages.
+     *
+     * @param token The random token identifying this session
+     * @param player The player of this session
+     * @param table The table the player is seated at
+     */
+    public Session(long token, final Player player, final Table table) {
+        this(token, player, table, DEFAULT_REPLAY_LIMIT);
+    }
+
+    /**
+     * Create new {@code Session}.
+     *
+     * @param token The random token identifying this session
+     * @param player The player of this session
+     * @param table The table the player is seated at
+     * @param replayLimit The number of sent messages to keep
+     */
+    public Session(long token, final Player player, final Table table, int replayLimit) {
+        this.token = token;
+        this.player = player;
+        this.table = table;
+        this.replayLimit = replayLimit;
+
+        this.sent = new ArrayDeque<Message>();
+        this.sequence = 0;
+        this.lastAsk = 0;
+        this.connection = null;
+        this.expiry = null;
+        this.suspended = false;
+        this.expired = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("Session of '%s' at table %d: %d messages sent%s",
+            player.getName(), table.getId(), sequence, suspended ? " (suspended)" : "");
+    }
+
+    /**
+     * Returns the token identifying this session.
+     *
+     * @return The session token
+     */
+    public long getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the player of this session.
+     *
+     * @return The player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the table the player of this session is seated at.
+     *
+     * @return The table
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of the last message sent in this session.
+     *
+     * @return The sequence number of the last message
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the connection currently serving this session.
+     *
+     * @return The connection or {@code null} if not attached yet
+     */
+    public synchronized ClientConnectionHandler getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns whether the connection of this session dropped and the
+     * client has not resumed yet.
+     *
+     * @return True if suspended, false otherwise
+     */
+    public synchronized boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Returns whether the client received the last question it was asked,
+     * so it has to be asked again after resuming.
+     *
+     * @param acknowledged The number of the last message the client received
+     * @return True if the last question has been received, false otherwise
+     */
+    public synchronized boolean isAskReceived(long acknowledged) {
+        return lastAsk > 0 && lastAsk <= acknowledged;
+    }
+
+    /**
+     * Records a message sent in this session. The oldest message is dropped
+     * once the buffer is full.
+     *
+     * @param message The message sent
+     */
+    public synchronized void record(final Message message) {
+        if (sent.size() == replayLimit) {
+            sent.poll();
+        }
+        sent.add(message);
+        sequence++;
+
+        MessageType type = message.getType();
+        if (type == MessageType.ASK_PREDICTION || type == MessageType.ASK_TRICK_CARD) {
+            lastAsk = sequence;
+        }
+    }
+
+    /**
+     * Returns all messages sent after a given one.
+     *
+     * @param acknowledged The number of the last message the client received
+     * @return The missed messages in order, or {@code null} if some of them
+     *         are not kept anymore or the number is unknown
+     */
+    public synchronized List<Message> missedSince(long acknowledged) {
+        if (acknowledged > sequence || acknowledged < sequence - sent.size()) {
+            return null;
+        }
+
+        int missed = (int)(sequence - acknowledged);
+        List<Message> messages = new ArrayList<Message>(missed);
+        Iterator<Message> it = sent.descendingIterator();
+        for (int i = 0; i < missed; i++) {
+            messages.add(it.next());
+        }
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Serves this session on a connection from now on.
+     * Cancels the expiry of a suspended session.
+     *
+     * @param connection The connection of the client
+     * @return True if attached, false if this session expired already
+     */
+    public synchronized boolean attach(final ClientConnectionHandler connection) {
+        if (expired) {
+            return false;
+        }
+
+        this.connection = connection;
+        this.suspended = false;
+        if (expiry != null) {
+            expiry.cancel();
+            expiry = null;
+        }
+        return true;
+    }
+
+    /**
+     * Ends this session because it has not been resumed in time.
+     *
+     * @return True if expired, false if the session has been resumed in
+     *         the meantime
+     */
+    public synchronized boolean expire() {
+        if (!suspended) {
+            return false;
+        }
+        expired = true;
+        return true;
+    }
+
+    /**
+     * Suspends this session because its connection dropped. The session
+     * expires unless it is resumed before the timeout.
+     *
+     * @param timer The timer watching the timeout or {@code null} to expire
+     *              right away
+     * @param timeout Time the client has to resume
+     * @param unit The unit of the timeout
+     * @param onExpiry Called on the timer thread once the timeout passed,
+     *                 see {@link #expire()}
+     */
+    public synchronized void suspend(final HashedWheelTimer timer, long timeout, final TimeUnit unit,
+            final Runnable onExpiry) {
+        suspended = true;
+        if (timer == null || timeout <= 0) {
+            onExpiry.run();
+            return;
+        }
+        expiry = timer.newTimeout(onExpiry, timeout, unit);
+    }
+}
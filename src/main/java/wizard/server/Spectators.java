@@ -0,0 +1,219 @@
+package wizard.server;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import wizard.common.GameStatus;
+import wizard.common.cards.Card;
+import wizard.common.game.Color;
+import wizard.common.game.ScoreBoard;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.ColorMessage;
+import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.ScoresMessage;
+import wizard.common.network.SharedMessage;
+
+/**
+ * Clients watching the game at a table.
+ * Spectators see the public view of the game: trump, trick, scores and
+ * status, but no hands. The game only hands every update over and never
+ * waits; each update is encoded once and fanned out to all spectators on
+ * the fan-out executor, one update after the other. The latest update of
+ * every kind stays encoded as snapshot for spectators joining late.
+ */
+public class Spectators {
+
+    private final int tableId;
+    private final Executor fanOut;
+    private final Queue<Runnable> updates;
+    private final AtomicBoolean draining;
+
+    // Only used by updates running on the fan-out executor
+    private final Set<ClientConnectionHandler> watchers;
+    private final Map<MessageType, SharedMessage> view;
+    private boolean closed;
+
+    private volatile int count;
+
+    /**
+     * Create new {@code Spectators} of a table without any spectator.
+     *
+     * @param tableId The id of the watched table
+     * @param fanOut Runs the updates of the spectators
+     */
+    public Spectators(int tableId, final Executor fanOut) {
+        this.tableId = tableId;
+        this.fanOut = fanOut;
+        this.updates = new ConcurrentLinkedQueue<Runnable>();
+        this.draining = new AtomicBoolean(false);
+
+        this.watchers = new LinkedHashSet<ClientConnectionHandler>();
+        this.view = new EnumMap<MessageType, SharedMessage>(MessageType.class);
+        this.closed = false;
+        this.count = 0;
+    }
+
+    /**
+     * Returns the number of clients watching.
+     *
+     * @return The number of spectators
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Adds a spectator. The spectator is sent the current view first and
+     * every update afterwards.
+     *
+     * @param client The client who wants to watch
+     */
+    public void add(final ClientConnectionHandler client) {
+        submit(() -> {
+            if (closed) {
+                client.sendGameError(String.format("Table %d cannot be watched", tableId));
+                client.stoppedWatching();
+                return;
+            }
+
+            client.beginBatch();
+            view.values().forEach(client::sendShared);
+            client.endBatchQuietly();
+
+            watchers.add(client);
+            count = watchers.size();
+        });
+    }
+
+    /**
+     * Removes a spectator, e.g. because it disconnected.
+     *
+     * @param client The client who stops watching
+     */
+    public void remove(final ClientConnectionHandler client) {
+        submit(() -> {
+            watchers.remove(client);
+            count = watchers.size();
+        });
+    }
+
+    /**
+     * Sends updated scores to all spectators.
+     *
+     * @param scoreBoard The current scores, copied before returning
+     */
+    public void updateScores(final ScoreBoard scoreBoard) {
+        publish(new ScoresMessage(MessageType.UPDATE_SCORES, scoreBoard));
+    }
+
+    /**
+     * Sends updated trick to all spectators.
+     *
+     * @param trick The cards of the current trick
+     */
+    public void updateTrick(final List<Card> trick) {
+        publish(new CardsMessage(MessageType.UPDATE_TRICK, trick.toArray(new Card[trick.size()])));
+    }
+
+    /**
+     * Sends the trump of the round to all spectators.
+     *
+     * @param trumpCard The card dictating the trump color
+     * @param trumpColor The trump color
+     */
+    public void updateTrump(final Card trumpCard, final Color trumpColor) {
+        publish(new CardMessage(MessageType.UPDATE_TRUMP_CARD, trumpCard));
+        publish(new ColorMessage(MessageType.UPDATE_TRUMP_COLOR, trumpColor));
+    }
+
+    /**
+     * Sends new game status to all spectators.
+     *
+     * @param gameStatus The new game status
+     */
+    public void updateGameStatus(final GameStatus gameStatus) {
+        publish(new GameStatusMessage(MessageType.GAME_STATUS, gameStatus));
+    }
+
+    /**
+     * Tells all spectators the game is over and removes them.
+     */
+    public void close() {
+        updateGameStatus(GameStatus.GAME_OVER);
+        submit(() -> {
+            closed = true;
+            watchers.forEach(ClientConnectionHandler::stoppedWatching);
+            watchers.clear();
+            count = 0;
+
+            view.values().forEach(SharedMessage::release);
+            view.clear();
+        });
+    }
+
+    /**
+     * Sends an update to all spectators and keeps it for the view of late
+     * spectators, replacing the previous update of its kind.
+     *
+     * @param message The update, its content must not change anymore
+     */
+    private void publish(final Message message) {
+        submit(() -> {
+            if (closed) {
+                return;
+            }
+
+            SharedMessage shared = new SharedMessage(message);
+            watchers.forEach(w -> w.sendShared(shared));
+
+            SharedMessage replaced = view.put(message.getType(), shared);
+            if (replaced != null) {
+                replaced.release();
+            }
+        });
+    }
+
+    /**
+     * Runs an update on the fan-out executor after all updates submitted
+     * before.
+     *
+     * @param update The update to run
+     */
+    private void submit(final Runnable update) {
+        updates.add(update);
+        if (draining.compareAndSet(false, true)) {
+            fanOut.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs all queued updates. Only one drain of this table runs at a time.
+     */
+    private void drain() {
+        Runnable update;
+        while ((update = updates.poll()) != null) {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                System.err.printf("Exception - Update of spectators at table %d failed!\n", tableId);
+                e.printStackTrace();
+            }
+        }
+        draining.set(false);
+
+        // Updates submitted after polling the last one
+        if (!updates.isEmpty() && draining.compareAndSet(false, true)) {
+            fanOut.execute(this::drain);
+        }
+    }
+}
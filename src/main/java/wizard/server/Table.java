@@ -0,0 +1,296 @@
+package wizard.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import wizard.server.journal.GameState;
+
+/**
+ * {@code Table} object representing a table in the lobby which players can
+ * sit down at. The game of a table starts as soon as all seats are taken.
+ * Tables are not reused; once closed they hold no references to players.
+ * Tables recovered after a restart wait for the players they had, who get
+ * their seats back by name.
+ */
+public class Table {
+
+    /**
+     * Life cycle of a table.
+     */
+    public enum State {
+        WAITING,
+        PLAYING,
+        CLOSED
+    }
+
+    private final int id;
+    private final int seats;
+    private final long turnTimeout;
+    private final GameState recovered;
+
+    private final List<ClientConnectionHandler> clients;
+    private final List<String> names;
+    private State state;
+    private Game game;
+
+    /**
+     * Create new empty {@code Table}.
+     *
+     * @param id The number identifying this table in the lobby
+     * @param seats The number of players needed to start the game
+     * @param turnTimeout Time in milliseconds each player has for a turn,
+     *                    0 for no deadline
+     */
+    public Table(int id, int seats, long turnTimeout) {
+        this(id, seats, turnTimeout, null);
+    }
+
+    /**
+     * Create new {@code Table} for a game recovered after a restart.
+     *
+     * @param recovered The state of the game when the server stopped
+     */
+    public Table(final GameState recovered) {
+        this(recovered.getTable(), recovered.getSeats(), recovered.getTurnTimeout(), recovered);
+    }
+
+    /**
+     * Create new empty {@code Table}.
+     *
+     * @param id The number identifying this table in the lobby
+     * @param seats The number of players needed to start the game
+     * @param turnTimeout Time in milliseconds each player has for a turn
+     * @param recovered The state of a recovered game or {@code null}
+     */
+    private Table(int id, int seats, long turnTimeout, final GameState recovered) {
+        this.id = id;
+        this.seats = seats;
+        this.turnTimeout = turnTimeout;
+        this.recovered = recovered;
+
+        this.clients = new ArrayList<ClientConnectionHandler>(seats);
+        this.names = new ArrayList<String>(seats);
+        this.state = State.WAITING;
+        this.game = null;
+    }
+
+    /**
+     * Returns a string describing this table.
+     *
+     * @return String representation of this table
+     */
+    @Override
+    public synchronized String toString() {
+        int watching = (game == null) ? 0 : game.getSpectators().getCount();
+        return String.format("Table %d: %d/%d players %s (%s%s%s)", id, clients.size(), seats, names,
+            state.toString().toLowerCase(), (recovered == null) ? "" : ", recovered",
+            (watching == 0) ? "" : String.format(", %d watching", watching));
+    }
+
+    /**
+     * Returns the number identifying this table.
+     *
+     * @return The id of this table
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the number of players needed to start the game.
+     *
+     * @return The number of seats
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * Returns the time each player has for a turn at this table.
+     *
+     * @return Turn timeout in milliseconds, 0 for no deadline
+     */
+    public long getTurnTimeout() {
+        return turnTimeout;
+    }
+
+    /**
+     * Returns whether this table continues a game recovered after a
+     * restart.
+     *
+     * @return True if this table has been recovered, false otherwise
+     */
+    public boolean isRecovered() {
+        return recovered != null;
+    }
+
+    /**
+     * Returns the state of the recovered game of this table.
+     *
+     * @return The recovered state or {@code null} if not recovered
+     */
+    public GameState getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Returns the game played at this table.
+     *
+     * @return The game or {@code null} if it has not started
+     */
+    public synchronized Game getGame() {
+        return game;
+    }
+
+    /**
+     * Sets the game played at this table.
+     *
+     * @param game The game
+     */
+    public synchronized void setGame(final Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Returns the state of this table.
+     *
+     * @return The state of this table
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of players seated at this table.
+     *
+     * @return The number of taken seats
+     */
+    public synchronized int getPlayerCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns whether all seats are taken.
+     *
+     * @return True if this table is full, false otherwise
+     */
+    public synchronized boolean isFull() {
+        return clients.size() == seats;
+    }
+
+    /**
+     * Seats a client at this table. Players get unique names at a table.
+     * At recovered tables only the names of the recovered game can be
+     * taken, a client without name takes the first free one.
+     *
+     * @param client The client to seat
+     * @param name The name the client wants to play with
+     * @return True if the client got seated, false if this table is full,
+     *         not waiting for players anymore or the name has no seat
+     */
+    public synchronized boolean sit(final ClientConnectionHandler client, final String name) {
+        if (state != State.WAITING || clients.size() == seats || clients.contains(client)) {
+            return false;
+        }
+
+        if (recovered != null) {
+            String seat = null;
+            for (int i = 0; i < seats && seat == null; i++) {
+                String reserved = recovered.getName(i);
+                if (!names.contains(reserved) && (name == null || name.equals(reserved))) {
+                    seat = reserved;
+                }
+            }
+            if (seat == null) {
+                return false;
+            }
+            clients.add(client);
+            names.add(seat);
+            return true;
+        }
+
+        String unique = name;
+        for (int i = 2; names.contains(unique); i++) {
+            unique = String.format("%s %d", name, i);
+        }
+
+        clients.add(client);
+        names.add(unique);
+        return true;
+    }
+
+    /**
+     * Removes a client from this table before the game started.
+     *
+     * @param client The client to remove
+     * @return True if the client has been removed, false otherwise
+     */
+    public synchronized boolean leave(final ClientConnectionHandler client) {
+        if (state != State.WAITING) {
+            return false;
+        }
+
+        int seat = clients.indexOf(client);
+        if (seat < 0) {
+            return false;
+        }
+        clients.remove(seat);
+        names.remove(seat);
+        return true;
+    }
+
+    /**
+     * Returns whether nobody is seated at this table.
+     *
+     * @return True if this table is empty, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return clients.isEmpty();
+    }
+
+    /**
+     * Replaces the connection of a seated client which resumed its session
+     * on a new connection.
+     *
+     * @param old The connection the client was seated with
+     * @param resumed The new connection of the client
+     */
+    public synchronized void replace(final ClientConnectionHandler old, final ClientConnectionHandler resumed) {
+        int seat = clients.indexOf(old);
+        if (seat >= 0) {
+            clients.set(seat, resumed);
+        }
+    }
+
+    /**
+     * Starts the game at this table, creating a player for every seat.
+     *
+     * @return The players in seat order
+     */
+    public synchronized List<Player> start() {
+        state = State.PLAYING;
+
+        List<Player> players = new ArrayList<Player>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            // Recovered players sit where they sat before
+            String name = (recovered == null) ? names.get(i) : recovered.getName(i);
+            players.add(new Player(name, clients.get(names.indexOf(name))));
+        }
+        return players;
+    }
+
+    /**
+     * Closes this table and returns the clients seated at it.
+     *
+     * @return The clients which were seated at this table
+     */
+    public synchronized List<ClientConnectionHandler> close() {
+        state = State.CLOSED;
+
+        List<ClientConnectionHandler> seated = new ArrayList<ClientConnectionHandler>(clients);
+        clients.clear();
+        names.clear();
+        game = null;
+        return seated;
+    }
+}
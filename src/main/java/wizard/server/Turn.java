@@ -0,0 +1,80 @@
+package wizard.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single turn of a player which has to be answered before a deadline.
+ * Measures how long the player took to answer. Nobody waits for a turn;
+ * the game is told when the deadline expires.
+ */
+public class Turn {
+
+    private final long start;
+    private final long timeout;
+
+    private HashedWheelTimer.Timeout deadline;
+    private boolean expired;
+
+    /**
+     * Create new {@code Turn} starting now.
+     *
+     * @param timeout Time the player has for this turn, 0 for no deadline
+     * @param unit The unit of the timeout
+     */
+    public Turn(long timeout, final TimeUnit unit) {
+        this.start = System.nanoTime();
+        this.timeout = unit.toNanos(timeout);
+        this.deadline = null;
+        this.expired = false;
+    }
+
+    /**
+     * Watches the deadline of this turn.
+     * Does nothing if this turn has no deadline.
+     *
+     * @param timer The timer watching the deadline
+     * @param onDeadline Called on the timer thread when the deadline expires
+     */
+    public void watch(final HashedWheelTimer timer, final Runnable onDeadline) {
+        if (timeout <= 0) {
+            return;
+        }
+        deadline = timer.newTimeout(onDeadline, start + timeout - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ends this turn because the player answered in time.
+     */
+    public void end() {
+        if (deadline != null) {
+            deadline.cancel();
+        }
+    }
+
+    /**
+     * Ends this turn because the player did not answer in time.
+     */
+    public void expire() {
+        end();
+        expired = true;
+    }
+
+    /**
+     * Returns whether the deadline of this turn expired.
+     *
+     * @return True if the player did not answer in time, false otherwise
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Returns the time passed since the start of this turn.
+     *
+     * @param unit The unit to return the time in
+     * @return The time passed
+     */
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,81 +1,248 @@
 package wizard.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import wizard.common.network.BufferPool;
+import wizard.common.network.WireFormat;
+import wizard.server.journal.Journal;
+import wizard.server.journal.Recovery;
+import wizard.server.journal.Snapshot;
+import wizard.server.network.BlockingConnection;
+import wizard.server.network.ChannelConnection;
+import wizard.server.network.Connection;
+import wizard.server.network.OutboundLimits;
+import wizard.server.network.SelectorLoopGroup;
 
 /**
- * {@code WizardServer} object handling the initial connection of players
- * and then starting the game.
+ * {@code WizardServer} object accepting connections of players and handing
+ * them to the lobby, where they can sit down at tables. Runs until shut down.
  */
 public class WizardServer implements Runnable {
 
-    private static final String[] playerNames = {
-        "Alfa",
-        "Bravo",
-        "Charlie",
-        "Delta",
-        "Echo",
-        "Foxtrot",
-        "Golf",
-        "Hotel"
-        };
+    /** Network port the server listens on by default. */
+    public static final int DEFAULT_PORT = 2000;
+
+    /** Number of I/O threads used by default. */
+    public static final int DEFAULT_IO_THREADS =
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    /** Number of threads sending game updates to spectators. */
+    public static final int FAN_OUT_THREADS =
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    /** Wire formats accepted by default, most preferred first. */
+    public static final List<WireFormat> DEFAULT_WIRE_FORMATS =
+        Arrays.asList(WireFormat.BINARY, WireFormat.SERIALIZATION);
+
+    /** Time in milliseconds each player has for a turn by default. */
+    public static final long DEFAULT_TURN_TIMEOUT = 60000;
 
     private final int port;
-    private final int playerCount;
+    private final int ioThreads;
+    private final List<WireFormat> wireFormats;
+    private final ExecutionMode executionMode;
+    private final long turnTimeout;
+    private final OutboundLimits outboundLimits;
+    private final Path journalDirectory;
+    private final long seed;
+    private final BufferPool bufferPool;
+
+    private volatile ServerSocketChannel server;
+    private volatile boolean running;
+    private volatile Lobby lobby;
+
+    /**
+     * Create new {@code WizardServer} with default settings.
+     *
+     * @param port The network port to listen on for connections
+     */
+    public WizardServer(int port) {
+        this(port, DEFAULT_IO_THREADS, DEFAULT_WIRE_FORMATS, ExecutionMode.NIO, DEFAULT_TURN_TIMEOUT,
+            OutboundLimits.DEFAULT, null, new SplittableRandom().nextLong());
+    }
 
     /**
      * Create new {@code WizardServer}.
      *
      * @param port The network port to listen on for connections
-     * @param playerCount The number of players to wait for connections of
+     * @param ioThreads The number of threads serving all connections if
+     *                  connections use non-blocking I/O
+     * @param wireFormats The wire formats to accept, most preferred first
+     * @param executionMode The threading model for connections and games
+     * @param turnTimeout Time in milliseconds each player has for a turn,
+     *                    0 for no deadline
+     * @param outboundLimits When to flag and disconnect clients not keeping up
+     * @param journalDirectory The directory to journal all games to or
+     *                         {@code null} to keep no journal
+     * @param seed The seed the decks of all games are shuffled with, so
+     *             games can be dealt again
      */
-    public WizardServer(int port, int playerCount) {
+    public WizardServer(int port, int ioThreads, final List<WireFormat> wireFormats,
+            final ExecutionMode executionMode, long turnTimeout, final OutboundLimits outboundLimits,
+            final Path journalDirectory, long seed) {
         this.port = port;
-        this.playerCount = playerCount;
+        this.ioThreads = ioThreads;
+        this.wireFormats = wireFormats;
+        this.executionMode = executionMode;
+        this.turnTimeout = turnTimeout;
+        this.outboundLimits = outboundLimits;
+        this.journalDirectory = journalDirectory;
+        this.seed = seed;
+        this.bufferPool = new BufferPool();
+        this.running = true;
+    }
 
-        if (playerCount > 6) {
-            System.err.printf("Having '%d' players is not supported\n", playerCount);
+    /**
+     * Returns the lobby of this server.
+     *
+     * @return The lobby or {@code null} if the server is not running
+     */
+    public Lobby getLobby() {
+        return lobby;
+    }
+
+    /**
+     * Stops accepting connections and makes {@link #run()} return.
+     * Games which are still running are not waited for.
+     */
+    public void shutdown() {
+        running = false;
+
+        ServerSocketChannel s = server;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     /**
-     * Waits for all clients to connect. Then starts game logic (including
-     * sending of messages)
+     * Accepts connections and hands them to the lobby until shut down.
      */
     @Override
     public void run() {
-        Thread.currentThread().setName("Game logic thread");
+        Thread.currentThread().setName("Accepting thread");
 
-        // Wait until all players are connected
-        List<Player> players = new ArrayList<Player>(playerCount);
-        try (ServerSocket server = new ServerSocket(port)) {
+        SelectorLoopGroup loops = null;
+        if (executionMode.usesSelector()) {
+            try {
+                loops = new SelectorLoopGroup(ioThreads);
+            } catch (IOException e) {
+                System.err.println("IOException - Error when starting I/O threads!");
+                e.printStackTrace();
+                return;
+            }
+        }
+        ThreadFactory threads = executionMode.threadFactory();
+
+        Broadcaster broadcaster = new Broadcaster();
+        HashedWheelTimer timer = new HashedWheelTimer();
+        GameScheduler scheduler = new GameScheduler(threads);
+
+        Journal journal = null;
+        if (journalDirectory != null) {
+            try {
+                journal = new Journal(journalDirectory);
+            } catch (IOException e) {
+                System.err.printf("IOException - Could not open journal '%s', games are not journaled!\n",
+                    journalDirectory);
+                e.printStackTrace();
+            }
+        }
+        AtomicInteger fanOutThreads = new AtomicInteger();
+        ExecutorService fanOut = Executors.newFixedThreadPool(FAN_OUT_THREADS, r -> {
+            Thread thread = threads.newThread(r);
+            thread.setName(String.format("Fan-out thread %d", fanOutThreads.getAndIncrement()));
+            return thread;
+        });
+        lobby = new Lobby(scheduler, broadcaster, timer, bufferPool, turnTimeout, journal, fanOut, seed);
+
+        Thread snapshots = null;
+        if (journal != null) {
+            try {
+                lobby.restore(Recovery.recover(journalDirectory));
+            } catch (IOException e) {
+                System.err.printf("IOException - Could not recover games from journal '%s'!\n", journalDirectory);
+                e.printStackTrace();
+            }
+            snapshots = new Thread(this::snapshotLoop, "Snapshot thread");
+            snapshots.setDaemon(true);
+            snapshots.start();
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            this.server = server;
+            server.bind(new InetSocketAddress(port));
+            System.out.printf("Dealing with seed %d\n", seed);
             System.out.println("Wizard Server running and waiting for connections...");
-            while (players.size() != playerCount) {
-                Socket client = server.accept();
-                synchronized(players) {
-                    ClientConnectionHandler con = new ClientConnectionHandler(client);
-                    new Thread(con).start();
 
-                    Player player = new Player(playerNames[players.size()], con);
-                    players.add(player);
+            while (running) {
+                SocketChannel client = server.accept();
 
-                    System.out.printf("New player connected: %s\n", player);
+                Connection connection;
+                if (loops != null) {
+                    connection = new ChannelConnection(client, loops.next(), outboundLimits);
+                } else {
+                    connection = new BlockingConnection(client, threads, outboundLimits);
                 }
+                ClientConnectionHandler con = new ClientConnectionHandler(connection, wireFormats, bufferPool, lobby);
+                connection.open(con);
+
+                System.out.printf("New client connected: %s\n", con);
             }
+        } catch (ClosedChannelException e) {
+            // Server has been shut down
         } catch (IOException e) {
             System.err.println("IOException - Error when waiting for clients to connect!");
             e.printStackTrace();
-            return;
+        } finally {
+            if (snapshots != null) {
+                snapshots.interrupt();
+            }
+            scheduler.shutdown();
+            fanOut.shutdownNow();
+            timer.stop();
+            if (journal != null) {
+                journal.close();
+            }
+            if (loops != null) {
+                loops.shutdown();
+            }
         }
+    }
 
-        // All players are connected - starting the game
+    /**
+     * Writes a snapshot of all live games every snapshot interval until
+     * interrupted, so recovery only replays the end of the journal.
+     */
+    private void snapshotLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(Snapshot.DEFAULT_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
 
-        Game game = new Game(players);
-        game.play();
-        System.out.println("Game Over!");
+            try {
+                lobby.snapshot();
+            } catch (IOException e) {
+                System.err.println("IOException - Could not write snapshot!");
+                e.printStackTrace();
+            }
+        }
     }
-
 }
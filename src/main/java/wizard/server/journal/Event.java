@@ -0,0 +1,192 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import wizard.common.cards.Card;
+import wizard.common.network.BinaryCodec;
+
+/**
+ * A single journal record. Records have a fixed size of
+ * {@value #SIZE} bytes:
+ *
+ * table:    int (4 bytes)
+ * sequence: int (4 bytes), counting the events of a game from 1
+ * type:     byte, see {@link EventType#code()}
+ * round:    byte
+ * seat:     byte
+ * card:     byte, the card ordinal or -1 for no card
+ * value:    int (4 bytes)
+ *
+ * Objects of this class are reused while reading a journal, copy the
+ * fields needed later.
+ */
+public final class Event {
+
+    /** Size of a record in bytes. */
+    public static final int SIZE = 16;
+
+    /** Card byte of events without a card. */
+    public static final byte NO_CARD = -1;
+
+    private int table;
+    private int sequence;
+    private EventType type;
+    private int round;
+    private int seat;
+    private byte card;
+    private int value;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("Table %d #%d %s round %d seat %d card %d value %d",
+            table, sequence, type, round, seat, card, value);
+    }
+
+    /**
+     * Writes a record to a buffer at its position.
+     *
+     * @param out The buffer to write to
+     * @param table The table the event happened at
+     * @param sequence The number of the event in its game
+     * @param type The kind of event
+     * @param round The round the event happened in
+     * @param seat The seat the event concerns or 0
+     * @param card The card byte of the event or {@link #NO_CARD}
+     * @param value The value of the event
+     */
+    static void write(final ByteBuffer out, int table, int sequence, final EventType type, int round,
+            int seat, byte card, int value) {
+        out.putInt(table);
+        out.putInt(sequence);
+        out.put(type.code());
+        out.put((byte)round);
+        out.put((byte)seat);
+        out.put(card);
+        out.putInt(value);
+    }
+
+    /**
+     * Sets all fields of this event.
+     *
+     * @param table The table the event happened at
+     * @param sequence The number of the event in its game
+     * @param type The kind of event
+     * @param round The round the event happened in
+     * @param seat The seat the event concerns or 0
+     * @param card The card byte of the event or {@link #NO_CARD}
+     * @param value The value of the event
+     */
+    void set(int table, int sequence, final EventType type, int round, int seat, byte card, int value) {
+        this.table = table;
+        this.sequence = sequence;
+        this.type = type;
+        this.round = round & 0xFF;
+        this.seat = seat & 0xFF;
+        this.card = card;
+        this.value = value;
+    }
+
+    /**
+     * Reads the record at the position of a buffer into this event.
+     *
+     * @param in The buffer to read from
+     * @return True if a record has been read, false if the end of the
+     *         written part has been reached
+     */
+    boolean read(final ByteBuffer in) {
+        int start = in.position();
+        type = EventType.of(in.get(start + 8));
+        if (type == null) {
+            return false;
+        }
+
+        table = in.getInt();
+        sequence = in.getInt();
+        in.get();
+        round = in.get() & 0xFF;
+        seat = in.get() & 0xFF;
+        card = in.get();
+        value = in.getInt();
+        return true;
+    }
+
+    /**
+     * Returns the table the event happened at.
+     *
+     * @return The id of the table
+     */
+    public int getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of the event in its game.
+     *
+     * @return The sequence number, starting with 1
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the kind of event.
+     *
+     * @return The type of the event
+     */
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the round the event happened in.
+     *
+     * @return The round index
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Returns the seat the event concerns.
+     *
+     * @return The seat index
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Returns the card of the event as stored.
+     *
+     * @return The card byte or {@link #NO_CARD}
+     */
+    public byte getCardByte() {
+        return card;
+    }
+
+    /**
+     * Returns the card of the event.
+     *
+     * @return The card or {@code null} if the event has no card
+     * @throws IOException If the stored byte represents no card
+     */
+    public Card getCard() throws IOException {
+        if (card == NO_CARD) {
+            return null;
+        }
+        return BinaryCodec.byteToCard(card);
+    }
+
+    /**
+     * Returns the value of the event.
+     *
+     * @return The value, its meaning depends on the type
+     */
+    public int getValue() {
+        return value;
+    }
+}
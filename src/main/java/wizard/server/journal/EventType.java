@@ -0,0 +1,65 @@
+package wizard.server.journal;
+
+/**
+ * Kinds of game events kept in the journal.
+ * Stored as one byte, 0 marks the end of the written part of a segment.
+ */
+public enum EventType {
+    /** A game started, seat holds the number of seats, value the turn timeout in milliseconds. */
+    GAME_STARTED,
+
+    /** A round started, round holds its index. */
+    ROUND_STARTED,
+
+    /** A card has been dealt to a seat. */
+    CARD_DEALT,
+
+    /** The trump card of the round has been turned. */
+    TRUMP,
+
+    /** A seat predicted, value holds the number of tricks. */
+    PREDICTION,
+
+    /** A seat played a card. */
+    CARD_PLAYED,
+
+    /** A seat took the trick. */
+    TRICK_TAKEN,
+
+    /** Total score of a seat at the end of a round, held in value. */
+    SCORE,
+
+    /** The game is over. */
+    GAME_OVER,
+
+    /**
+     * Part of the name of a seat: round holds the index of the part, value
+     * four bytes of the UTF-8 encoded name padded with zeros.
+     */
+    PLAYER_NAME;
+
+    private static final EventType[] TYPES = values();
+
+    /**
+     * Returns the byte this type is stored as.
+     *
+     * @return Code of this type, never 0
+     */
+    public byte code() {
+        return (byte)(ordinal() + 1);
+    }
+
+    /**
+     * Returns the type stored as given byte.
+     *
+     * @param code The stored byte
+     * @return The type or {@code null} if the byte marks no event
+     */
+    public static EventType of(byte code) {
+        int i = (code & 0xFF) - 1;
+        if (i < 0 || i >= TYPES.length) {
+            return null;
+        }
+        return TYPES[i];
+    }
+}
@@ -0,0 +1,198 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import wizard.common.cards.Card;
+import wizard.common.network.BinaryCodec;
+
+/**
+ * Writes the events of one game to the journal, numbering them in order.
+ * Every event is also applied to a {@link GameState} mirroring the game,
+ * which snapshots are taken of.
+ * Only used by the thread running the game. Writes nothing without a journal.
+ */
+public class GameRecorder {
+
+    private static final int MAX_NAME_PARTS = 16;
+
+    private final Journal journal;
+    private final int table;
+    private final GameState state;
+    private final Event event;
+
+    private int sequence;
+    private int round;
+
+    /**
+     * Create new {@code GameRecorder} for a new game at a table.
+     *
+     * @param journal The journal to write to or {@code null} for none
+     * @param table The id of the table
+     */
+    public GameRecorder(final Journal journal, int table) {
+        this(journal, new GameState(table));
+    }
+
+    /**
+     * Create new {@code GameRecorder} for a game continued from a recovered
+     * state.
+     *
+     * @param journal The journal to write to or {@code null} for none
+     * @param recovered The state of the game when it stopped
+     */
+    public GameRecorder(final Journal journal, final GameState recovered) {
+        this.journal = journal;
+        this.table = recovered.getTable();
+        this.state = new GameState(recovered);
+        this.event = new Event();
+        this.sequence = recovered.getSequence();
+        this.round = recovered.getRound();
+    }
+
+    /**
+     * Returns the number of events recorded so far.
+     *
+     * @return The sequence number of the last event
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns a copy of the state of the game after the last event.
+     *
+     * @return Snapshot of the game state
+     */
+    public GameState snapshot() {
+        return new GameState(state);
+    }
+
+    /**
+     * Records the start of the game.
+     *
+     * @param names The names of the players in seat order
+     * @param turnTimeout Time in milliseconds each player has for a turn
+     */
+    public void gameStarted(final List<String> names, long turnTimeout) {
+        record(EventType.GAME_STARTED, names.size(), null, (int)Math.min(Integer.MAX_VALUE, turnTimeout));
+
+        // Names are split into parts of four bytes
+        for (int seat = 0; seat < names.size(); seat++) {
+            byte[] name = names.get(seat).getBytes(StandardCharsets.UTF_8);
+            int parts = Math.min(MAX_NAME_PARTS, (name.length + 3) / 4);
+            for (int part = 0; part < parts; part++) {
+                int bytes = 0;
+                for (int i = 0; i < 4; i++) {
+                    int index = part * 4 + i;
+                    bytes = (bytes << 8) | (index < name.length ? name[index] & 0xFF : 0);
+                }
+                round = part;
+                record(EventType.PLAYER_NAME, seat, null, bytes);
+            }
+        }
+        round = 0;
+    }
+
+    /**
+     * Records the start of a round. Following events belong to this round.
+     *
+     * @param round The round index
+     */
+    public void roundStarted(int round) {
+        this.round = round;
+        record(EventType.ROUND_STARTED, 0, null, 0);
+    }
+
+    /**
+     * Records a card dealt to a player.
+     *
+     * @param seat The seat of the player
+     * @param card The card dealt
+     */
+    public void cardDealt(int seat, final Card card) {
+        record(EventType.CARD_DEALT, seat, card, 0);
+    }
+
+    /**
+     * Records the trump card of the round.
+     *
+     * @param card The trump card
+     */
+    public void trump(final Card card) {
+        record(EventType.TRUMP, 0, card, 0);
+    }
+
+    /**
+     * Records the prediction of a player.
+     *
+     * @param seat The seat of the player
+     * @param prediction The number of tricks predicted
+     */
+    public void prediction(int seat, int prediction) {
+        record(EventType.PREDICTION, seat, null, prediction);
+    }
+
+    /**
+     * Records a card played by a player.
+     *
+     * @param seat The seat of the player
+     * @param card The card played
+     */
+    public void cardPlayed(int seat, final Card card) {
+        record(EventType.CARD_PLAYED, seat, card, 0);
+    }
+
+    /**
+     * Records who took a trick.
+     *
+     * @param seat The seat of the player who took the trick
+     */
+    public void trickTaken(int seat) {
+        record(EventType.TRICK_TAKEN, seat, null, 0);
+    }
+
+    /**
+     * Records the total score of a player at the end of the round.
+     *
+     * @param seat The seat of the player
+     * @param score The total score
+     */
+    public void score(int seat, int score) {
+        record(EventType.SCORE, seat, null, score);
+    }
+
+    /**
+     * Records the end of the game.
+     */
+    public void gameOver() {
+        record(EventType.GAME_OVER, 0, null, 0);
+    }
+
+    /**
+     * Appends an event to the journal.
+     *
+     * @param type The kind of event
+     * @param seat The seat the event concerns or 0
+     * @param card The card of the event or {@code null}
+     * @param value The value of the event
+     */
+    private void record(final EventType type, int seat, final Card card, int value) {
+        sequence++;
+
+        byte cardByte = (card == null) ? Event.NO_CARD : BinaryCodec.cardToByte(card);
+        event.set(table, sequence, type, round, seat, cardByte, value);
+        state.apply(event);
+
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(table, sequence, type, round, seat, cardByte, value);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not journal %s of table %d!\n", type, table);
+            e.printStackTrace();
+        }
+    }
+}
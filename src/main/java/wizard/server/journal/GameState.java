@@ -0,0 +1,484 @@
+package wizard.server.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import wizard.common.network.BinaryCodec;
+import wizard.server.Game;
+
+/**
+ * State of a game rebuilt from its journal events.
+ * Cards are kept as stored bytes, so applying an event allocates nothing.
+ * Holds everything needed to continue the game after a restart and can be
+ * written to and read from a compact snapshot.
+ */
+public class GameState {
+
+    private static final int MAX_HAND = 60;
+    private static final int MAX_NAME = 64;
+
+    private final int table;
+
+    private Game.State state;
+    private int sequence;
+    private int seats;
+    private int turnTimeout;
+    private int round;
+    private int currentSeat;
+    private byte trump;
+    private byte[][] names;
+    private byte[][] hands;
+    private int[] handSizes;
+    private int[] predictions;
+    private int[] tricks;
+    private int[] scores;
+    private int[] pendingScores;
+    private int pendingScoreCount;
+    private byte[] trick;
+    private int trickSize;
+
+    /**
+     * Create new {@code GameState} of a table without any events.
+     *
+     * @param table The id of the table
+     */
+    public GameState(int table) {
+        this.table = table;
+        this.state = Game.State.DEALING;
+        this.sequence = 0;
+        this.seats = 0;
+        this.turnTimeout = 0;
+        this.round = 0;
+        this.currentSeat = 0;
+        this.trump = Event.NO_CARD;
+        allocate(0);
+    }
+
+    /**
+     * Create new {@code GameState} holding a copy of another state.
+     *
+     * @param other The state to copy
+     */
+    public GameState(final GameState other) {
+        this.table = other.table;
+        this.state = other.state;
+        this.sequence = other.sequence;
+        this.seats = other.seats;
+        this.turnTimeout = other.turnTimeout;
+        this.round = other.round;
+        this.currentSeat = other.currentSeat;
+        this.trump = other.trump;
+        this.names = new byte[seats][];
+        this.hands = new byte[seats][];
+        for (int seat = 0; seat < seats; seat++) {
+            names[seat] = other.names[seat].clone();
+            hands[seat] = other.hands[seat].clone();
+        }
+        this.handSizes = other.handSizes.clone();
+        this.predictions = other.predictions.clone();
+        this.tricks = other.tricks.clone();
+        this.scores = other.scores.clone();
+        this.pendingScores = other.pendingScores.clone();
+        this.pendingScoreCount = other.pendingScoreCount;
+        this.trick = other.trick.clone();
+        this.trickSize = other.trickSize;
+    }
+
+    /**
+     * Allocates the per seat arrays.
+     *
+     * @param seats The number of players
+     */
+    private void allocate(int seats) {
+        this.seats = seats;
+        names = new byte[seats][0];
+        hands = new byte[seats][MAX_HAND];
+        handSizes = new int[seats];
+        predictions = new int[seats];
+        tricks = new int[seats];
+        scores = new int[seats];
+        pendingScores = new int[seats];
+        pendingScoreCount = 0;
+        trick = new byte[seats];
+        trickSize = 0;
+        Arrays.fill(predictions, -1);
+    }
+
+    /**
+     * Returns a string describing this state, one line per seat.
+     *
+     * @return String representation of this state
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("Table %d after event %d: round %d, %s, trump %s, seat %d on turn\n",
+            table, sequence, round, state, cardName(trump), currentSeat));
+        for (int seat = 0; seat < seats; seat++) {
+            s.append(String.format("  Seat %d %s: predicted %2d, took %2d, score %4d, hand",
+                seat, getName(seat), predictions[seat], tricks[seat], scores[seat]));
+            for (int i = 0; i < handSizes[seat]; i++) {
+                s.append(' ').append(cardName(hands[seat][i]));
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns the name of a stored card.
+     *
+     * @param card The stored card byte
+     * @return The string representation of the card
+     */
+    private static String cardName(byte card) {
+        if (card == Event.NO_CARD) {
+            return "none";
+        }
+        try {
+            return BinaryCodec.byteToCard(card).toString();
+        } catch (IOException e) {
+            return "[????]";
+        }
+    }
+
+    /**
+     * Applies the next event of this game.
+     *
+     * @param event The event to apply
+     */
+    public void apply(final Event event) {
+        sequence = event.getSequence();
+
+        int seat = event.getSeat();
+        switch (event.getType()) {
+            case GAME_STARTED:
+                allocate(seat);
+                turnTimeout = event.getValue();
+                state = Game.State.DEALING;
+                break;
+            case PLAYER_NAME:
+                appendName(seat, event.getRound(), event.getValue());
+                break;
+            case ROUND_STARTED:
+                round = event.getRound();
+                Arrays.fill(handSizes, 0);
+                Arrays.fill(predictions, -1);
+                Arrays.fill(tricks, 0);
+                trump = Event.NO_CARD;
+                trickSize = 0;
+                pendingScoreCount = 0;
+                state = Game.State.DEALING;
+                break;
+            case CARD_DEALT:
+                hands[seat][handSizes[seat]++] = event.getCardByte();
+                break;
+            case TRUMP:
+                trump = event.getCardByte();
+                state = Game.State.PREDICTING;
+                break;
+            case PREDICTION:
+                predictions[seat] = event.getValue();
+                currentSeat = (seat + 1) % seats;
+                if (getPredictionCount() == seats) {
+                    state = Game.State.PLAYING;
+                }
+                break;
+            case CARD_PLAYED:
+                removeFromHand(seat, event.getCardByte());
+                trick[trickSize++] = event.getCardByte();
+                currentSeat = (seat + 1) % seats;
+                state = Game.State.PLAYING;
+                break;
+            case TRICK_TAKEN:
+                tricks[seat]++;
+                trickSize = 0;
+                currentSeat = seat;
+                break;
+            case SCORE:
+                // Scores only count once all seats are scored
+                pendingScores[seat] = event.getValue();
+                if (++pendingScoreCount == seats) {
+                    System.arraycopy(pendingScores, 0, scores, 0, seats);
+                    state = Game.State.SCORING;
+                }
+                break;
+            case GAME_OVER:
+                state = Game.State.OVER;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Appends a part of the name of a seat.
+     *
+     * @param seat The seat
+     * @param part The index of the part
+     * @param bytes Four bytes of the name, padded with zeros
+     */
+    private void appendName(int seat, int part, int bytes) {
+        int length = part * 4;
+        byte[] name = Arrays.copyOf(names[seat], Math.min(MAX_NAME, length + 4));
+        for (int i = 0; i < 4 && length + i < name.length; i++) {
+            name[length + i] = (byte)(bytes >>> (24 - 8 * i));
+        }
+        names[seat] = name;
+    }
+
+    /**
+     * Removes a played card from the hand of a seat.
+     *
+     * @param seat The seat which played the card
+     * @param card The stored card byte
+     */
+    private void removeFromHand(int seat, byte card) {
+        byte[] hand = hands[seat];
+        for (int i = 0; i < handSizes[seat]; i++) {
+            if (hand[i] == card) {
+                // Keep the order of the remaining cards
+                System.arraycopy(hand, i + 1, hand, i, handSizes[seat] - i - 1);
+                handSizes[seat]--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes this state to a snapshot.
+     *
+     * @param out The snapshot to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(final DataOutput out) throws IOException {
+        out.writeInt(table);
+        out.writeInt(sequence);
+        out.writeByte(state.ordinal());
+        out.writeByte(seats);
+        out.writeInt(turnTimeout);
+        out.writeByte(round);
+        out.writeByte(currentSeat);
+        out.writeByte(trump);
+        for (int seat = 0; seat < seats; seat++) {
+            out.writeByte(names[seat].length);
+            out.write(names[seat]);
+            out.writeByte(handSizes[seat]);
+            out.write(hands[seat], 0, handSizes[seat]);
+            out.writeByte(predictions[seat]);
+            out.writeByte(tricks[seat]);
+            out.writeInt(scores[seat]);
+            out.writeInt(pendingScores[seat]);
+        }
+        out.writeByte(pendingScoreCount);
+        out.writeByte(trickSize);
+        out.write(trick, 0, trickSize);
+    }
+
+    /**
+     * Reads a state written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The snapshot to read from
+     * @return The state
+     * @throws IOException If reading fails
+     */
+    public static GameState readFrom(final DataInput in) throws IOException {
+        GameState s = new GameState(in.readInt());
+        s.sequence = in.readInt();
+        s.state = Game.State.values()[in.readUnsignedByte()];
+        s.allocate(in.readUnsignedByte());
+        s.turnTimeout = in.readInt();
+        s.round = in.readUnsignedByte();
+        s.currentSeat = in.readUnsignedByte();
+        s.trump = in.readByte();
+        for (int seat = 0; seat < s.seats; seat++) {
+            s.names[seat] = new byte[in.readUnsignedByte()];
+            in.readFully(s.names[seat]);
+            s.handSizes[seat] = in.readUnsignedByte();
+            in.readFully(s.hands[seat], 0, s.handSizes[seat]);
+            s.predictions[seat] = in.readByte();
+            s.tricks[seat] = in.readUnsignedByte();
+            s.scores[seat] = in.readInt();
+            s.pendingScores[seat] = in.readInt();
+        }
+        s.pendingScoreCount = in.readUnsignedByte();
+        s.trickSize = in.readUnsignedByte();
+        in.readFully(s.trick, 0, s.trickSize);
+        return s;
+    }
+
+    /**
+     * Returns the table of this game.
+     *
+     * @return The id of the table
+     */
+    public int getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the step the game was in after the last event.
+     *
+     * @return The state of the game
+     */
+    public Game.State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the sequence number of the last applied event.
+     *
+     * @return The number of events applied
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of players.
+     *
+     * @return The number of seats
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * Returns the time each player has for a turn.
+     *
+     * @return Turn timeout in milliseconds, 0 for no deadline
+     */
+    public int getTurnTimeout() {
+        return turnTimeout;
+    }
+
+    /**
+     * Returns the name of the player at a seat.
+     *
+     * @param seat The seat
+     * @return The name of the player
+     */
+    public String getName(int seat) {
+        byte[] name = names[seat];
+        int length = name.length;
+        while (length > 0 && name[length - 1] == 0) {
+            length--;
+        }
+        return new String(name, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the current round.
+     *
+     * @return The round index
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Returns the seat whose turn it is.
+     *
+     * @return The seat on turn
+     */
+    public int getCurrentSeat() {
+        return currentSeat;
+    }
+
+    /**
+     * Returns the trump card of the current round.
+     *
+     * @return The stored card byte or {@link Event#NO_CARD}
+     */
+    public byte getTrump() {
+        return trump;
+    }
+
+    /**
+     * Returns the number of cards on the hand of a seat.
+     *
+     * @param seat The seat
+     * @return The hand size
+     */
+    public int getHandSize(int seat) {
+        return handSizes[seat];
+    }
+
+    /**
+     * Returns a card on the hand of a seat.
+     *
+     * @param seat The seat
+     * @param index The index of the card on the hand
+     * @return The stored card byte
+     */
+    public byte getHandCard(int seat, int index) {
+        return hands[seat][index];
+    }
+
+    /**
+     * Returns the prediction of a seat this round.
+     *
+     * @param seat The seat
+     * @return The prediction or -1 if not predicted yet
+     */
+    public int getPrediction(int seat) {
+        return predictions[seat];
+    }
+
+    /**
+     * Returns the number of seats which predicted this round.
+     *
+     * @return The number of predictions
+     */
+    public int getPredictionCount() {
+        int count = 0;
+        for (int prediction : predictions) {
+            if (prediction >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tricks a seat took this round.
+     *
+     * @param seat The seat
+     * @return The number of tricks
+     */
+    public int getTricks(int seat) {
+        return tricks[seat];
+    }
+
+    /**
+     * Returns the total score of a seat after the last finished round.
+     *
+     * @param seat The seat
+     * @return The total score
+     */
+    public int getScore(int seat) {
+        return scores[seat];
+    }
+
+    /**
+     * Returns the number of cards in the current trick.
+     *
+     * @return The trick size
+     */
+    public int getTrickSize() {
+        return trickSize;
+    }
+
+    /**
+     * Returns a card of the current trick.
+     *
+     * @param index The index of the card in playing order
+     * @return The stored card byte
+     */
+    public byte getTrickCard(int index) {
+        return trick[index];
+    }
+}
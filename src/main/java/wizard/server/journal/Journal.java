@@ -0,0 +1,280 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of all game events of a server.
+ * Events are written as fixed-size records into memory-mapped segment
+ * files of a directory. Appending only copies a record into mapped memory;
+ * a flush thread forces written records to disk every sync interval, so
+ * many events share one sync and game threads never wait for the disk.
+ * Records survive a crash of the server process as soon as they are
+ * appended, and a crash of the machine once they are synced.
+ */
+public class Journal implements AutoCloseable {
+
+    /** Number of records per segment file by default. */
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+    /** Time in milliseconds between syncs by default. */
+    public static final long DEFAULT_SYNC_INTERVAL = 10;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long syncInterval;
+
+    private final Queue<MappedByteBuffer> unsynced;
+    private final Thread flusher;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private long appended;
+    private long synced;
+    private int lastTable;
+    private volatile boolean dirty;
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal in a directory with default settings.
+     *
+     * @param directory The directory holding the segment files
+     * @throws IOException If the journal cannot be opened
+     */
+    public Journal(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_SYNC_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal in a directory, appending to its last segment.
+     *
+     * @param directory The directory holding the segment files
+     * @param segmentRecords The number of records per segment file
+     * @param syncInterval Time between syncs
+     * @param unit The unit of the sync interval
+     * @throws IOException If the journal cannot be opened
+     */
+    public Journal(final Path directory, int segmentRecords, long syncInterval, final TimeUnit unit)
+            throws IOException {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.syncInterval = unit.toNanos(syncInterval);
+        this.unsynced = new ArrayDeque<MappedByteBuffer>();
+        this.appended = 0;
+        this.synced = 0;
+        this.lastTable = 0;
+        this.dirty = false;
+        this.closed = false;
+
+        Files.createDirectories(directory);
+        new JournalReader(directory).read(e -> lastTable = Math.max(lastTable, e.getTable()));
+
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            // Continue after the last record written before
+            Path last = segments.get(segments.size() - 1);
+            openSegment(segmentIndex(last));
+            Event event = new Event();
+            while (segment.remaining() >= Event.SIZE) {
+                int position = segment.position();
+                if (!event.read(segment)) {
+                    segment.position(position);
+                    break;
+                }
+            }
+        }
+
+        this.flusher = new Thread(this::flushLoop, "Journal flush thread");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Returns the segment files of a journal directory in order.
+     *
+     * @param directory The directory holding the segment files
+     * @return Paths of all segment files, oldest first
+     * @throws IOException If the directory cannot be listed
+     */
+    static List<Path> segments(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<Path>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the index of a segment file.
+     *
+     * @param segment The path of the segment file
+     * @return The index of the segment
+     */
+    static int segmentIndex(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Maps a segment file, creating it if needed. Must hold the lock of
+     * this journal.
+     *
+     * @param index The index of the segment
+     * @throws IOException If the segment cannot be mapped
+     */
+    private void openSegment(int index) throws IOException {
+        Path path = directory.resolve(String.format("%08d%s", index, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long)segmentRecords * Event.SIZE);
+        }
+        segmentIndex = index;
+    }
+
+    /**
+     * Appends an event to this journal. Never waits for the disk.
+     *
+     * @param table The table the event happened at
+     * @param sequence The number of the event in its game
+     * @param type The kind of event
+     * @param round The round the event happened in
+     * @param seat The seat the event concerns or 0
+     * @param card The card byte of the event or {@link Event#NO_CARD}
+     * @param value The value of the event
+     * @throws IOException If a new segment cannot be created or the
+     *         journal has been closed
+     */
+    public synchronized void append(int table, int sequence, final EventType type, int round, int seat,
+            byte card, int value) throws IOException {
+        if (closed) {
+            throw new IOException("Journal has been closed");
+        }
+
+        if (segment.remaining() < Event.SIZE) {
+            // Full segments are synced by the flush thread
+            unsynced.add(segment);
+            openSegment(segmentIndex + 1);
+        }
+
+        Event.write(segment, table, sequence, type, round, seat, card, value);
+        lastTable = Math.max(lastTable, table);
+        appended++;
+        dirty = true;
+    }
+
+    /**
+     * Returns the number of records appended since opening.
+     *
+     * @return The number of appended records
+     */
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Returns the position the next record will be appended at, counting
+     * records from the start of the first segment.
+     *
+     * @return The number of records before the next one
+     */
+    public synchronized long getPosition() {
+        return (long)segmentIndex * segmentRecords + segment.position() / Event.SIZE;
+    }
+
+    /**
+     * Returns the highest table id found in this journal, so tables of a
+     * restarted server get new ids.
+     *
+     * @return The highest table id or 0 if the journal is empty
+     */
+    public synchronized int getLastTable() {
+        return lastTable;
+    }
+
+    /**
+     * Returns the number of times written records have been forced to disk.
+     *
+     * @return The number of syncs
+     */
+    public synchronized long getSynced() {
+        return synced;
+    }
+
+    /**
+     * Returns the directory holding the segment files.
+     *
+     * @return The journal directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public void sync() {
+        List<MappedByteBuffer> buffers = new ArrayList<MappedByteBuffer>();
+        synchronized (this) {
+            dirty = false;
+            buffers.addAll(unsynced);
+            unsynced.clear();
+            buffers.add(segment);
+            synced++;
+        }
+
+        // Segments are never unmapped, so forcing needs no lock
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Syncs appended records every sync interval until closed.
+     */
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(this, syncInterval);
+            if (dirty) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * Syncs all appended records and stops the flush thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+    }
+}
@@ -0,0 +1,74 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads all events of a journal directory in the order they were appended.
+ * Segments are mapped read-only and records are decoded into a single
+ * reused {@link Event}, so reading allocates nothing per event.
+ */
+public class JournalReader {
+
+    private final Path directory;
+
+    /**
+     * Create new {@code JournalReader} for a journal directory.
+     *
+     * @param directory The directory holding the segment files
+     */
+    public JournalReader(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Passes every event of the journal to a consumer. The event object is
+     * reused for the next record once the consumer returns.
+     *
+     * @param consumer Called for every event, oldest first
+     * @return The number of events read
+     * @throws IOException If a segment cannot be read
+     */
+    public long read(final Consumer<Event> consumer) throws IOException {
+        return read(0, consumer);
+    }
+
+    /**
+     * Passes every event of the journal from a position on to a consumer.
+     * Segments before the position are not read at all.
+     *
+     * @param position The position of the first record to read, see
+     *                 {@link Journal#getPosition()}
+     * @param consumer Called for every event, oldest first
+     * @return The number of events read
+     * @throws IOException If a segment cannot be read
+     */
+    public long read(long position, final Consumer<Event> consumer) throws IOException {
+        Event event = new Event();
+        long count = 0;
+
+        for (Path path : Journal.segments(directory)) {
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long records = channel.size() / Event.SIZE;
+                long first = Journal.segmentIndex(path) * records;
+                if (first + records <= position) {
+                    continue;
+                }
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                segment.position((int)(Math.max(0, position - first) * Event.SIZE));
+            }
+
+            while (segment.remaining() >= Event.SIZE && event.read(segment)) {
+                consumer.accept(event);
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,48 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import wizard.server.Game;
+
+/**
+ * Rebuilds all games which were not over when the server stopped, from the
+ * last snapshot and the journal records written after it.
+ */
+public final class Recovery {
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private Recovery() {
+    }
+
+    /**
+     * Returns the state of every game of a journal which is not over.
+     *
+     * @param directory The journal directory
+     * @return The states of all unfinished games
+     * @throws IOException If the snapshot or the journal cannot be read
+     */
+    public static List<GameState> recover(final Path directory) throws IOException {
+        long start = System.nanoTime();
+
+        Snapshot snapshot = Snapshot.read(directory);
+        Replay replay = (snapshot == null) ? new Replay() : new Replay(snapshot);
+        long events = replay.replay(directory, (snapshot == null) ? 0 : snapshot.getPosition());
+
+        List<GameState> games = new ArrayList<GameState>();
+        for (GameState game : replay.getGames().values()) {
+            if (game.getState() != Game.State.OVER && game.getSeats() > 0) {
+                games.add(game);
+            }
+        }
+
+        System.out.printf("Recovered %d games from %s and %d journal events in %.1f ms\n",
+            games.size(), (snapshot == null) ? "no snapshot" : "snapshot", events,
+            (System.nanoTime() - start) / 1e6);
+        return games;
+    }
+}
@@ -0,0 +1,153 @@
+package wizard.server.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import wizard.server.Game;
+
+/**
+ * Rebuilds the state of games from a journal, optionally starting from a
+ * snapshot. Events already contained in the snapshot of their game are
+ * skipped. If a table hosted several games only the last one is kept.
+ */
+public class Replay {
+
+    private final Map<Integer, GameState> games;
+    private long gamesStarted;
+
+    /**
+     * Create new empty {@code Replay}.
+     */
+    public Replay() {
+        this.games = new HashMap<Integer, GameState>();
+        this.gamesStarted = 0;
+    }
+
+    /**
+     * Create new {@code Replay} continuing from a snapshot.
+     *
+     * @param snapshot The snapshot to start from
+     */
+    public Replay(final Snapshot snapshot) {
+        this();
+        for (GameState game : snapshot.getGames()) {
+            games.put(game.getTable(), game);
+        }
+    }
+
+    /**
+     * Applies an event to the game it belongs to.
+     *
+     * @param event The event to apply
+     */
+    public void apply(final Event event) {
+        GameState game;
+        if (event.getType() == EventType.GAME_STARTED) {
+            game = new GameState(event.getTable());
+            games.put(event.getTable(), game);
+            gamesStarted++;
+        } else {
+            game = games.get(event.getTable());
+            if (game == null || event.getSequence() <= game.getSequence()) {
+                // Game started before the oldest segment or the event is
+                // part of the snapshot already
+                return;
+            }
+        }
+        game.apply(event);
+    }
+
+    /**
+     * Applies all events of a journal.
+     *
+     * @param directory The directory holding the segment files
+     * @return The number of events applied
+     * @throws IOException If the journal cannot be read
+     */
+    public long replay(final Path directory) throws IOException {
+        return replay(directory, 0);
+    }
+
+    /**
+     * Applies all events of a journal from a position on.
+     *
+     * @param directory The directory holding the segment files
+     * @param position The position of the first record to apply
+     * @return The number of events applied
+     * @throws IOException If the journal cannot be read
+     */
+    public long replay(final Path directory, long position) throws IOException {
+        return new JournalReader(directory).read(position, this::apply);
+    }
+
+    /**
+     * Returns the rebuilt state of the last game of a table.
+     *
+     * @param table The id of the table
+     * @return The game state or {@code null} if the table hosted no game
+     */
+    public GameState getGame(int table) {
+        return games.get(table);
+    }
+
+    /**
+     * Returns the rebuilt states of the last game of every table.
+     *
+     * @return Game states by table id
+     */
+    public Map<Integer, GameState> getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games started in the journal.
+     *
+     * @return The number of started games
+     */
+    public long getGamesStarted() {
+        return gamesStarted;
+    }
+
+    /**
+     * Main function of the replay tool.
+     * Usage: {@code Replay <journal directory> [table]}
+     *
+     * @param args Command line arguments for application
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: Replay <journal directory> [table]");
+            return;
+        }
+
+        Path directory = Paths.get(args[0]);
+        Replay replay = new Replay();
+
+        long start = System.nanoTime();
+        long events;
+        try {
+            events = replay.replay(directory);
+        } catch (IOException e) {
+            System.err.printf("IOException - Could not read journal '%s'!\n", directory);
+            e.printStackTrace();
+            return;
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+
+        System.out.printf("Replayed %d events of %d games in %.1f ms (%.1f million events per second)\n",
+            events, replay.getGamesStarted(), nanos / 1e6, events * 1e3 / nanos);
+
+        if (args.length > 1) {
+            GameState game = replay.getGame(Integer.parseInt(args[1]));
+            System.out.print(game == null ? "No game at this table\n" : game.toString());
+        } else {
+            long over = replay.getGames().values().stream()
+                .filter(g -> g.getState() == Game.State.OVER).count();
+            System.out.printf("%d tables, %d games over, %d games in progress\n",
+                replay.getGames().size(), over, replay.getGames().size() - over);
+        }
+    }
+}
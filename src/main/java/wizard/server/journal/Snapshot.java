@@ -0,0 +1,113 @@
+package wizard.server.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact snapshot of all live games of a server.
+ * Together with the journal records from its position on, a snapshot holds
+ * the exact state of every game at the time of the last journal record.
+ * Snapshot files are replaced atomically, so a crash while writing leaves
+ * the previous snapshot intact.
+ */
+public class Snapshot {
+
+    /** Name of the snapshot file in the journal directory. */
+    public static final String FILE_NAME = "snapshot";
+
+    /** Time in milliseconds between snapshots by default. */
+    public static final long DEFAULT_INTERVAL = 30000;
+
+    private static final int MAGIC = 0x57534E50;
+
+    private final long position;
+    private final List<GameState> games;
+
+    /**
+     * Create new {@code Snapshot}.
+     *
+     * @param position The journal position taken before the states of the
+     *                 games, see {@link Journal#getPosition()}
+     * @param games The states of all live games
+     */
+    public Snapshot(long position, final List<GameState> games) {
+        this.position = position;
+        this.games = games;
+    }
+
+    /**
+     * Returns the journal position to replay from.
+     *
+     * @return The journal position of this snapshot
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the states of all live games.
+     *
+     * @return The game states
+     */
+    public List<GameState> getGames() {
+        return games;
+    }
+
+    /**
+     * Writes this snapshot to the snapshot file of a journal directory.
+     *
+     * @param directory The journal directory
+     * @throws IOException If writing fails
+     */
+    public void write(final Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(position);
+            out.writeInt(games.size());
+            for (GameState game : games) {
+                game.writeTo(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the snapshot file of a journal directory.
+     *
+     * @param directory The journal directory
+     * @return The snapshot or {@code null} if there is none
+     * @throws IOException If the snapshot file cannot be read
+     */
+    public static Snapshot read(final Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(String.format("'%s' is no snapshot", file));
+            }
+            long position = in.readLong();
+            int count = in.readInt();
+            List<GameState> games = new ArrayList<GameState>(count);
+            for (int i = 0; i < count; i++) {
+                games.add(GameState.readFrom(in));
+            }
+            return new Snapshot(position, games);
+        }
+    }
+}
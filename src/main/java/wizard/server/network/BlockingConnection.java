@@ -0,0 +1,236 @@
+package wizard.server.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import wizard.common.network.FrameDecoder;
+import wizard.common.network.PooledBuffer;
+
+/**
+ * Connection to a single client using blocking I/O.
+ * Every connection has its own reader and writer thread, frames are queued
+ * for the writer so callers never block on the socket. Meant to be used with
+ * virtual threads, where blocking is cheap.
+ */
+public class BlockingConnection implements Connection {
+
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_GATHER = 64;
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private final SocketChannel channel;
+    private final ThreadFactory threads;
+    private final String address;
+
+    private final FrameDecoder decoder;
+    private final OutboundQueue writeQueue;
+    private final ByteBuffer[] gather;
+    private final AtomicBoolean closed;
+
+    private FrameHandler handler;
+    private volatile Thread writer;
+    private volatile boolean closing;
+    private volatile long writeCalls;
+
+    /**
+     * Create new {@code BlockingConnection} for given channel.
+     * The connection does not receive anything until it is opened.
+     *
+     * @param channel The connected channel
+     * @param threads Factory for the reader and writer thread
+     * @param limits The limits of the outbound queue
+     * @throws IOException If the channel cannot be switched to blocking mode
+     */
+    public BlockingConnection(final SocketChannel channel, final ThreadFactory threads,
+            final OutboundLimits limits) throws IOException {
+        this.channel = channel;
+        this.threads = threads;
+        this.address = String.valueOf(channel.getRemoteAddress()).replaceFirst("^.*/", "");
+
+        this.decoder = new FrameDecoder(READ_BUFFER_SIZE);
+        this.writeQueue = new OutboundQueue(limits);
+        this.gather = new ByteBuffer[MAX_GATHER];
+        this.closed = new AtomicBoolean(false);
+        this.closing = false;
+        this.writeCalls = 0;
+
+        channel.configureBlocking(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return address;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void open(final FrameHandler handler) {
+        this.handler = handler;
+
+        Thread reader = threads.newThread(this::read);
+        reader.setName(String.format("Player connection thread '%s'", this));
+        reader.start();
+
+        writer = threads.newThread(this::writeQueued);
+        writer.setName(String.format("Player writer thread '%s'", this));
+        writer.start();
+    }
+
+    /**
+     * Reads frames until the connection gets closed.
+     * Runs on the reader thread.
+     */
+    private void read() {
+        try {
+            int n;
+            while ((n = decoder.readFrom(channel)) >= 0) {
+                if (n == 0) {
+                    continue;
+                }
+                ByteBuffer payload;
+                while ((payload = decoder.next()) != null) {
+                    handler.frameReceived(payload);
+                }
+            }
+            close(null);
+        } catch (IOException e) {
+            close(closed.get() ? null : e);
+        }
+    }
+
+    /**
+     * Queues frames for the writer thread. Never blocks.
+     *
+     * @param frames Buffers each holding one complete frame
+     * @throws IOException If the connection is already closed or the client
+     *                     is too slow
+     */
+    @Override
+    public void write(final List<PooledBuffer> frames) throws IOException {
+        if (closed.get()) {
+            frames.forEach(PooledBuffer::release);
+            throw new IOException("Connection has been closed");
+        }
+
+        try {
+            writeQueue.add(frames);
+        } catch (IOException e) {
+            close(e);
+            throw e;
+        }
+        if (writeQueue.updateSlow()) {
+            System.err.printf("Client '%s' is falling behind (%d bytes queued for %d ms)\n",
+                this, writeQueue.getBytes(), writeQueue.getAge(TimeUnit.MILLISECONDS));
+        }
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Writes queued frames with gathering writes until the connection gets
+     * closed. Runs on the writer thread.
+     */
+    private void writeQueued() {
+        try {
+            while (!closed.get()) {
+                if (writeQueue.isEmpty()) {
+                    if (closing) {
+                        break;
+                    }
+                    writeQueue.updateSlow();
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                int n = writeQueue.gather(gather);
+                channel.write(gather, 0, n);
+                writeCalls++;
+
+                writeQueue.removeWritten();
+                Arrays.fill(gather, 0, n, null);
+            }
+        } catch (IOException e) {
+            close(closed.get() ? null : e);
+        } finally {
+            writeQueue.clear();
+        }
+    }
+
+    /**
+     * Closes this connection after the writer thread wrote all queued
+     * frames, waiting for it at most one second.
+     */
+    @Override
+    public void close() {
+        closing = true;
+
+        Thread w = writer;
+        if (w != null && w != Thread.currentThread()) {
+            LockSupport.unpark(w);
+            try {
+                w.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        close(null);
+    }
+
+    /**
+     * Closes the channel and notifies the handler once.
+     *
+     * @param cause The error which caused closing or {@code null}
+     */
+    private void close(final Exception cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LockSupport.unpark(writer);
+
+        if (handler != null) {
+            handler.connectionClosed(cause);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return writeQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getWriteCalls() {
+        return writeCalls;
+    }
+}
@@ -0,0 +1,268 @@
+package wizard.server.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.network.FrameDecoder;
+import wizard.common.network.PooledBuffer;
+
+/**
+ * Non-blocking connection to a single client served by a {@link SelectorLoop}.
+ * Frames may be written from any thread; they are queued and written to the
+ * channel by the I/O thread. Clients exceeding the limits of their queue get
+ * disconnected.
+ */
+public class ChannelConnection implements Connection {
+
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_GATHER = 64;
+
+    private final SocketChannel channel;
+    private final SelectorLoop loop;
+    private final String address;
+
+    private final FrameDecoder decoder;
+    private final OutboundQueue writeQueue;
+    private final ByteBuffer[] gather;
+
+    private FrameHandler handler;
+    private SelectionKey key;
+    private volatile boolean closed;
+    private volatile long writeCalls;
+
+    /**
+     * Create new {@code ChannelConnection} for given channel served by given
+     * loop. The connection does not receive anything until it is opened.
+     *
+     * @param channel The connected channel
+     * @param loop The I/O loop serving this connection
+     * @param limits The limits of the outbound queue
+     */
+    public ChannelConnection(final SocketChannel channel, final SelectorLoop loop,
+            final OutboundLimits limits) {
+        this.channel = channel;
+        this.loop = loop;
+        this.address = describe(channel);
+
+        this.decoder = new FrameDecoder(READ_BUFFER_SIZE);
+        this.writeQueue = new OutboundQueue(limits);
+        this.gather = new ByteBuffer[MAX_GATHER];
+        this.closed = false;
+        this.writeCalls = 0;
+    }
+
+    /**
+     * Returns a string describing the remote address of a channel.
+     *
+     * @param channel The channel to describe
+     * @return String representation of the remote address
+     */
+    private static String describe(final SocketChannel channel) {
+        try {
+            return String.valueOf(channel.getRemoteAddress()).replaceFirst("^.*/", "");
+        } catch (IOException e) {
+            return "<unknown>";
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return address;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void open(final FrameHandler handler) {
+        this.handler = handler;
+        loop.register(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return writeQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getWriteCalls() {
+        return writeCalls;
+    }
+
+    /**
+     * Queues frames for writing. Never blocks.
+     * Frames queued together are written with a single gathering write if
+     * the socket accepts them.
+     *
+     * @param frames Buffers each holding one complete frame
+     * @throws IOException If the connection is already closed or the client
+     *                     is too slow
+     */
+    @Override
+    public void write(final List<PooledBuffer> frames) throws IOException {
+        if (closed) {
+            frames.forEach(PooledBuffer::release);
+            throw new IOException("Connection has been closed");
+        }
+
+        try {
+            writeQueue.add(frames);
+        } catch (IOException e) {
+            loop.execute(() -> close(e));
+            throw e;
+        }
+        if (writeQueue.updateSlow()) {
+            System.err.printf("Client '%s' is falling behind (%d bytes queued for %d ms)\n",
+                this, writeQueue.getBytes(), writeQueue.getAge(TimeUnit.MILLISECONDS));
+        }
+        loop.requestWrite(this);
+    }
+
+    /**
+     * Closes this connection after writing as many queued frames as the
+     * socket accepts.
+     */
+    @Override
+    public void close() {
+        loop.execute(() -> {
+            handleWrite();
+            close(null);
+        });
+    }
+
+    /**
+     * Returns the channel of this connection.
+     *
+     * @return The channel of this connection
+     */
+    SocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Sets the selection key after the channel got registered.
+     * Called on the I/O thread.
+     *
+     * @param key The selection key of this connection
+     */
+    void attach(final SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Reads all available bytes and passes complete frames to the handler.
+     * Called on the I/O thread.
+     */
+    void handleRead() {
+        try {
+            int n;
+            while ((n = decoder.readFrom(channel)) > 0) {
+                ByteBuffer payload;
+                while ((payload = decoder.next()) != null) {
+                    handler.frameReceived(payload);
+                }
+            }
+
+            if (n < 0) {
+                close(null);
+            }
+        } catch (IOException e) {
+            close(e);
+        } catch (RuntimeException e) {
+            // Only the connection which sent the frame is lost
+            System.err.printf("Error handling frame of %s, closing the connection\n", this);
+            e.printStackTrace();
+            close(e);
+        }
+    }
+
+    /**
+     * Writes as many queued frames as the channel accepts.
+     * Called on the I/O thread.
+     */
+    void handleWrite() {
+        if (closed || key == null) {
+            return;
+        }
+
+        try {
+            while (!writeQueue.isEmpty()) {
+                // Collect queued frames without removing them
+                int n = writeQueue.gather(gather);
+
+                channel.write(gather, 0, n);
+                writeCalls++;
+
+                // Remove completely written frames
+                writeQueue.removeWritten();
+                boolean full = gather[n - 1].hasRemaining();
+                Arrays.fill(gather, 0, n, null);
+
+                if (full) {
+                    // Socket buffer is full, continue when writable again
+                    if (writeQueue.isExceeded()) {
+                        close(new IOException("Client stopped reading"));
+                        return;
+                    }
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            writeQueue.updateSlow();
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(e);
+        } catch (RuntimeException e) {
+            System.err.printf("Error writing to %s, closing the connection\n", this);
+            e.printStackTrace();
+            close(e);
+        }
+    }
+
+    /**
+     * Closes the channel and notifies the handler.
+     * Called on the I/O thread.
+     *
+     * @param cause The error which caused closing or {@code null}
+     */
+    void close(final Exception cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writeQueue.clear();
+
+        handler.connectionClosed(cause);
+    }
+}
@@ -0,0 +1,57 @@
+package wizard.server.network;
+
+import java.io.IOException;
+import java.util.List;
+
+import wizard.common.network.PooledBuffer;
+
+/**
+ * Transport of frames to and from a single client.
+ */
+public interface Connection {
+
+    /**
+     * Starts receiving frames from this connection.
+     *
+     * @param handler The handler to pass received frames to
+     */
+    public void open(final FrameHandler handler);
+
+    /**
+     * Queues frames to be written to the client, with as few write calls as
+     * possible. Never blocks on the socket.
+     * Takes over the reference to every frame and releases it once written
+     * or once the connection got closed. A client exceeding the limits of
+     * its outbound queue gets disconnected.
+     *
+     * @param frames Buffers each holding one complete frame
+     * @throws IOException If the connection is closed or the client is too slow
+     */
+    public void write(final List<PooledBuffer> frames) throws IOException;
+
+    /**
+     * Closes this connection.
+     */
+    public void close();
+
+    /**
+     * Returns whether this connection has been closed.
+     *
+     * @return True if this connection is closed, false otherwise
+     */
+    public boolean isClosed();
+
+    /**
+     * Returns the frames waiting to be written to the client.
+     *
+     * @return The outbound queue of this connection
+     */
+    public OutboundQueue getOutboundQueue();
+
+    /**
+     * Returns the number of write calls made to the socket.
+     *
+     * @return Number of write calls so far
+     */
+    public long getWriteCalls();
+}
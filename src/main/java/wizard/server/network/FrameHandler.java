@@ -0,0 +1,27 @@
+package wizard.server.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the events of a {@link ChannelConnection}.
+ * All methods are called on the I/O thread owning the connection and must
+ * not block.
+ */
+public interface FrameHandler {
+
+    /**
+     * Called for every complete frame received from the connection.
+     * The buffer is only valid for the duration of the call.
+     *
+     * @param payload The payload of the received frame
+     */
+    public void frameReceived(final ByteBuffer payload);
+
+    /**
+     * Called once when the connection has been closed.
+     *
+     * @param cause The error which caused the connection to close or
+     *              {@code null} if the other side closed it
+     */
+    public void connectionClosed(final Exception cause);
+}
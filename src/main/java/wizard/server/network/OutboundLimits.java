@@ -0,0 +1,62 @@
+package wizard.server.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thresholds for frames waiting to be written to a client.
+ * A client whose queue exceeds the slow thresholds gets flagged as slow, a
+ * client exceeding the maximum thresholds gets disconnected.
+ */
+public final class OutboundLimits {
+
+    /** Limits used by default. */
+    public static final OutboundLimits DEFAULT =
+        new OutboundLimits(64 * 1024, 1024 * 1024, 5, 30, TimeUnit.SECONDS);
+
+    private final long slowBytes;
+    private final long maxBytes;
+    private final long slowAge;
+    private final long maxAge;
+
+    /**
+     * Create new {@code OutboundLimits}.
+     *
+     * @param slowBytes Queued bytes after which a client is slow
+     * @param maxBytes Queued bytes after which a client gets disconnected
+     * @param slowAge Age of the oldest queued frame after which a client is slow
+     * @param maxAge Age of the oldest queued frame after which a client gets disconnected
+     * @param unit The unit of both ages
+     */
+    public OutboundLimits(long slowBytes, long maxBytes, long slowAge, long maxAge, final TimeUnit unit) {
+        if (slowBytes > maxBytes || slowAge > maxAge) {
+            throw new IllegalArgumentException("Slow thresholds must not exceed maximum thresholds");
+        }
+
+        this.slowBytes = slowBytes;
+        this.maxBytes = maxBytes;
+        this.slowAge = unit.toNanos(slowAge);
+        this.maxAge = unit.toNanos(maxAge);
+    }
+
+    /**
+     * Returns whether a client with given queue is slow.
+     *
+     * @param bytes Number of queued bytes
+     * @param age Age of the oldest queued frame in nanoseconds
+     * @return True if the client is slow, false otherwise
+     */
+    public boolean isSlow(long bytes, long age) {
+        return bytes > slowBytes || age > slowAge;
+    }
+
+    /**
+     * Returns whether a client with given queue has to be disconnected.
+     *
+     * @param bytes Number of queued bytes
+     * @param age Age of the oldest queued frame in nanoseconds
+     * @return True if the client has to be disconnected, false otherwise
+     */
+    public boolean isExceeded(long bytes, long age) {
+        return bytes > maxBytes || age > maxAge;
+    }
+}
@@ -0,0 +1,224 @@
+package wizard.server.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import wizard.common.network.PooledBuffer;
+
+/**
+ * Frames waiting to be written to a single client.
+ * Any thread may add frames, a single writer takes them. Tracks the number
+ * of queued bytes and the age of the oldest queued frame and checks them
+ * against the {@link OutboundLimits} of the connection.
+ */
+public class OutboundQueue {
+
+    /**
+     * A queued frame with the time it got queued.
+     */
+    private static final class Entry {
+
+        private final PooledBuffer frame;
+        private final int length;
+        private final long queued;
+
+        /**
+         * Create new {@code Entry} for given frame.
+         *
+         * @param frame The queued frame
+         * @param queued Time the frame got queued at
+         */
+        Entry(final PooledBuffer frame, long queued) {
+            this.frame = frame;
+            this.length = frame.buffer().remaining();
+            this.queued = queued;
+        }
+    }
+
+    private final OutboundLimits limits;
+
+    private final Queue<Entry> entries;
+    private final AtomicLong bytes;
+    private volatile long maxBytes;
+    private volatile boolean slow;
+
+    /**
+     * Create new {@code OutboundQueue} with given limits.
+     *
+     * @param limits The limits for this queue
+     */
+    public OutboundQueue(final OutboundLimits limits) {
+        this.limits = limits;
+
+        this.entries = new ConcurrentLinkedQueue<Entry>();
+        this.bytes = new AtomicLong(0);
+        this.maxBytes = 0;
+        this.slow = false;
+    }
+
+    /**
+     * Adds frames to the end of this queue. Takes over the reference to
+     * every frame. Frames are released instead if the limits are exceeded.
+     *
+     * @param frames Buffers each holding one complete frame
+     * @throws IOException If the queue exceeds its limits
+     */
+    public void add(final List<PooledBuffer> frames) throws IOException {
+        long now = System.nanoTime();
+        long total = bytes.get();
+        for (PooledBuffer frame : frames) {
+            total += frame.buffer().remaining();
+        }
+
+        if (limits.isExceeded(total, age(now))) {
+            frames.forEach(PooledBuffer::release);
+            throw new IOException(String.format(
+                "Client is too slow (%d bytes queued, oldest frame %d ms old)",
+                total, TimeUnit.NANOSECONDS.toMillis(age(now))));
+        }
+
+        for (PooledBuffer frame : frames) {
+            Entry entry = new Entry(frame, now);
+            bytes.addAndGet(entry.length);
+            entries.offer(entry);
+        }
+        if (total > maxBytes) {
+            maxBytes = total;
+        }
+    }
+
+    /**
+     * Collects queued frames without removing them.
+     * Only called by the writer.
+     *
+     * @param gather Array to put the frames into
+     * @return Number of collected frames
+     */
+    public int gather(final ByteBuffer[] gather) {
+        int n = 0;
+        for (Entry entry : entries) {
+            gather[n++] = entry.frame.buffer();
+            if (n == gather.length) {
+                break;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Removes and releases all completely written frames at the head of this
+     * queue. Only called by the writer.
+     */
+    public void removeWritten() {
+        Entry entry;
+        while ((entry = entries.peek()) != null && !entry.frame.buffer().hasRemaining()) {
+            entries.poll();
+            bytes.addAndGet(-entry.length);
+            entry.frame.release();
+        }
+    }
+
+    /**
+     * Removes and releases all queued frames.
+     */
+    public void clear() {
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            entry.frame.release();
+        }
+        bytes.set(0);
+    }
+
+    /**
+     * Returns whether no frames are queued.
+     *
+     * @return True if this queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the number of queued frames.
+     *
+     * @return Number of queued frames
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of queued bytes, including bytes of partially
+     * written frames.
+     *
+     * @return Number of queued bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the largest number of bytes queued at once so far.
+     *
+     * @return Largest number of queued bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns how long the oldest queued frame has been waiting.
+     *
+     * @param unit The unit to return the age in
+     * @return Age of the oldest frame or 0 if the queue is empty
+     */
+    public long getAge(final TimeUnit unit) {
+        return unit.convert(age(System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how long the oldest queued frame has been waiting.
+     *
+     * @param now The current time
+     * @return Age of the oldest frame in nanoseconds or 0 if the queue is empty
+     */
+    private long age(long now) {
+        Entry head = entries.peek();
+        return head == null ? 0 : now - head.queued;
+    }
+
+    /**
+     * Checks the queue against the limits and updates the slow flag.
+     *
+     * @return True if the slow flag has just been raised, false otherwise
+     */
+    public boolean updateSlow() {
+        boolean wasSlow = slow;
+        slow = limits.isSlow(bytes.get(), age(System.nanoTime()));
+        return slow && !wasSlow;
+    }
+
+    /**
+     * Checks whether the limits are exceeded, e.g. because the client
+     * stopped reading.
+     *
+     * @return True if the client has to be disconnected, false otherwise
+     */
+    public boolean isExceeded() {
+        return limits.isExceeded(bytes.get(), age(System.nanoTime()));
+    }
+
+    /**
+     * Returns whether the client has been flagged as slow at the last check.
+     *
+     * @return True if the client is slow, false otherwise
+     */
+    public boolean isSlow() {
+        return slow;
+    }
+}
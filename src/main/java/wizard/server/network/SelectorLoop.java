@@ -0,0 +1,143 @@
+package wizard.server.network;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single I/O thread serving many {@link ChannelConnection}s with one
+ * {@link Selector}.
+ */
+public class SelectorLoop implements Runnable {
+
+    private final String name;
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+
+    private volatile boolean running;
+
+    /**
+     * Create new {@code SelectorLoop} with given thread name.
+     *
+     * @param name The name of the thread running this loop
+     * @throws IOException If the selector cannot be opened
+     */
+    public SelectorLoop(final String name) throws IOException {
+        this.name = name;
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<Runnable>();
+        this.running = true;
+    }
+
+    /**
+     * Runs the given task on the I/O thread.
+     *
+     * @param task The task to run
+     */
+    public void execute(final Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Registers a connection with this loop.
+     *
+     * @param connection The connection to register
+     */
+    void register(final ChannelConnection connection) {
+        execute(() -> {
+            try {
+                connection.channel().configureBlocking(false);
+                SelectionKey key = connection.channel().register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(key);
+                connection.handleWrite();
+            } catch (IOException e) {
+                connection.close(e);
+            }
+        });
+    }
+
+    /**
+     * Makes the I/O thread write queued frames of a connection.
+     *
+     * @param connection The connection with queued frames
+     */
+    void requestWrite(final ChannelConnection connection) {
+        execute(connection::handleWrite);
+    }
+
+    /**
+     * Stops this loop and closes all its connections.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Runs a task on the I/O thread. A failing task is reported and does
+     * not end the loop serving the other connections.
+     *
+     * @param task The task to run
+     */
+    private void runTask(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.printf("Error in task of I/O loop '%s'!\n", name);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for I/O events and dispatches them until shut down.
+     */
+    @Override
+    public void run() {
+        Thread.currentThread().setName(name);
+
+        try {
+            while (running) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    runTask(task);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    ChannelConnection connection = (ChannelConnection)key.attachment();
+                    runTask(() -> {
+                        if (key.isValid() && key.isReadable()) {
+                            connection.handleRead();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.handleWrite();
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            System.err.printf("IOException - Error in I/O loop '%s'!\n", name);
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ChannelConnection connection = (ChannelConnection)key.attachment();
+                connection.handleWrite();
+                connection.close(null);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package wizard.server.network;
+
+import java.io.IOException;
+
+/**
+ * Fixed pool of {@link SelectorLoop}s sharing all connections of a server.
+ * New connections are spread over the loops round robin.
+ */
+public class SelectorLoopGroup {
+
+    private final SelectorLoop[] loops;
+    private int next;
+
+    /**
+     * Create new {@code SelectorLoopGroup} and start its threads.
+     *
+     * @param threads Number of I/O threads
+     * @throws IOException If a selector cannot be opened
+     */
+    public SelectorLoopGroup(int threads) throws IOException {
+        this.loops = new SelectorLoop[threads];
+        this.next = 0;
+
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new SelectorLoop(String.format("I/O thread %d", i));
+            Thread thread = new Thread(loops[i]);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the loop which should serve the next new connection.
+     *
+     * @return The loop for the next connection
+     */
+    public synchronized SelectorLoop next() {
+        SelectorLoop loop = loops[next];
+        next = (next + 1) % loops.length;
+        return loop;
+    }
+
+    /**
+     * Stops all loops of this group.
+     */
+    public void shutdown() {
+        for (SelectorLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+}
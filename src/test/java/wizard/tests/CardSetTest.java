@@ -0,0 +1,88 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import wizard.common.cards.Card;
+import wizard.common.cards.CardSet;
+import wizard.common.cards.JesterCard;
+import wizard.common.cards.NumberCard;
+import wizard.common.cards.WizardCard;
+import wizard.common.game.Color;
+import wizard.common.game.Hand;
+
+class CardSetTest {
+
+    @Test
+    void testMembership() {
+        CardSet set = new CardSet();
+        assertTrue(set.isEmpty());
+
+        // Number cards are unique
+        assertTrue(set.add(NumberCard.of(7, Color.GREEN)));
+        assertFalse(set.add(NumberCard.of(7, Color.GREEN)));
+        assertTrue(set.contains(NumberCard.of(7, Color.GREEN)));
+        assertFalse(set.contains(NumberCard.of(7, Color.RED)));
+        assertTrue(set.containsColor(Color.GREEN));
+        assertFalse(set.containsColor(Color.BLUE));
+
+        // Every wizard is a card of its own
+        for (int i = 0; i < 4; i++) {
+            assertTrue(set.add(WizardCard.of(i)));
+        }
+        assertFalse(set.add(WizardCard.of(2)));
+        assertFalse(set.contains(JesterCard.of(0)));
+        assertTrue(set.size() == 5);
+
+        // Removing a wizard keeps the others
+        assertTrue(set.remove(WizardCard.of(1)));
+        assertFalse(set.contains(WizardCard.of(1)));
+        assertTrue(set.contains(WizardCard.of(0)));
+        assertTrue(set.size() == 4);
+
+        // Full deck
+        CardSet deck = new CardSet(CardSet.ALL);
+        assertTrue(deck.size() == Card.COUNT);
+        for (Color color : Arrays.asList(Color.BLUE, Color.GREEN, Color.RED, Color.YELLOW)) {
+            assertTrue(new CardSet(CardSet.colorMask(color)).size() == 13);
+        }
+        assertTrue(new CardSet(deck.asList()).bits() == CardSet.ALL);
+    }
+
+    @Test
+    void testOrderAndFollowSuit() {
+        Hand hand = new Hand(Arrays.asList(
+            WizardCard.of(0),
+            NumberCard.of(3, Color.RED),
+            JesterCard.of(3),
+            NumberCard.of(12, Color.BLUE),
+            NumberCard.of(1, Color.RED)
+        ));
+
+        // Sorted by color, then by value
+        List<Card> cards = hand.asList();
+        assertTrue(cards.get(0) == NumberCard.of(12, Color.BLUE));
+        assertTrue(cards.get(1) == NumberCard.of(1, Color.RED));
+        assertTrue(cards.get(2) == NumberCard.of(3, Color.RED));
+        assertTrue(cards.get(3) == JesterCard.of(3));
+        assertTrue(cards.get(4) == WizardCard.of(0));
+        assertTrue(hand.get(2) == cards.get(2));
+
+        // Red has to be followed, jesters and wizards may be played anytime
+        CardSet playable = hand.playable(Color.RED);
+        assertTrue(playable.size() == 4);
+        assertFalse(playable.contains(NumberCard.of(12, Color.BLUE)));
+
+        // Without any green every card may be played
+        assertTrue(hand.playable(Color.GREEN).size() == 5);
+        assertTrue(hand.playable(Color.CLEAR).size() == 5);
+
+        hand.remove(NumberCard.of(12, Color.BLUE));
+        assertFalse(hand.containsColor(Color.BLUE));
+        assertTrue(hand.count() == 4);
+    }
+}
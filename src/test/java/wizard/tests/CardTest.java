@@ -4,6 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import        org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import wizard.common.cards.Card;
 import wizard.common.cards.JesterCard;
 import wizard.common.cards.NumberCard;
@@ -15,20 +21,25 @@ class CardTest {
     @Test
     void testEquals() {
         // Equal (self)
-        final Card c1 = new NumberCard(10, Color.RED);
+        final Card c1 = NumberCard.of(10, Color.RED);
         assertTrue(c1.equals(c1));
 
-        // Equal
-        final Card c2 = new NumberCard(10, Color.RED);
-        assertTrue(c1.equals(c2));
+        // Cards are canonical
+        final Card c2 = NumberCard.of(10, Color.RED);
+        assertTrue(c1 == c2);
+        assertTrue(Card.of(c1.getOrdinal()) == c1);
 
         // Normal not equal
-        final Card c3 = new NumberCard(10, Color.RED);
-        final Card c4 = new NumberCard(12, Color.RED);
-        final Card c5 = new NumberCard(12, Color.BLUE);
+        final Card c3 = NumberCard.of(10, Color.RED);
+        final Card c4 = NumberCard.of(12, Color.RED);
+        final Card c5 = NumberCard.of(12, Color.BLUE);
         assertFalse(c3.equals(c4));
         assertFalse(c4.equals(c5));
 
+        // Wizards and jesters are different cards
+        assertFalse(WizardCard.of(0).equals(WizardCard.of(1)));
+        assertFalse(JesterCard.of(2).equals(JesterCard.of(3)));
+
         // Not equal with null
         assertFalse(c5.equals(null));
 
@@ -36,13 +47,35 @@ class CardTest {
         assertFalse(c5.equals(new Object()));
     }
 
+    @Test
+    void testOrdinals() throws IOException, ClassNotFoundException {
+        // Ordinals are stable and unique
+        for (int i = 0; i < Card.COUNT; i++) {
+            assertTrue(Card.of(i).getOrdinal() == i);
+            assertTrue(Card.values().get(i) == Card.of(i));
+        }
+        assertTrue(NumberCard.of(1, Color.BLUE).getOrdinal() == 0);
+        assertTrue(NumberCard.of(13, Color.YELLOW).getOrdinal() == 51);
+        assertTrue(JesterCard.of(0).getOrdinal() == Card.FIRST_JESTER);
+        assertTrue(WizardCard.of(3).getOrdinal() == Card.COUNT - 1);
+
+        // Deserialized cards stay canonical
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(WizardCard.of(2));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(in.readObject() == WizardCard.of(2));
+        }
+    }
+
     @Test
     void testIsWizard() {
         // Number cards are no wizards
-        final Card c1 = new NumberCard(1, Color.BLUE);
-        final Card c2 = new NumberCard(2, Color.GREEN);
-        final Card c3 = new NumberCard(3, Color.RED);
-        final Card c4 = new NumberCard(4, Color.YELLOW);
+        final Card c1 = NumberCard.of(1, Color.BLUE);
+        final Card c2 = NumberCard.of(2, Color.GREEN);
+        final Card c3 = NumberCard.of(3, Color.RED);
+        final Card c4 = NumberCard.of(4, Color.YELLOW);
 
         assertFalse(c1.isWizard());
         assertFalse(c2.isWizard());
@@ -50,11 +83,11 @@ class CardTest {
         assertFalse(c4.isWizard());
 
         // A jester is not a wizard
-        final Card c5 = new JesterCard();
+        final Card c5 = JesterCard.of(0);
         assertFalse(c5.isWizard());
 
         // Wizard is wizard
-        final Card c6 = new WizardCard();
+        final Card c6 = WizardCard.of(0);
         assertTrue(c6.isWizard());
     }
 
@@ -0,0 +1,137 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import wizard.client.ClientGame;
+import wizard.client.ServerConnectionHandler;
+import wizard.client.UserView;
+import wizard.common.GameStatus;
+import wizard.common.cards.Card;
+import wizard.common.cards.NumberCard;
+import wizard.common.game.Color;
+import wizard.common.game.Hand;
+import wizard.common.game.ScoreBoard;
+import wizard.common.game.Trick;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.EventMessage;
+import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.ScoresMessage;
+import wizard.common.network.BinaryCodec;
+import wizard.common.network.Frames;
+import wizard.common.network.Handshake;
+import wizard.common.network.WireFormat;
+
+class ClientGameTest {
+
+    /**
+     * View keeping every hand and trick shown to the user.
+     */
+    private static class RecordingView implements UserView {
+
+        private final List<List<Card>> hands = new ArrayList<List<Card>>();
+        private final List<List<Card>> tricks = new ArrayList<List<Card>>();
+
+        @Override
+        public synchronized void refresh(final Hand hand, final Card trumpCard, final Color trumpColor,
+                final Trick trick, final ScoreBoard scoreBoard, final GameStatus gameStatus,
+                final String gameError) {
+            hands.add(new ArrayList<Card>(hand.asList()));
+            tricks.add(new ArrayList<Card>(trick.asList()));
+        }
+
+        @Override
+        public int askPrediction() {
+            return 0;
+        }
+
+        @Override
+        public Card askTrickCard() {
+            return null;
+        }
+    }
+
+    private final BinaryCodec codec = new BinaryCodec();
+
+    /**
+     * Sends a message to the client.
+     */
+    private void send(final OutputStream out, final Message message) throws IOException {
+        write(out, codec.encode(message));
+    }
+
+    /**
+     * Writes a whole frame to the client.
+     */
+    private static void write(final OutputStream out, final ByteBuffer frame) throws IOException {
+        out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        out.flush();
+    }
+
+    @Test
+    void testMissedEvent() throws IOException, InterruptedException {
+        Card first = NumberCard.of(3, Color.RED);
+        Card second = NumberCard.of(7, Color.BLUE);
+        ScoreBoard scores = new ScoreBoard();
+        scores.add("Alfa");
+        scores.add("Bravo");
+        RecordingView view = new RecordingView();
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+                Socket peer = server.accept()) {
+            ServerConnectionHandler connection = new ServerConnectionHandler(socket,
+                EnumSet.of(WireFormat.BINARY));
+            peer.setSoTimeout(5000);
+            DataInputStream in = new DataInputStream(peer.getInputStream());
+            OutputStream out = peer.getOutputStream();
+            Handshake.readOffer(Frames.read(in));
+            write(out, Handshake.answer(WireFormat.BINARY));
+
+            Thread receiver = new Thread(connection);
+            Thread game = new Thread(new ClientGame(connection, view));
+            receiver.start();
+            game.start();
+
+            // Whole state up to event 0, then the card of the player is played
+            send(out, new ScoresMessage(MessageType.UPDATE_SCORES, scores));
+            send(out, new CardsMessage(MessageType.UPDATE_HAND, new Card[] {first, second}));
+            send(out, new EventMessage(MessageType.STATE_SYNCED, 0, -1, 0));
+            send(out, new EventMessage(MessageType.CARD_PLAYED, 1, 0, first.getOrdinal()));
+
+            // Event 2 is missing, the client asks for the whole state
+            send(out, new EventMessage(MessageType.CARD_PLAYED, 3, 1, second.getOrdinal()));
+            Message answer = codec.decode(Frames.read(in));
+            assertTrue(answer.getType() == MessageType.RESYNC);
+
+            // Events are ignored until the whole state has been received
+            send(out, new EventMessage(MessageType.CARD_PLAYED, 4, 1, second.getOrdinal()));
+            send(out, new GameStatusMessage(MessageType.GAME_STATUS, GameStatus.GAME_OVER));
+            game.join(5000);
+            assertFalse(game.isAlive());
+            receiver.join(5000);
+        }
+
+        synchronized (view) {
+            List<Card> hand = view.hands.get(view.hands.size() - 1);
+            List<Card> trick = view.tricks.get(view.tricks.size() - 1);
+            assertTrue(hand.equals(Arrays.asList(second)));
+            assertTrue(trick.equals(Arrays.asList(first)));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import wizard.common.GameStatus;
+import wizard.common.cards.Card;
+import wizard.common.cards.JesterCard;
+import wizard.common.cards.NumberCard;
+import wizard.common.cards.WizardCard;
+import wizard.common.game.Color;
+import wizard.common.game.ScoreBoard;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.ColorMessage;
+import wizard.common.messages.EventMessage;
+import wizard.common.messages.GameStatusMessage;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.ScoresMessage;
+import wizard.common.messages.SessionMessage;
+import wizard.common.messages.StringMessage;
+import wizard.common.messages.VoidMessage;
+import wizard.common.network.BufferPool;
+import wizard.common.network.Frames;
+import wizard.common.network.Handshake;
+import wizard.common.network.MessageCodec;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.SharedMessage;
+import wizard.common.network.WireFormat;
+
+class CodecTest {
+
+    /**
+     * Encodes a message with one codec and decodes it with another one.
+     */
+    private static Message roundTrip(final MessageCodec sender, final MessageCodec receiver,
+            final Message message) throws IOException {
+        ByteBuffer frame = sender.encode(message);
+        assertTrue(frame.getInt(frame.position()) == frame.remaining() - Frames.HEADER_LENGTH);
+        frame.position(frame.position() + Frames.HEADER_LENGTH);
+        return receiver.decode(frame.slice());
+    }
+
+    @Test
+    void testAllMessages() throws IOException {
+        ScoreBoard scores = new ScoreBoard();
+        scores.add("Alfa");
+        scores.add("Bravo");
+        scores.setPredictions("Alfa", 2);
+        scores.setTricks("Bravo", 1);
+        scores.setScore("Bravo", -30);
+
+        Card[] cards = {
+            NumberCard.of(1, Color.BLUE),
+            NumberCard.of(13, Color.YELLOW),
+            WizardCard.of(0),
+            JesterCard.of(0)
+        };
+
+        for (WireFormat format : WireFormat.values()) {
+            MessageCodec sender = format.newCodec();
+            MessageCodec receiver = format.newCodec();
+
+            Message m1 = roundTrip(sender, receiver, new VoidMessage(MessageType.ASK_PREDICTION));
+            assertTrue(m1 instanceof VoidMessage);
+            assertTrue(m1.getType() == MessageType.ASK_PREDICTION);
+
+            Message m2 = roundTrip(sender, receiver, new IntMessage(MessageType.ANSWER_PREDICTION, 3));
+            assertTrue(((IntMessage)m2).getContent() == 3);
+
+            Message m3 = roundTrip(sender, receiver, new StringMessage(MessageType.GAME_ERROR, "Fehler \u00e4\u00f6\u00fc"));
+            assertTrue(((StringMessage)m3).getContent().equals("Fehler \u00e4\u00f6\u00fc"));
+
+            Message m4 = roundTrip(sender, receiver, new CardMessage(MessageType.UPDATE_TRUMP_CARD, cards[1]));
+            assertTrue(((CardMessage)m4).getContent().equals(cards[1]));
+
+            Message m5 = roundTrip(sender, receiver, new CardsMessage(MessageType.UPDATE_HAND, cards));
+            assertTrue(Arrays.equals(((CardsMessage)m5).getContent(), cards));
+
+            Message m6 = roundTrip(sender, receiver, new ColorMessage(MessageType.UPDATE_TRUMP_COLOR, Color.GREEN));
+            assertTrue(((ColorMessage)m6).getContent() == Color.GREEN);
+
+            Message m7 = roundTrip(sender, receiver,
+                new GameStatusMessage(MessageType.GAME_STATUS, GameStatus.WAITING_CARD));
+            assertTrue(((GameStatusMessage)m7).getContent() == GameStatus.WAITING_CARD);
+
+            Message m8 = roundTrip(sender, receiver, new ScoresMessage(MessageType.UPDATE_SCORES, scores));
+            ScoreBoard received = ((ScoresMessage)m8).getContent();
+            assertTrue(received.getPrediction("Alfa") == 2);
+            assertTrue(received.getPrediction("Bravo") == -1);
+            assertTrue(received.getTricks("Bravo") == 1);
+            assertTrue(received.getScore("Bravo") == -30);
+
+            Message m9 = roundTrip(sender, receiver,
+                new SessionMessage(MessageType.RESUME_SESSION, -1234567890123L, 4096));
+            assertTrue(((SessionMessage)m9).getContent() == -1234567890123L);
+            assertTrue(((SessionMessage)m9).getSequence() == 4096);
+
+            Message m10 = roundTrip(sender, receiver, new EventMessage(MessageType.CARD_PLAYED, 70000, 5,
+                WizardCard.of(3).getOrdinal()));
+            assertTrue(m10.getType() == MessageType.CARD_PLAYED);
+            assertTrue(((EventMessage)m10).getContent() == 70000);
+            assertTrue(((EventMessage)m10).getSeat() == 5);
+            assertTrue(Card.of(((EventMessage)m10).getValue()) == WizardCard.of(3));
+
+            Message m11 = roundTrip(sender, receiver, new EventMessage(MessageType.ROUND_SCORED, 1, -1, 20));
+            assertTrue(((EventMessage)m11).getSeat() == -1);
+            assertTrue(((EventMessage)m11).getValue() == 20);
+        }
+    }
+
+    @Test
+    void testScoreHistory() throws IOException {
+        ScoreBoard scores = new ScoreBoard();
+        scores.add("Alfa");
+        scores.add("Bravo");
+        for (int round = 0; round < 3; round++) {
+            scores.setPredictions(0, round);
+            scores.setPredictions(1, 0);
+            scores.predictionsToScore();
+        }
+
+        for (WireFormat format : WireFormat.values()) {
+            MessageCodec sender = format.newCodec();
+            MessageCodec receiver = format.newCodec();
+
+            // Only the newest round is sent
+            Message m = roundTrip(sender, receiver, new ScoresMessage(MessageType.UPDATE_SCORES, scores));
+            ScoreBoard received = ((ScoresMessage)m).getContent();
+            assertTrue(received.getFirstRound() == 2);
+            assertTrue(received.getRounds() == 3);
+            assertTrue(received.getRoundPrediction(2, 0) == 2);
+            assertTrue(received.getRoundDelta(2, 0) == -20);
+            assertTrue(received.getRoundTotal(2, 1) == 60);
+            assertTrue(received.getRank("Bravo") == 1);
+        }
+    }
+
+    @Test
+    void testResendChangedScores() throws IOException {
+        ScoreBoard scores = new ScoreBoard();
+        scores.add("Alfa");
+
+        // Object stream is not reset between the messages, so the second
+        // message must not refer back to the first scoreboard
+        for (WireFormat format : WireFormat.values()) {
+            MessageCodec sender = format.newCodec();
+            MessageCodec receiver = format.newCodec();
+
+            for (int i = 0; i < 3; i++) {
+                scores.setScore("Alfa", i);
+                Message m = roundTrip(sender, receiver, new ScoresMessage(MessageType.UPDATE_SCORES, scores));
+                assertTrue(((ScoresMessage)m).getContent().getScore("Alfa") == i);
+            }
+        }
+    }
+
+    @Test
+    void testBinaryIsSmaller() throws IOException {
+        Message m = new CardMessage(MessageType.ANSWER_TRICK_CARD, NumberCard.of(7, Color.RED));
+
+        int binary = WireFormat.BINARY.newCodec().encode(m).remaining();
+        int serialized = WireFormat.SERIALIZATION.newCodec().encode(m).remaining();
+
+        assertTrue(binary == Frames.HEADER_LENGTH + 3);
+        assertTrue(binary < serialized);
+    }
+
+    @Test
+    void testSharedMessage() throws IOException {
+        BufferPool pool = new BufferPool(1024, 4);
+        SharedMessage shared = new SharedMessage(
+            new GameStatusMessage(MessageType.GAME_STATUS, GameStatus.WAITING_CARD_OTHER));
+
+        // Stateless codecs share one frame, each with its own position
+        PooledBuffer f1 = shared.frameFor(WireFormat.BINARY.newCodec(), pool);
+        PooledBuffer f2 = shared.frameFor(WireFormat.BINARY.newCodec(), pool);
+        assertTrue(f1 != f2);
+        assertTrue(f1.refCount() == 3);
+        assertTrue(pool.getAllocated() == 1);
+        f1.buffer().position(f1.buffer().limit());
+        assertTrue(f2.buffer().position() == 0);
+
+        // Stateful codecs encode on their own
+        PooledBuffer f3 = shared.frameFor(WireFormat.SERIALIZATION.newCodec(), pool);
+        assertTrue(f3.refCount() == 1);
+        assertTrue(pool.getAllocated() == 2);
+
+        // Shared frame returns to the pool after the last connection wrote it
+        shared.release();
+        f1.release();
+        assertTrue(pool.getIdle() == 0);
+        f2.release();
+        assertTrue(pool.getIdle() == 1);
+        f3.release();
+        assertTrue(pool.getIdle() == 2);
+    }
+
+    @Test
+    void testPooledEncoding() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        MessageCodec receiver = WireFormat.BINARY.newCodec();
+
+        // Buffers are reused once released
+        Message small = new IntMessage(MessageType.ANSWER_PREDICTION, 3);
+        for (int i = 0; i < 10; i++) {
+            PooledBuffer frame = Frames.encode(WireFormat.BINARY.newCodec(), small, pool);
+            assertTrue(frame.buffer().isDirect());
+            ByteBuffer payload = frame.buffer().duplicate();
+            payload.position(Frames.HEADER_LENGTH);
+            assertTrue(((IntMessage)receiver.decode(payload.slice())).getContent() == 3);
+            frame.release();
+        }
+        assertTrue(pool.getAllocated() == 1);
+
+        // Frames larger than pooled buffers fall back to the heap
+        Message large = new StringMessage(MessageType.GAME_ERROR, "A rather long message text");
+        PooledBuffer frame = Frames.encode(WireFormat.BINARY.newCodec(), large, pool);
+        assertTrue(!frame.buffer().isDirect());
+        frame.release();
+        assertTrue(pool.getIdle() == 1);
+
+        // Stateful codecs keep their stream consistent when falling back
+        MessageCodec sender = WireFormat.SERIALIZATION.newCodec();
+        receiver = WireFormat.SERIALIZATION.newCodec();
+        for (Message message : Arrays.asList(small, large, small)) {
+            frame = Frames.encode(sender, message, pool);
+            ByteBuffer payload = frame.buffer().duplicate();
+            payload.position(Frames.HEADER_LENGTH);
+            assertTrue(receiver.decode(payload.slice()).getClass() == message.getClass());
+            frame.release();
+        }
+    }
+
+    @Test
+    void testMalformed() throws IOException, ReflectiveOperationException {
+        MessageCodec codec = WireFormat.BINARY.newCodec();
+
+        // Unknown message type
+        assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap(new byte[] { 100, 0 })));
+
+        // Truncated content
+        assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap(new byte[] { 0, 1, 0 })));
+
+        // Serialized card without a valid ordinal
+        Card card = Card.of(Card.COUNT - 1);
+        Field ordinal = Card.class.getDeclaredField("ordinal");
+        ordinal.setAccessible(true);
+        ByteBuffer frame;
+        try {
+            ordinal.setInt(card, Card.COUNT + 10);
+            frame = WireFormat.SERIALIZATION.newCodec().encode(new CardMessage(MessageType.ANSWER_TRICK_CARD, card));
+        } finally {
+            ordinal.setInt(card, Card.COUNT - 1);
+        }
+        frame.position(frame.position() + Frames.HEADER_LENGTH);
+        ByteBuffer payload = frame.slice();
+        assertThrows(IOException.class, () -> WireFormat.SERIALIZATION.newCodec().decode(payload));
+    }
+
+    @Test
+    void testHandshake() throws IOException {
+        ByteBuffer offer = Handshake.offer(EnumSet.of(WireFormat.SERIALIZATION));
+        offer.position(Frames.HEADER_LENGTH);
+
+        WireFormat chosen = Handshake.choose(
+            Arrays.asList(WireFormat.BINARY, WireFormat.SERIALIZATION),
+            Handshake.readOffer(offer.slice()));
+        assertTrue(chosen == WireFormat.SERIALIZATION);
+
+        ByteBuffer answer = Handshake.answer(chosen);
+        answer.position(Frames.HEADER_LENGTH);
+        assertTrue(Handshake.readAnswer(answer.slice()) == WireFormat.SERIALIZATION);
+
+        assertTrue(Handshake.choose(Arrays.asList(WireFormat.BINARY),
+            EnumSet.of(WireFormat.SERIALIZATION)) == null);
+    }
+
+}
@@ -1,9 +1,16 @@
 package wizard.tests;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import        org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.SplittableRandom;
+
+import wizard.common.cards.Card;
+import wizard.common.cards.CardSet;
 import wizard.common.game.Deck;
 
 class DeckTest {
@@ -18,4 +25,41 @@ class DeckTest {
         assertNull(d.takeRandom());
     }
 
+    @Test
+    void testDeal() {
+        // Every card is dealt exactly once
+        Deck d = new Deck(42);
+        CardSet dealt = new CardSet();
+        for (int i = 0; i < 6; i++) {
+            List<Card> hand = d.deal(10);
+            assertTrue(hand.size() == 10);
+            for (Card card : hand) {
+                assertTrue(dealt.add(card));
+            }
+        }
+        assertTrue(dealt.bits() == CardSet.ALL);
+        assertTrue(d.size() == 0);
+        assertNull(d.deal(1));
+    }
+
+    @Test
+    void testSeed() {
+        // Same seed deals the same cards
+        assertTrue(new Deck(7).asList().equals(new Deck(7).asList()));
+        assertFalse(new Deck(7).asList().equals(new Deck(8).asList()));
+
+        // Decks shuffled by one generator differ
+        SplittableRandom random = new SplittableRandom(7);
+        Deck first = new Deck(random);
+        Deck second = new Deck(random);
+        assertFalse(first.asList().equals(second.asList()));
+
+        // Dealing takes from the top
+        Deck d = new Deck(7);
+        List<Card> order = d.asList();
+        assertTrue(d.takeRandom() == order.get(0));
+        assertTrue(d.deal(2).equals(order.subList(1, 3)));
+        assertTrue(d.asList().equals(order.subList(3, order.size())));
+    }
+
 }
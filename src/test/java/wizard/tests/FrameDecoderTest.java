@@ -0,0 +1,54 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.network.FrameDecoder;
+import wizard.common.network.SerializationCodec;
+
+class FrameDecoderTest {
+
+    @Test
+    void testSplitFrames() throws IOException {
+        SerializationCodec sender = new SerializationCodec();
+        SerializationCodec receiver = new SerializationCodec();
+
+        // Write many frames back to back
+        ByteBuffer wire = ByteBuffer.allocate(1 << 16);
+        for (int i = 0; i < 100; i++) {
+            wire.put(sender.encode(new IntMessage(MessageType.ANSWER_PREDICTION, i)));
+        }
+        wire.flip();
+        byte[] bytes = new byte[wire.remaining()];
+        wire.get(bytes);
+
+        // Read them through a tiny buffer so frames get split
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+        FrameDecoder decoder = new FrameDecoder(8);
+
+        int expected = 0;
+        while (decoder.readFrom(channel) > 0) {
+            ByteBuffer payload;
+            while ((payload = decoder.next()) != null) {
+                Message m = receiver.decode(payload);
+                assertTrue(m.getType() == MessageType.ANSWER_PREDICTION);
+                assertTrue((Integer)m.getContent() == expected);
+                expected++;
+            }
+        }
+
+        assertTrue(expected == 100);
+        assertNull(decoder.next());
+    }
+
+}
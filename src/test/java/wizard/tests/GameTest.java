@@ -0,0 +1,339 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import wizard.common.cards.Card;
+import wizard.common.cards.NumberCard;
+import wizard.common.cards.WizardCard;
+import wizard.common.game.Color;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.CardsMessage;
+import wizard.common.messages.EventMessage;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.VoidMessage;
+import wizard.common.network.BinaryCodec;
+import wizard.common.network.Frames;
+import wizard.common.network.Handshake;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.WireFormat;
+import wizard.server.Broadcaster;
+import wizard.server.ClientConnectionHandler;
+import wizard.server.Game;
+import wizard.server.Player;
+import wizard.server.Spectators;
+import wizard.server.WizardServer;
+import wizard.server.journal.GameRecorder;
+import wizard.server.journal.GameState;
+import wizard.server.network.Connection;
+import wizard.server.network.FrameHandler;
+import wizard.server.network.OutboundLimits;
+import wizard.server.network.OutboundQueue;
+
+class GameTest {
+
+    /**
+     * Connection decoding and keeping every message written to it.
+     */
+    private static class RecordingConnection implements Connection {
+
+        private final List<Message> messages = new ArrayList<Message>();
+        private final BinaryCodec codec = new BinaryCodec();
+
+        @Override
+        public void open(final FrameHandler handler) {
+        }
+
+        @Override
+        public void write(final List<PooledBuffer> frames) {
+            for (PooledBuffer frame : frames) {
+                ByteBuffer payload = frame.buffer().duplicate();
+                payload.position(payload.position() + Frames.HEADER_LENGTH);
+                try {
+                    messages.add(codec.decode(payload));
+                } catch (IOException e) {
+                    // Handshake answer
+                }
+                frame.release();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return new OutboundQueue(OutboundLimits.DEFAULT);
+        }
+
+        @Override
+        public long getWriteCalls() {
+            return 0;
+        }
+    }
+
+    private final List<RecordingConnection> connections = new ArrayList<RecordingConnection>();
+    private final List<Player> players = new ArrayList<Player>();
+
+    /**
+     * Seats a player whose client uses the binary wire format.
+     */
+    private Player player(final String name) {
+        return player(name, false);
+    }
+
+    /**
+     * Seats a player whose client uses the binary wire format and
+     * optionally asked for game events.
+     */
+    private Player player(final String name, boolean eventSync) {
+        RecordingConnection connection = new RecordingConnection();
+        ClientConnectionHandler client = new ClientConnectionHandler(connection,
+            WizardServer.DEFAULT_WIRE_FORMATS, null, null);
+        ByteBuffer offer = Handshake.offer(EnumSet.of(WireFormat.BINARY));
+        offer.position(Frames.HEADER_LENGTH);
+        client.frameReceived(offer.slice());
+        client.setEventSync(eventSync);
+
+        Player player = new Player(name, client);
+        connections.add(connection);
+        players.add(player);
+        return player;
+    }
+
+    /**
+     * Creates a seeded game of all players, running every event right away.
+     */
+    private Game create(final GameRecorder recorder) {
+        Game game = new Game(players, new Broadcaster(), null, 0, Runnable::run, recorder,
+            new Spectators(1, Runnable::run), 42);
+        players.forEach(p -> p.join(game));
+        return game;
+    }
+
+    /**
+     * Starts a seeded game of all players.
+     */
+    private Game start() {
+        Game game = create(new GameRecorder(null, 1));
+        game.play();
+        return game;
+    }
+
+    /**
+     * Returns the state of a game of Alfa and Bravo stopped after the first
+     * card of the first round, optionally with an invalid card in the trick.
+     */
+    private static GameState recovered(boolean invalid) throws IOException {
+        GameRecorder recorder = new GameRecorder(null, 1);
+        recorder.gameStarted(Arrays.asList("Alfa", "Bravo"), 0);
+        recorder.roundStarted(1);
+        recorder.cardDealt(0, NumberCard.of(3, Color.RED));
+        recorder.cardDealt(1, WizardCard.of(0));
+        recorder.trump(NumberCard.of(9, Color.BLUE));
+        recorder.prediction(0, 0);
+        recorder.prediction(1, 0);
+        recorder.cardPlayed(0, NumberCard.of(3, Color.RED));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recorder.snapshot().writeTo(new DataOutputStream(bytes));
+        byte[] state = bytes.toByteArray();
+        if (invalid) {
+            // The trick is written last
+            state[state.length - 1] = (byte)Card.COUNT;
+        }
+        return GameState.readFrom(new DataInputStream(new ByteArrayInputStream(state)));
+    }
+
+    /**
+     * Returns all messages of a type sent to a player.
+     */
+    private List<Message> sent(int seat, final MessageType type) {
+        List<Message> found = new ArrayList<Message>();
+        for (Message message : connections.get(seat).messages) {
+            if (message.getType() == type) {
+                found.add(message);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the last hand sent to a player.
+     */
+    private List<Card> hand(int seat) {
+        List<Message> hands = sent(seat, MessageType.UPDATE_HAND);
+        return Arrays.asList(((CardsMessage)hands.get(hands.size() - 1)).getContent());
+    }
+
+    /**
+     * Returns the game events and state-synced messages sent to a player.
+     */
+    private List<EventMessage> events(int seat) {
+        List<EventMessage> found = new ArrayList<EventMessage>();
+        for (Message message : connections.get(seat).messages) {
+            if (message instanceof EventMessage) {
+                found.add((EventMessage)message);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks type and sequence number of a game event.
+     */
+    private static boolean isEvent(final EventMessage event, final MessageType type, int sequence) {
+        return event.getType() == type && event.getContent() == sequence;
+    }
+
+    @Test
+    void testEventSync() {
+        Player alfa = player("Alfa", true);
+        Player bravo = player("Bravo");
+        Game game = start();
+
+        // The whole state is only sent at the start of the round
+        assertTrue(events(0).size() == 1);
+        assertTrue(isEvent(events(0).get(0), MessageType.STATE_SYNCED, 0));
+        assertTrue(sent(0, MessageType.UPDATE_HAND).size() == 1);
+        assertTrue(sent(0, MessageType.UPDATE_SCORES).size() == 1);
+        Card alfaCard = hand(0).get(0);
+        Card bravoCard = hand(1).get(0);
+
+        game.received(alfa, new IntMessage(MessageType.ANSWER_PREDICTION, 0));
+        game.received(bravo, new IntMessage(MessageType.ANSWER_PREDICTION, 0));
+        game.received(alfa, new CardMessage(MessageType.ANSWER_TRICK_CARD, alfaCard));
+        game.received(bravo, new CardMessage(MessageType.ANSWER_TRICK_CARD, bravoCard));
+        assertTrue(game.getState() == Game.State.PREDICTING);
+
+        // Every change of the first round is one numbered event
+        List<EventMessage> events = events(0);
+        assertTrue(events.size() == 8);
+        assertTrue(isEvent(events.get(1), MessageType.PLAYER_PREDICTED, 1));
+        assertTrue(events.get(1).getSeat() == 0 && events.get(1).getValue() == 0);
+        assertTrue(isEvent(events.get(2), MessageType.PLAYER_PREDICTED, 2));
+        assertTrue(events.get(2).getSeat() == 1 && events.get(2).getValue() == 0);
+        assertTrue(isEvent(events.get(3), MessageType.CARD_PLAYED, 3));
+        assertTrue(events.get(3).getValue() == alfaCard.getOrdinal());
+        assertTrue(isEvent(events.get(4), MessageType.CARD_PLAYED, 4));
+        assertTrue(events.get(4).getValue() == bravoCard.getOrdinal());
+        assertTrue(isEvent(events.get(5), MessageType.TRICK_TAKEN, 5));
+        assertTrue(isEvent(events.get(6), MessageType.ROUND_SCORED, 6));
+        assertTrue(isEvent(events.get(7), MessageType.STATE_SYNCED, 6));
+
+        // Playing a card did not send the whole hand, only the next round did
+        assertTrue(sent(0, MessageType.UPDATE_HAND).size() == 2);
+        assertTrue(hand(0).size() == 2);
+
+        // Players not asking for events get the whole state instead
+        assertTrue(events(1).isEmpty());
+        assertTrue(sent(1, MessageType.UPDATE_HAND).size() > 2);
+
+        // A player missing events gets the whole state and the newest number
+        game.received(alfa, new VoidMessage(MessageType.RESYNC));
+        events = events(0);
+        assertTrue(events.size() == 9);
+        assertTrue(isEvent(events.get(8), MessageType.STATE_SYNCED, 6));
+        assertTrue(sent(0, MessageType.UPDATE_HAND).size() == 3);
+        assertTrue(sent(0, MessageType.UPDATE_SCORES).size() == 3);
+        assertTrue(sent(0, MessageType.UPDATE_TRICK).size() >= 1);
+        assertTrue(game.getState() == Game.State.PREDICTING);
+    }
+
+    @Test
+    void testResume() throws IOException {
+        player("Alfa");
+        Player bravo = player("Bravo");
+        GameState state = recovered(false);
+        Game game = create(new GameRecorder(null, state));
+        game.resume(state);
+
+        // The game continues at the second card of the first round
+        assertTrue(game.getState() == Game.State.PLAYING);
+        assertTrue(hand(1).equals(Arrays.asList(WizardCard.of(0))));
+        assertTrue(sent(1, MessageType.ASK_TRICK_CARD).size() == 1);
+        game.received(bravo, new CardMessage(MessageType.ANSWER_TRICK_CARD, WizardCard.of(0)));
+        assertTrue(game.getState() == Game.State.PREDICTING);
+    }
+
+    @Test
+    void testResumeInvalid() throws IOException {
+        player("Alfa");
+        player("Bravo");
+        GameState state = recovered(true);
+        Game game = create(new GameRecorder(null, state));
+        game.resume(state);
+
+        // The game is given up instead of played with a partly restored state
+        assertTrue(game.getState() == Game.State.OVER);
+        assertTrue(game.getFinished().isCompletedExceptionally());
+        assertTrue(sent(0, MessageType.ASK_PREDICTION).isEmpty());
+        assertTrue(sent(1, MessageType.ASK_TRICK_CARD).isEmpty());
+    }
+
+    @Test
+    void testMissingPrediction() throws ReflectiveOperationException {
+        Player alfa = player("Alfa");
+        player("Bravo");
+        Game game = start();
+        assertTrue(sent(0, MessageType.ASK_PREDICTION).size() == 1);
+
+        // A serialized message may come without content
+        IntMessage empty = new IntMessage(MessageType.ANSWER_PREDICTION, 0);
+        Field content = Message.class.getDeclaredField("content");
+        content.setAccessible(true);
+        content.set(empty, null);
+
+        game.received(alfa, empty);
+        assertTrue(game.getState() == Game.State.PREDICTING);
+        assertFalse(game.getFinished().isDone());
+        assertTrue(sent(0, MessageType.ASK_PREDICTION).size() == 2);
+
+        game.received(alfa, new IntMessage(MessageType.ANSWER_PREDICTION, 1));
+        assertTrue(sent(1, MessageType.ASK_PREDICTION).size() == 1);
+    }
+
+    @Test
+    void testInvalidCard() {
+        Player alfa = player("Alfa");
+        Player bravo = player("Bravo");
+        Game game = start();
+
+        game.received(alfa, new IntMessage(MessageType.ANSWER_PREDICTION, 0));
+        game.received(bravo, new IntMessage(MessageType.ANSWER_PREDICTION, 0));
+        assertTrue(game.getState() == Game.State.PLAYING);
+        assertTrue(sent(0, MessageType.ASK_TRICK_CARD).size() == 1);
+
+        // Cards missing in a message are not on the hand, the player is asked again
+        game.received(alfa, new CardMessage(MessageType.ANSWER_TRICK_CARD, null));
+        assertTrue(game.getState() == Game.State.PLAYING);
+        assertFalse(game.getFinished().isDone());
+        assertTrue(sent(0, MessageType.ASK_TRICK_CARD).size() == 2);
+
+        game.received(alfa, new CardMessage(MessageType.ANSWER_TRICK_CARD, hand(0).get(0)));
+        game.received(bravo, new CardMessage(MessageType.ANSWER_TRICK_CARD, hand(1).get(0)));
+        assertTrue(game.getState() == Game.State.PREDICTING);
+        assertFalse(game.getFinished().isDone());
+    }
+}
@@ -0,0 +1,117 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.cards.NumberCard;
+import wizard.common.cards.WizardCard;
+import wizard.common.game.Color;
+import wizard.server.Game;
+import wizard.server.journal.GameRecorder;
+import wizard.server.journal.GameState;
+import wizard.server.journal.Journal;
+import wizard.server.journal.Recovery;
+import wizard.server.journal.Replay;
+import wizard.server.journal.Snapshot;
+
+class JournalTest {
+
+    @Test
+    void testReplay() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+
+        // Small segments, so the game spans several of them
+        try (Journal journal = new Journal(directory, 4, 1, TimeUnit.MILLISECONDS)) {
+            GameRecorder recorder = new GameRecorder(journal, 7);
+            recorder.gameStarted(Arrays.asList("Alfa", "Bravo"), 30000);
+            recorder.roundStarted(1);
+            recorder.cardDealt(0, NumberCard.of(3, Color.RED));
+            recorder.cardDealt(1, WizardCard.of(0));
+            recorder.trump(NumberCard.of(9, Color.BLUE));
+            recorder.prediction(0, 0);
+            recorder.prediction(1, 1);
+            recorder.cardPlayed(0, NumberCard.of(3, Color.RED));
+            // Bravo takes two name parts
+            assertTrue(journal.getAppended() == 11);
+        }
+
+        Replay replay = new Replay();
+        assertTrue(replay.replay(directory) == 11);
+        GameState game = replay.getGame(7);
+        assertTrue(game.getSeats() == 2);
+        assertTrue(game.getName(1).equals("Bravo"));
+        assertTrue(game.getTurnTimeout() == 30000);
+        assertTrue(game.getRound() == 1);
+        assertTrue(game.getState() == Game.State.PLAYING);
+        assertTrue(game.getHandSize(0) == 0);
+        assertTrue(game.getHandSize(1) == 1);
+        assertTrue(game.getPrediction(1) == 1);
+        assertTrue(game.getTrickSize() == 1);
+        assertTrue(game.getCurrentSeat() == 1);
+
+        // Reopened journal appends after the last record
+        try (Journal journal = new Journal(directory, 4, 1, TimeUnit.MILLISECONDS)) {
+            assertTrue(journal.getLastTable() == 7);
+            GameRecorder recorder = new GameRecorder(journal, game);
+            for (int i = 0; i < 8; i++) {
+                recorder.trickTaken(1);
+            }
+        }
+
+        replay = new Replay();
+        assertTrue(replay.replay(directory) == 19);
+        assertTrue(replay.getGame(7).getTricks(1) == 8);
+    }
+
+    @Test
+    void testRecovery() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+
+        try (Journal journal = new Journal(directory, 4, 1, TimeUnit.MILLISECONDS)) {
+            GameRecorder recorder = new GameRecorder(journal, 3);
+            recorder.gameStarted(Arrays.asList("Alfa", "Bravo"), 0);
+            recorder.roundStarted(1);
+            recorder.cardDealt(0, NumberCard.of(3, Color.RED));
+            recorder.cardDealt(1, WizardCard.of(0));
+
+            // Events after the snapshot position are replayed on recovery
+            long position = journal.getPosition();
+            new Snapshot(position, Arrays.asList(recorder.snapshot())).write(directory);
+            recorder.trump(NumberCard.of(9, Color.BLUE));
+            recorder.prediction(0, 1);
+
+            GameRecorder finished = new GameRecorder(journal, 4);
+            finished.gameStarted(Arrays.asList("Alfa", "Bravo"), 0);
+            finished.gameOver();
+        }
+
+        Snapshot snapshot = Snapshot.read(directory);
+        assertTrue(snapshot.getGames().size() == 1);
+        assertTrue(snapshot.getGames().get(0).getHandSize(1) == 1);
+
+        List<GameState> games = Recovery.recover(directory);
+        assertTrue(games.size() == 1);
+        GameState game = games.get(0);
+        assertTrue(game.getTable() == 3);
+        assertTrue(game.getName(0).equals("Alfa"));
+        assertTrue(game.getHandSize(0) == 1);
+        assertTrue(game.getPrediction(0) == 1);
+        assertTrue(game.getState() == Game.State.PREDICTING);
+        assertTrue(game.getCurrentSeat() == 1);
+
+        // Continued games go on with the next sequence number
+        try (Journal journal = new Journal(directory, 4, 1, TimeUnit.MILLISECONDS)) {
+            GameRecorder recorder = new GameRecorder(journal, game);
+            recorder.prediction(1, 0);
+            assertTrue(recorder.getSequence() == game.getSequence() + 1);
+            assertTrue(recorder.snapshot().getState() == Game.State.PLAYING);
+        }
+    }
+}
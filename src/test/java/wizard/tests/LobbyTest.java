@@ -0,0 +1,230 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import wizard.common.GameStatus;
+import wizard.common.cards.NumberCard;
+import wizard.common.game.Color;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.StringMessage;
+import wizard.common.network.BufferPool;
+import wizard.common.network.Frames;
+import wizard.common.network.Handshake;
+import wizard.common.network.PooledBuffer;
+import wizard.common.network.WireFormat;
+import wizard.server.ClientConnectionHandler;
+import wizard.server.GameScheduler;
+import wizard.server.Lobby;
+import wizard.server.Player;
+import wizard.server.Spectators;
+import wizard.server.Table;
+import wizard.server.WizardServer;
+import wizard.server.network.Connection;
+import wizard.server.network.FrameHandler;
+import wizard.server.network.OutboundLimits;
+import wizard.server.network.OutboundQueue;
+
+class LobbyTest {
+
+    /**
+     * Connection discarding everything written to it.
+     */
+    private static class NullConnection implements Connection {
+
+        private boolean closed = false;
+
+        @Override
+        public void open(final FrameHandler handler) {
+        }
+
+        @Override
+        public void write(final List<PooledBuffer> frames) {
+            frames.forEach(PooledBuffer::release);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return new OutboundQueue(OutboundLimits.DEFAULT);
+        }
+
+        @Override
+        public long getWriteCalls() {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates a client which is not part of any lobby.
+     */
+    private static ClientConnectionHandler client() {
+        return new ClientConnectionHandler(new NullConnection(), WizardServer.DEFAULT_WIRE_FORMATS, null, null);
+    }
+
+    @Test
+    void testSeats() {
+        Table table = new Table(1, 3, 0);
+        ClientConnectionHandler a = client();
+        ClientConnectionHandler b = client();
+        ClientConnectionHandler c = client();
+
+        assertTrue(table.sit(a, "Alfa"));
+        assertFalse(table.sit(a, "Alfa"));
+        assertTrue(table.sit(b, "Alfa"));
+        assertFalse(table.isFull());
+
+        // Leaving frees the seat again
+        assertTrue(table.leave(b));
+        assertFalse(table.leave(b));
+        assertTrue(table.sit(b, "Alfa"));
+        assertTrue(table.sit(c, "Alfa"));
+        assertTrue(table.isFull());
+        assertFalse(table.sit(client(), "Bravo"));
+
+        // Names are unique at a table
+        List<Player> players = table.start();
+        assertTrue(players.get(0).getName().equals("Alfa"));
+        assertTrue(players.get(1).getName().equals("Alfa 2"));
+        assertTrue(players.get(2).getName().equals("Alfa 3"));
+        assertTrue(table.getState() == Table.State.PLAYING);
+        assertFalse(table.leave(a));
+
+        // Closed tables hold no clients
+        assertTrue(table.close().size() == 3);
+        assertTrue(table.isEmpty());
+        assertTrue(table.getState() == Table.State.CLOSED);
+    }
+
+    @Test
+    void testLobby() throws IOException {
+        // Games are not started
+        Lobby lobby = new Lobby(new GameScheduler(1, r -> new Thread(() -> { })), null, null, new BufferPool(), 0, null, Runnable::run, 0);
+
+        ClientConnectionHandler a = negotiatedClient(lobby);
+        ClientConnectionHandler b = negotiatedClient(lobby);
+        ClientConnectionHandler c = negotiatedClient(lobby);
+
+        // Joining any table creates one if there is none
+        lobby.handle(a, new StringMessage(MessageType.SET_NAME, "Anna"));
+        lobby.handle(a, new IntMessage(MessageType.JOIN_TABLE, 0));
+        assertTrue(a.getTable() != null);
+        assertTrue(lobby.getTableCount() == 1);
+
+        // Leaving removes the empty table
+        lobby.leave(a);
+        assertNull(a.getTable());
+        assertTrue(lobby.getTableCount() == 0);
+
+        lobby.handle(a, new IntMessage(MessageType.CREATE_TABLE, 3));
+        Table table = a.getTable();
+        lobby.handle(b, new IntMessage(MessageType.JOIN_TABLE, table.getId()));
+        lobby.handle(c, new IntMessage(MessageType.JOIN_TABLE, 0));
+        assertTrue(b.getTable() == table);
+        assertTrue(c.getTable() == table);
+        assertTrue(table.getState() == Table.State.PLAYING);
+        assertTrue(lobby.listTables().contains("[Anna, Bravo, Charlie]"));
+
+        // Full tables cannot be joined, invalid tables cannot be created
+        ClientConnectionHandler d = negotiatedClient(lobby);
+        lobby.handle(d, new IntMessage(MessageType.JOIN_TABLE, table.getId()));
+        lobby.handle(d, new IntMessage(MessageType.CREATE_TABLE, 7));
+        assertNull(d.getTable());
+
+        // Playing tables can be watched, spectators cannot sit down
+        lobby.handle(d, new IntMessage(MessageType.WATCH_TABLE, table.getId() + 1));
+        assertFalse(d.isWatching());
+        lobby.handle(d, new IntMessage(MessageType.WATCH_TABLE, table.getId()));
+        assertTrue(d.isWatching());
+        assertTrue(lobby.listTables().contains("1 watching"));
+        lobby.handle(d, new IntMessage(MessageType.JOIN_TABLE, 0));
+        assertNull(d.getTable());
+    }
+
+    @Test
+    void testInvalidContent() throws ReflectiveOperationException {
+        Lobby lobby = new Lobby(new GameScheduler(1, r -> new Thread(() -> { })), null, null, new BufferPool(), 0, null, Runnable::run, 0);
+        ClientConnectionHandler a = negotiatedClient(lobby);
+        Field content = Message.class.getDeclaredField("content");
+        content.setAccessible(true);
+
+        // Deserialized messages may carry no or another content, the client gets an error
+        for (MessageType type : EnumSet.of(MessageType.CREATE_TABLE, MessageType.JOIN_TABLE, MessageType.WATCH_TABLE)) {
+            for (Object invalid : Arrays.asList(null, "3")) {
+                IntMessage message = new IntMessage(type, 3);
+                content.set(message, invalid);
+                long sent = a.getBytesSent();
+                lobby.handle(a, message);
+                assertTrue(a.getBytesSent() > sent);
+                assertNull(a.getTable());
+                assertFalse(a.isWatching());
+            }
+        }
+        assertTrue(lobby.getTableCount() == 0);
+    }
+
+    @Test
+    void testSpectators() {
+        Spectators spectators = new Spectators(1, Runnable::run);
+        ClientConnectionHandler a = negotiatedClient(null);
+        spectators.add(a);
+        assertTrue(spectators.getCount() == 1);
+
+        // Updates reach all spectators, late spectators get the latest view
+        spectators.updateTrump(NumberCard.of(3, Color.RED), Color.RED);
+        spectators.updateGameStatus(GameStatus.WAITING_CARD_OTHER);
+        long sent = a.getBytesSent();
+        assertTrue(sent > 0);
+
+        ClientConnectionHandler b = negotiatedClient(null);
+        b.startedWatching(spectators, 1);
+        long joined = b.getBytesSent();
+        spectators.add(b);
+        assertTrue(b.getBytesSent() - joined == sent);
+
+        spectators.remove(a);
+        spectators.updateTrick(Arrays.asList(NumberCard.of(5, Color.RED)));
+        assertTrue(a.getBytesSent() == sent);
+        assertTrue(b.getBytesSent() > joined + sent);
+
+        // Spectators return to the lobby once the game is over
+        spectators.close();
+        assertTrue(spectators.getCount() == 0);
+        assertFalse(b.isWatching());
+        spectators.add(a);
+        assertTrue(spectators.getCount() == 0);
+    }
+
+    /**
+     * Creates a client which has completed the handshake.
+     */
+    private static ClientConnectionHandler negotiatedClient(final Lobby lobby) {
+        ClientConnectionHandler client = new ClientConnectionHandler(new NullConnection(),
+            WizardServer.DEFAULT_WIRE_FORMATS, null, lobby);
+        ByteBuffer offer = Handshake.offer(EnumSet.allOf(WireFormat.class));
+        offer.position(Frames.HEADER_LENGTH);
+        client.frameReceived(offer.slice());
+        assertTrue(client.isNegotiated());
+        return client;
+    }
+}
@@ -0,0 +1,92 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.Mailbox;
+import wizard.common.cards.WizardCard;
+import wizard.common.messages.CardMessage;
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.VoidMessage;
+
+class MailboxTest {
+
+    @Test
+    void testUnexpectedMessagesAreDropped() throws InterruptedException {
+        Mailbox mailbox = new Mailbox("test");
+        mailbox.put(new CardMessage(MessageType.ANSWER_TRICK_CARD, WizardCard.of(0)));
+        mailbox.put(new VoidMessage(MessageType.ANSWER_PREDICTION));
+        mailbox.put(new IntMessage(MessageType.ANSWER_PREDICTION, 2));
+
+        IntMessage m = mailbox.receive(MessageType.ANSWER_PREDICTION, IntMessage.class);
+        assertTrue(m.getContent() == 2);
+        assertTrue(mailbox.size() == 0);
+    }
+
+    @Test
+    void testReceiveAny() throws InterruptedException {
+        Mailbox mailbox = new Mailbox("test");
+        mailbox.put(new VoidMessage(MessageType.ASK_PREDICTION));
+        mailbox.put(new VoidMessage(MessageType.ASK_TRICK_CARD));
+
+        assertTrue(mailbox.receive().getType() == MessageType.ASK_PREDICTION);
+        assertTrue(mailbox.receive().getType() == MessageType.ASK_TRICK_CARD);
+    }
+
+    @Test
+    void testTimeout() throws InterruptedException {
+        Mailbox mailbox = new Mailbox("test");
+        assertNull(mailbox.receive(MessageType.ANSWER_PREDICTION, IntMessage.class, 10, TimeUnit.MILLISECONDS));
+
+        // Message arriving after the timeout is kept for the next receive
+        mailbox.put(new IntMessage(MessageType.ANSWER_PREDICTION, 1));
+        IntMessage m = mailbox.receive(MessageType.ANSWER_PREDICTION, IntMessage.class, 1, TimeUnit.SECONDS);
+        assertTrue(m.getContent() == 1);
+    }
+
+    @Test
+    void testAsync() {
+        Mailbox mailbox = new Mailbox("test");
+        CompletableFuture<IntMessage> f = mailbox.receiveAsync(MessageType.ANSWER_PREDICTION, IntMessage.class);
+        assertFalse(f.isDone());
+
+        // Only one receive may be pending
+        assertThrows(IllegalStateException.class, () -> mailbox.receiveAsync(null, Message.class));
+
+        mailbox.put(new IntMessage(MessageType.ANSWER_PREDICTION, 3));
+        assertTrue(f.join().getContent() == 3);
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        Mailbox mailbox = new Mailbox("test");
+        final int perThread = 10000;
+
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    mailbox.put(new IntMessage(MessageType.ANSWER_PREDICTION, i));
+                }
+            });
+            producers[t].start();
+        }
+
+        for (int i = 0; i < producers.length * perThread; i++) {
+            assertTrue(mailbox.receive(MessageType.ANSWER_PREDICTION, IntMessage.class) != null);
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertTrue(mailbox.size() == 0);
+    }
+
+}
@@ -0,0 +1,81 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.network.BufferPool;
+import wizard.common.network.PooledBuffer;
+import wizard.server.network.OutboundLimits;
+import wizard.server.network.OutboundQueue;
+
+class OutboundQueueTest {
+
+    /**
+     * Takes a buffer of given length from a pool.
+     */
+    private static PooledBuffer frame(final BufferPool pool, int length) {
+        PooledBuffer frame = pool.acquire();
+        frame.buffer().limit(length);
+        return frame;
+    }
+
+    @Test
+    void testSlowAndExceeded() throws IOException {
+        BufferPool pool = new BufferPool(100, 16);
+        OutboundQueue queue = new OutboundQueue(new OutboundLimits(150, 250, 1, 1, TimeUnit.HOURS));
+
+        queue.add(Arrays.asList(frame(pool, 100), frame(pool, 40)));
+        assertFalse(queue.updateSlow());
+        assertTrue(queue.getBytes() == 140);
+
+        // Crossing the slow threshold raises the flag once
+        queue.add(Collections.singletonList(frame(pool, 60)));
+        assertTrue(queue.updateSlow());
+        assertFalse(queue.updateSlow());
+        assertTrue(queue.isSlow());
+
+        // Exceeding the maximum rejects and releases the frames
+        assertThrows(IOException.class, () -> queue.add(Collections.singletonList(frame(pool, 100))));
+        assertTrue(queue.size() == 3);
+        assertTrue(pool.getIdle() == 1);
+
+        // Writing frames releases them and clears the flag
+        ByteBuffer[] gather = new ByteBuffer[2];
+        assertTrue(queue.gather(gather) == 2);
+        gather[0].position(gather[0].limit());
+        gather[1].position(10);
+        queue.removeWritten();
+        assertTrue(queue.size() == 2);
+        assertTrue(queue.getBytes() == 100);
+        assertFalse(queue.updateSlow());
+        assertTrue(queue.getMaxBytes() == 200);
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertTrue(pool.getIdle() == 4);
+    }
+
+    @Test
+    void testAge() throws IOException, InterruptedException {
+        BufferPool pool = new BufferPool(100, 16);
+        OutboundQueue queue = new OutboundQueue(new OutboundLimits(1000, 1000, 10, 50, TimeUnit.MILLISECONDS));
+
+        queue.add(Collections.singletonList(frame(pool, 10)));
+        Thread.sleep(20);
+        assertTrue(queue.updateSlow());
+        assertFalse(queue.isExceeded());
+
+        // Oldest frame waits too long, the client gets disconnected
+        Thread.sleep(40);
+        assertTrue(queue.isExceeded());
+        assertThrows(IOException.class, () -> queue.add(Collections.singletonList(frame(pool, 10))));
+    }
+}
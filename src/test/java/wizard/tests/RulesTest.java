@@ -0,0 +1,76 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import wizard.common.cards.CardSet;
+import wizard.common.cards.JesterCard;
+import wizard.common.cards.NumberCard;
+import wizard.common.cards.WizardCard;
+import wizard.common.game.Color;
+import wizard.common.game.Hand;
+import wizard.common.game.Rules;
+import wizard.common.game.Trick;
+
+class RulesTest {
+
+    @Test
+    void testLegalMoves() {
+        Hand hand = new Hand(Arrays.asList(
+            NumberCard.of(2, Color.BLUE),
+            NumberCard.of(9, Color.BLUE),
+            NumberCard.of(5, Color.RED),
+            JesterCard.of(1),
+            WizardCard.of(0)
+        ));
+
+        // Empty trick, anything goes
+        Trick trick = new Trick(Color.GREEN);
+        assertTrue(Rules.legalMoves(hand, trick) == hand.bits());
+
+        // Blue has to be followed
+        trick.add(NumberCard.of(4, Color.BLUE));
+        long legal = Rules.legalMoves(hand, trick);
+        assertTrue(Long.bitCount(legal) == 4);
+        assertTrue(Rules.isLegal(hand, trick, NumberCard.of(9, Color.BLUE)));
+        assertTrue(Rules.isLegal(hand, trick, JesterCard.of(1)));
+        assertTrue(Rules.isLegal(hand, trick, WizardCard.of(0)));
+        assertFalse(Rules.isLegal(hand, trick, NumberCard.of(5, Color.RED)));
+
+        // Cards not on the hand are never legal
+        assertFalse(Rules.isLegal(hand, trick, NumberCard.of(3, Color.BLUE)));
+        assertFalse(Rules.isLegal(hand, trick, WizardCard.of(1)));
+
+        // Without green every card may be played
+        assertTrue(Rules.legalMoves(hand.bits(), Color.GREEN) == hand.bits());
+        assertTrue(Rules.legalMoves(0, Color.BLUE) == 0);
+        assertTrue(Rules.legalMoves(CardSet.ALL, Color.RED)
+            == (CardSet.colorMask(Color.RED) | CardSet.colorMask(Color.CLEAR)));
+    }
+
+    @Test
+    void testLead() {
+        Hand hand = new Hand(Arrays.asList(NumberCard.of(5, Color.RED), NumberCard.of(6, Color.YELLOW)));
+
+        // Jesters do not decide the first color
+        Trick trick = new Trick(Color.BLUE);
+        trick.add(JesterCard.of(0));
+        assertTrue(trick.firstColor() == Color.CLEAR);
+        assertTrue(Rules.legalMoves(hand, trick) == hand.bits());
+        trick.add(NumberCard.of(1, Color.RED));
+        assertTrue(trick.firstColor() == Color.RED);
+        assertFalse(Rules.isLegal(hand, trick, NumberCard.of(6, Color.YELLOW)));
+
+        // A trick led by a wizard has no first color
+        trick = new Trick(Color.BLUE);
+        trick.add(JesterCard.of(0));
+        trick.add(WizardCard.of(3));
+        trick.add(NumberCard.of(1, Color.RED));
+        assertTrue(trick.firstColor() == Color.CLEAR);
+        assertTrue(Rules.isLegal(hand, trick, NumberCard.of(6, Color.YELLOW)));
+        assertTrue(trick.getWinner() == 1);
+    }
+}
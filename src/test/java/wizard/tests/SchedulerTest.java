@@ -0,0 +1,63 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import wizard.server.GameScheduler;
+
+class SchedulerTest {
+
+    @Test
+    void testPlacement() {
+        GameScheduler scheduler = new GameScheduler(3, Thread::new);
+
+        // Tables are spread over all shards
+        GameScheduler.Shard a = scheduler.assign();
+        GameScheduler.Shard b = scheduler.assign();
+        GameScheduler.Shard c = scheduler.assign();
+        assertTrue(a != b && b != c && a != c);
+
+        // Freed shards get the next table
+        scheduler.release(b);
+        assertTrue(scheduler.assign() == b);
+        assertTrue(scheduler.assign().getTables() == 2);
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testEventsRunInOrderOnOneThread() throws InterruptedException {
+        GameScheduler scheduler = new GameScheduler(2, Thread::new);
+        GameScheduler.Shard shard = scheduler.assign();
+        List<Integer> order = new ArrayList<Integer>();
+        List<Thread> threads = new ArrayList<Thread>();
+        CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            final int n = i;
+            shard.execute(() -> {
+                order.add(n);
+                threads.add(Thread.currentThread());
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(order.get(i) == i);
+            assertTrue(threads.get(i) == threads.get(0));
+        }
+        CountDownLatch last = new CountDownLatch(1);
+        shard.execute(last::countDown);
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+        assertTrue(shard.getExecuted() >= 1000);
+        assertTrue(shard.getMaxQueueDepth() > 0);
+
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,150 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import wizard.common.game.ScoreBoard;
+
+class ScoreBoardTest {
+
+    @Test
+    void testSeats() {
+        ScoreBoard scoreBoard = new ScoreBoard();
+        scoreBoard.add("Charlie");
+        scoreBoard.add("Alfa");
+        scoreBoard.add("Charlie");
+
+        // Players keep their seats
+        assertTrue(scoreBoard.size() == 2);
+        assertTrue(scoreBoard.getPlayers().equals(Arrays.asList("Charlie", "Alfa")));
+        assertTrue(scoreBoard.getSeat("Alfa") == 1);
+        assertTrue(scoreBoard.getSeat("Bravo") == -1);
+
+        // Names and seats update the same values
+        scoreBoard.setPredictions("Alfa", 2);
+        scoreBoard.addTrick(1);
+        scoreBoard.addTrick("Alfa");
+        scoreBoard.setPredictions(0, 1);
+        assertTrue(scoreBoard.getPrediction(1) == 2);
+        assertTrue(scoreBoard.getTricks("Alfa") == 2);
+        assertTrue(scoreBoard.getPrediction("Charlie") == 1);
+
+        scoreBoard.predictionsToScore();
+        assertTrue(scoreBoard.getScore("Alfa") == 40);
+        assertTrue(scoreBoard.getScore(0) == -10);
+        assertTrue(scoreBoard.getPrediction("Alfa") == -1);
+        assertTrue(scoreBoard.getTricks(1) == 0);
+
+        // Unknown players have no values yet
+        assertTrue(scoreBoard.getPrediction("Bravo") == -1);
+        assertTrue(scoreBoard.getTricks("Bravo") == 0);
+        assertTrue(scoreBoard.getScore("Bravo") == 0);
+
+        // Setting values of unknown players adds them
+        scoreBoard.addScore("Bravo", 30);
+        assertTrue(scoreBoard.getSeat("Bravo") == 2);
+        assertTrue(scoreBoard.getScore(2) == 30);
+    }
+
+    @Test
+    void testSerialization() throws IOException, ClassNotFoundException {
+        ScoreBoard scoreBoard = new ScoreBoard();
+        for (int i = 0; i < 8; i++) {
+            scoreBoard.add("Player " + i);
+            scoreBoard.setScore(i, -10 * i);
+        }
+        scoreBoard.setPredictions("Player 3", 4);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ScoreBoard(scoreBoard));
+        }
+        ScoreBoard copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ScoreBoard)in.readObject();
+        }
+
+        assertTrue(copy.getPlayers().equals(scoreBoard.getPlayers()));
+        assertTrue(copy.getPrediction("Player 3") == 4);
+        assertTrue(copy.getScore("Player 7") == -70);
+        assertTrue(copy.toString().equals(scoreBoard.toString()));
+    }
+
+    @Test
+    void testHistory() {
+        ScoreBoard scoreBoard = new ScoreBoard();
+        scoreBoard.add("Alfa");
+        scoreBoard.add("Bravo");
+        scoreBoard.add("Charlie");
+
+        // Round 0: Bravo hits, the others miss
+        scoreBoard.setPredictions(0, 1);
+        scoreBoard.setPredictions(1, 0);
+        scoreBoard.setPredictions(2, 0);
+        scoreBoard.addTrick(2);
+        scoreBoard.predictionsToScore();
+
+        // Round 1: Alfa and Charlie hit
+        scoreBoard.setPredictions(0, 1);
+        scoreBoard.setPredictions(1, 1);
+        scoreBoard.setPredictions(2, 1);
+        scoreBoard.addTrick(0);
+        scoreBoard.addTrick(2);
+        scoreBoard.predictionsToScore();
+
+        assertTrue(scoreBoard.getRounds() == 2);
+        assertTrue(scoreBoard.getRoundPrediction(0, 0) == 1);
+        assertTrue(scoreBoard.getRoundTricks(0, 2) == 1);
+        assertTrue(scoreBoard.getRoundDelta(0, 1) == 20);
+        assertTrue(scoreBoard.getRoundDelta(1, 1) == -10);
+        assertTrue(scoreBoard.getRoundTotal(1, 2) == 20);
+        assertTrue(scoreBoard.getRoundTotal(1, 0) == scoreBoard.getScore(0));
+
+        // Alfa and Charlie share the lead
+        assertTrue(scoreBoard.getStandings().equals(Arrays.asList("Alfa", "Charlie", "Bravo")));
+        assertTrue(scoreBoard.getRank("Alfa") == 1);
+        assertTrue(scoreBoard.getRank(2) == 1);
+        assertTrue(scoreBoard.getRank("Bravo") == 3);
+        assertTrue(scoreBoard.getRank("Delta") == 0);
+
+        // Updates keep only the newest round
+        ScoreBoard update = scoreBoard.latest();
+        assertTrue(update.getFirstRound() == 1);
+        assertTrue(update.getRoundDelta(1, 0) == 30);
+        boolean missing = false;
+        try {
+            update.getRoundDelta(0, 0);
+        } catch (IllegalArgumentException e) {
+            missing = true;
+        }
+        assertTrue(missing);
+
+        // Merging rebuilds the full history
+        ScoreBoard client = new ScoreBoard(scoreBoard).latest();
+        scoreBoard.setPredictions(0, 1);
+        scoreBoard.setPredictions(1, 0);
+        scoreBoard.setPredictions(2, 0);
+        scoreBoard.predictionsToScore();
+        client = client.merge(scoreBoard.latest());
+        assertTrue(client.getFirstRound() == 1);
+        assertTrue(client.getRounds() == 3);
+        assertTrue(client.getRoundDelta(2, 1) == 20);
+        assertTrue(client.getRank("Bravo") == 2);
+        assertTrue(client.getStandings().equals(Arrays.asList("Charlie", "Bravo", "Alfa")));
+        assertFalse(client.getStandings().equals(scoreBoard.getPlayers()));
+
+        // Players joining late get empty rows
+        scoreBoard.add("Delta");
+        assertTrue(scoreBoard.getRoundPrediction(0, 3) == -1);
+        assertTrue(scoreBoard.getRoundTotal(2, 1) == 30);
+        assertTrue(scoreBoard.getRank("Delta") == 4);
+    }
+}
@@ -0,0 +1,65 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import wizard.common.messages.IntMessage;
+import wizard.common.messages.Message;
+import wizard.common.messages.MessageType;
+import wizard.common.messages.VoidMessage;
+import wizard.server.Player;
+import wizard.server.Session;
+import wizard.server.Table;
+
+class SessionTest {
+
+    @Test
+    void testMissedMessages() {
+        Session session = new Session(42, new Player("Alfa", null), new Table(1, 2, 0), 8);
+        for (int i = 1; i <= 10; i++) {
+            session.record(new IntMessage(MessageType.TABLE_JOINED, i));
+        }
+        assertTrue(session.getSequence() == 10);
+
+        // Only the messages after the acknowledged one are sent again
+        List<Message> missed = session.missedSince(7);
+        assertTrue(missed.size() == 3);
+        assertTrue(((IntMessage)missed.get(0)).getContent() == 8);
+        assertTrue(((IntMessage)missed.get(2)).getContent() == 10);
+        assertTrue(session.missedSince(10).isEmpty());
+
+        // Messages 1 and 2 have been dropped from the buffer
+        assertTrue(session.missedSince(2).size() == 8);
+        assertTrue(session.missedSince(1) == null);
+        assertTrue(session.missedSince(11) == null);
+    }
+
+    @Test
+    void testAskReceived() {
+        Session session = new Session(42, new Player("Alfa", null), new Table(1, 2, 0));
+        session.record(new VoidMessage(MessageType.ASK_PREDICTION));
+        session.record(new IntMessage(MessageType.TABLE_JOINED, 1));
+        assertFalse(session.isAskReceived(0));
+        assertTrue(session.isAskReceived(1));
+    }
+
+    @Test
+    void testExpiry() {
+        Session session = new Session(42, new Player("Alfa", null), new Table(1, 2, 0));
+        assertTrue(session.attach(null));
+
+        // Resumed sessions do not expire
+        session.suspend(null, 0, TimeUnit.MILLISECONDS, () -> { });
+        assertTrue(session.isSuspended());
+        assertTrue(session.attach(null));
+        assertFalse(session.expire());
+
+        session.suspend(null, 0, TimeUnit.MILLISECONDS, () -> { });
+        assertTrue(session.expire());
+        assertFalse(session.attach(null));
+    }
+}
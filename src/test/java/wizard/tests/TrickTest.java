@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import        org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import wizard.common.cards.Card;
 import wizard.common.cards.JesterCard;
 import wizard.common.cards.NumberCard;
@@ -25,10 +27,10 @@ class TrickTest {
         {
             Trick t = new Trick();
             Card[] cards = {
-                new NumberCard(10, Color.BLUE),
-                new NumberCard(13, Color.YELLOW),
-                new WizardCard(),
-                new NumberCard(15, Color.RED)
+                NumberCard.of(10, Color.BLUE),
+                NumberCard.of(13, Color.YELLOW),
+                WizardCard.of(0),
+                NumberCard.of(13, Color.RED)
             };
             for (Card c : cards) {
                 t.add(c);
@@ -40,15 +42,15 @@ class TrickTest {
         {
             Trick t = new Trick();
             Card[] cards = {
-                new NumberCard(6, Color.RED),
-                new NumberCard(7, Color.YELLOW),
-                new JesterCard(),
-                new NumberCard(2, Color.BLUE),
-                new JesterCard(),
-                new NumberCard(1, Color.BLUE),
-                new NumberCard(8, Color.RED),
-                new NumberCard(3, Color.BLUE),
-                new NumberCard(9, Color.GREEN)
+                NumberCard.of(6, Color.RED),
+                NumberCard.of(7, Color.YELLOW),
+                JesterCard.of(0),
+                NumberCard.of(2, Color.BLUE),
+                JesterCard.of(1),
+                NumberCard.of(1, Color.BLUE),
+                NumberCard.of(8, Color.RED),
+                NumberCard.of(3, Color.BLUE),
+                NumberCard.of(9, Color.GREEN)
             };
             for (Card c : cards) {
                 t.add(c);
@@ -60,15 +62,15 @@ class TrickTest {
         {
             Trick t = new Trick();
             Card[] cards = {
-                new JesterCard(),
-                new NumberCard(1, Color.RED),
-                new NumberCard(5, Color.YELLOW),
-                new JesterCard(),
-                new NumberCard(7, Color.GREEN),
-                new NumberCard(2, Color.RED),
-                new NumberCard(10, Color.YELLOW),
-                new NumberCard(1, Color.RED),
-                new NumberCard(12, Color.GREEN)
+                JesterCard.of(0),
+                NumberCard.of(1, Color.RED),
+                NumberCard.of(5, Color.YELLOW),
+                JesterCard.of(1),
+                NumberCard.of(7, Color.GREEN),
+                NumberCard.of(3, Color.RED),
+                NumberCard.of(10, Color.YELLOW),
+                NumberCard.of(2, Color.RED),
+                NumberCard.of(12, Color.GREEN)
             };
             for (Card c : cards) {
                 t.add(c);
@@ -80,9 +82,9 @@ class TrickTest {
         {
             Trick t = new Trick();
             Card[] cards = {
-                new JesterCard(),
-                new JesterCard(),
-                new JesterCard(),
+                JesterCard.of(0),
+                JesterCard.of(1),
+                JesterCard.of(2),
             };
             for (Card c : cards) {
                 t.add(c);
@@ -92,6 +94,60 @@ class TrickTest {
             assertFalse(t.takenBy(Color.BLUE) == cards[1]);
             assertTrue(t.takenBy(Color.BLUE) == cards[2]);
         }
+
+        // Test if the first of two wizards takes the trick
+        {
+            Trick t = new Trick();
+            Card[] cards = {
+                NumberCard.of(4, Color.GREEN),
+                WizardCard.of(3),
+                WizardCard.of(1)
+            };
+            for (Card c : cards) {
+                t.add(c);
+            }
+
+            assertTrue(t.takenBy(Color.GREEN) == cards[1]);
+        }
+    }
+
+    @Test
+    void testWinner() {
+        // Winner is updated with every card
+        {
+            Trick t = new Trick(Color.YELLOW);
+            assertTrue(t.getWinner() == -1);
+
+            t.add(JesterCard.of(0));
+            assertTrue(t.getWinner() == 0);
+            t.add(NumberCard.of(4, Color.RED));
+            assertTrue(t.getWinner() == 1);
+            t.add(NumberCard.of(13, Color.BLUE));
+            assertTrue(t.getWinner() == 1);
+            t.add(NumberCard.of(9, Color.RED));
+            assertTrue(t.getWinner() == 3);
+            t.add(NumberCard.of(1, Color.YELLOW));
+            assertTrue(t.getWinner() == 4);
+            t.add(WizardCard.of(2));
+            assertTrue(t.getWinner() == 5);
+            assertTrue(t.takenBy(Color.YELLOW) == WizardCard.of(2));
+        }
+
+        // Last jester takes a trick of jesters only
+        {
+            Trick t = new Trick(Color.RED);
+            for (int i = 0; i < 4; i++) {
+                t.add(JesterCard.of(i));
+                assertTrue(t.getWinner() == i);
+            }
+        }
+
+        // Trick of received cards
+        {
+            Trick t = new Trick(Arrays.asList(NumberCard.of(3, Color.GREEN), NumberCard.of(5, Color.GREEN)));
+            assertTrue(t.getWinner() == 1);
+            assertTrue(t.firstColor() == Color.GREEN);
+        }
     }
 
 }
@@ -0,0 +1,62 @@
+package wizard.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import        org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import wizard.server.HashedWheelTimer;
+import wizard.server.Turn;
+
+class TurnTimerTest {
+
+    @Test
+    void testTimeoutsExpireInOrder() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 4);
+        List<Integer> expired = new CopyOnWriteArrayList<Integer>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        // Delays longer than one turn of the wheel wait for more rounds
+        timer.newTimeout(() -> { expired.add(2); done.countDown(); }, 60, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> { expired.add(1); done.countDown(); }, 10, TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(() -> expired.add(3), 20, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertTrue(expired.size() == 2);
+        assertTrue(expired.get(0) == 1);
+        assertTrue(expired.get(1) == 2);
+        assertFalse(cancelled.isExpired());
+
+        timer.stop();
+    }
+
+    @Test
+    void testTurnExpires() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 64);
+
+        // No answer in time
+        CountDownLatch deadline = new CountDownLatch(1);
+        Turn turn = new Turn(30, TimeUnit.MILLISECONDS);
+        turn.watch(timer, deadline::countDown);
+        assertTrue(deadline.await(5, TimeUnit.SECONDS));
+        turn.expire();
+        assertTrue(turn.isExpired());
+        assertTrue(turn.getElapsed(TimeUnit.MILLISECONDS) >= 30);
+
+        // Answer in time
+        CountDownLatch late = new CountDownLatch(1);
+        turn = new Turn(30, TimeUnit.MILLISECONDS);
+        turn.watch(timer, late::countDown);
+        turn.end();
+        assertFalse(late.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(turn.isExpired());
+
+        timer.stop();
+    }
+}